@@ -21,6 +21,10 @@ public class AllTeamAndPlayerScraper implements ScraperUtilsInterface {
      * Database schema names
      */
     private String schema1, schema2;
+    /**
+     * Queue of writes for the second player database, or null if it is written directly
+     */
+    private final ReplicaWriter playerReplica;
 
     /**
      * Establishes connections to databases
@@ -32,6 +36,7 @@ public class AllTeamAndPlayerScraper implements ScraperUtilsInterface {
     public AllTeamAndPlayerScraper(@Value("${playerschema1}") String schema1, @Value("${playerschema2}") String schema2) {
         this.schema1 = schema1;
         this.schema2 = schema2;
+        this.playerReplica = ReplicaWriter.forSecondary(schema1, schema2);
     }
 
     /**
@@ -47,7 +52,7 @@ public class AllTeamAndPlayerScraper implements ScraperUtilsInterface {
         //Record updated players, activity status, and active years for logging the results
         HashMap<String, Integer> updatedPlayerActivities = new HashMap<>();
         HashMap<String, Integer> updatedLatestActiveYears = new HashMap<>();
-        String response = ScraperUtilsInterface.super.fetchSpecificURL("https://www.nba.com/stats/js/data/ptsd/stats_ptsd.js");
+        String response = ScraperUtilsInterface.super.fetchSpecificURL(ScraperUtilsInterface.super.getSiteBaseUrl() + "/stats/js/data/ptsd/stats_ptsd.js");
         //Parse response
         String[] splitResponse = response.split("\"teams\"")[1].split("\"players\"");
         String[] teams = splitResponse[0].split("\\]\\]");
@@ -246,7 +251,9 @@ public class AllTeamAndPlayerScraper implements ScraperUtilsInterface {
                 stmt.setInt(1, isActive);
                 stmt.setString(2, id);
                 stmt.execute();
-                if (connPlayers1 != connPlayers2) {
+                if (playerReplica != null) {
+                    playerReplica.enqueue(sqlUpdate, isActive, id);
+                } else if (connPlayers1 != connPlayers2) {
                     stmt = connPlayers2.prepareStatement(sqlUpdate);
                     stmt.setInt(1, isActive);
                     stmt.setString(2, id);
@@ -276,7 +283,9 @@ public class AllTeamAndPlayerScraper implements ScraperUtilsInterface {
                     stmt.setString(1, ScraperUtilsInterface.super.buildYear(playerDetails[index]));
                     stmt.setInt(2, Integer.parseInt(playerDetails[0]));
                     stmt.execute();
-                    if (connPlayers1 != connPlayers2) {
+                    if (playerReplica != null) {
+                        playerReplica.enqueue(sqlUpdate, ScraperUtilsInterface.super.buildYear(playerDetails[index]), Integer.parseInt(playerDetails[0]));
+                    } else if (connPlayers1 != connPlayers2) {
                         stmt = connPlayers2.prepareStatement(sqlUpdate);
                         stmt.setString(1, ScraperUtilsInterface.super.buildYear(playerDetails[index]));
                         stmt.setInt(2, Integer.parseInt(playerDetails[0]));
@@ -0,0 +1,296 @@
+package com.example.ShotScraperV2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Tunes how many shot workers take seasons at once by hill climbing on the shots persisted per second
+ * <p>
+ * Every scraper.tuner.interval-seconds the shots persisted since the last check are compared with the check before. If throughput rose,
+ * the worker count keeps moving the same way, and if it fell, the last move is undone. On a plateau the count is held, and when the p95
+ * fetch or write latency grew by more than scraper.tuner.latency-growth without throughput improving, workers are taken away. The count
+ * stays between scraper.tuner.min-workers and scraper.tuner.max-workers. Workers are only started once the count first reaches them, and
+ * workers above a lowered count wait until they are let in again
+ */
+public class ConcurrencyTuner implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrencyTuner.class);
+    private static volatile ConcurrencyTuner sharedInstance;
+    /**
+     * Latencies kept for each stage, the most recent overwriting the oldest
+     */
+    private static final int SAMPLE_SIZE = 512;
+
+    public enum Stage {FETCH, WRITE}
+
+    private final boolean enabled;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final long intervalMillis;
+    private final double tolerance;
+    private final double latencyGrowth;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final LongAdder persistedShots = new LongAdder();
+    private final long[][] samples = new long[Stage.values().length][SAMPLE_SIZE];
+    private final int[] sampleCounts = new int[Stage.values().length];
+    private volatile boolean running = false;
+    private boolean drained;
+    private int lowerBound, upperBound, limit, started;
+    /**
+     * Starts more workers for the run, or null if every worker was started by the caller
+     */
+    private IntConsumer workerStarter;
+    private int direction;
+    private double lastThroughput;
+    private long lastFetchP95, lastWriteP95;
+    private long lastPersisted, lastMeasuredNanos;
+    private Thread controller;
+
+    /**
+     * Gets the tuner shared by the shot workers and writers
+     *
+     * @return the shared tuner
+     */
+    public static ConcurrencyTuner getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (ConcurrencyTuner.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new ConcurrencyTuner(null, 0, 0, 0);
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * @param enabled        true to tune the worker count, or null to read scraper.tuner.enabled
+     * @param minWorkers     fewest active workers, or 0 to read scraper.tuner.min-workers
+     * @param maxWorkers     most workers, or 0 to read scraper.tuner.max-workers
+     * @param intervalMillis time between adjustments, or 0 to read scraper.tuner.interval-seconds
+     */
+    ConcurrencyTuner(Boolean enabled, int minWorkers, int maxWorkers, long intervalMillis) {
+        this.enabled = enabled != null ? enabled
+                : Boolean.parseBoolean(ScraperUtilsInterface.super.getOptionalProperty("scraper.tuner.enabled", "true"));
+        this.minWorkers = minWorkers > 0 ? minWorkers
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.tuner.min-workers", "1"));
+        this.maxWorkers = maxWorkers > 0 ? maxWorkers
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.tuner.max-workers",
+                Runtime.getRuntime().availableProcessors() * 4 + ""));
+        this.intervalMillis = intervalMillis > 0 ? intervalMillis
+                : TimeUnit.SECONDS.toMillis(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.tuner.interval-seconds", "15")));
+        this.tolerance = Double.parseDouble(ScraperUtilsInterface.super.getOptionalProperty("scraper.tuner.tolerance", "0.05"));
+        this.latencyGrowth = Double.parseDouble(ScraperUtilsInterface.super.getOptionalProperty("scraper.tuner.latency-growth", "1.5"));
+    }
+
+    /**
+     * Starts tuning a run whose workers are all started by the caller
+     *
+     * @param queuedItems    number of seasons queued, since more workers than seasons would never be used
+     * @param initialWorkers workers active at the start
+     * @return number of workers to start now
+     */
+    public int begin(int queuedItems, int initialWorkers) {
+        return begin(queuedItems, initialWorkers, null);
+    }
+
+    /**
+     * Starts tuning a run
+     *
+     * @param queuedItems    number of seasons queued, since more workers than seasons would never be used
+     * @param initialWorkers workers active at the start
+     * @param workerStarter  starts the given number of workers once the limit first grows past the workers started so far, or null
+     * @return number of workers to start now
+     */
+    public synchronized int begin(int queuedItems, int initialWorkers, IntConsumer workerStarter) {
+        nextSlot.set(0);
+        drained = false;
+        this.workerStarter = null;
+        if (!enabled) {
+            return initialWorkers;
+        }
+        upperBound = Math.max(1, Math.min(queuedItems, Math.max(maxWorkers, initialWorkers)));
+        lowerBound = Math.min(minWorkers, upperBound);
+        limit = Math.max(lowerBound, Math.min(initialWorkers, upperBound));
+        started = limit;
+        this.workerStarter = workerStarter;
+        direction = 1;
+        lastThroughput = -1;
+        lastFetchP95 = 0;
+        lastWriteP95 = 0;
+        lastPersisted = persistedShots.sum();
+        lastMeasuredNanos = System.nanoTime();
+        Arrays.fill(sampleCounts, 0);
+        running = true;
+        controller = new Thread(() -> {
+            try {
+                while (running) {
+                    Thread.sleep(intervalMillis);
+                    adjust(measureThroughput());
+                }
+            } catch (InterruptedException ex) {
+                //Run ended
+            }
+        }, "concurrency-tuner");
+        controller.setDaemon(true);
+        controller.start();
+        LOGGER.info("Tuning between " + lowerBound + " and " + upperBound + " workers, starting with " + limit);
+        return limit;
+    }
+
+    /**
+     * Stops tuning once the run's workers have ended and lets any waiting worker go
+     */
+    public synchronized void end() {
+        if (controller != null) {
+            controller.interrupt();
+            controller = null;
+        }
+        running = false;
+        workerStarter = null;
+        notifyAll();
+    }
+
+    /**
+     * @return the slot of a new worker, where only slots below the limit take seasons
+     */
+    public int register() {
+        return nextSlot.getAndIncrement();
+    }
+
+    /**
+     * @param slot the worker's slot
+     * @return true if the worker may take more seasons
+     */
+    public synchronized boolean isActive(int slot) {
+        return !running || slot < limit;
+    }
+
+    /**
+     * Waits until the worker is let in
+     *
+     * @param slot the worker's slot
+     * @return true if it may take seasons, false if the queue ran dry while it waited
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public synchronized boolean awaitTurn(int slot) throws InterruptedException {
+        while (running && !drained && slot >= limit) {
+            wait();
+        }
+        return !drained;
+    }
+
+    /**
+     * Tells waiting workers the queue is empty so they can end
+     */
+    public synchronized void drained() {
+        drained = true;
+        notifyAll();
+    }
+
+    /**
+     * @param shots number of shots saved
+     */
+    public void recordPersisted(int shots) {
+        persistedShots.add(shots);
+    }
+
+    /**
+     * @param stage stage measured
+     * @param nanos time the stage took for one season
+     */
+    public void recordLatency(Stage stage, long nanos) {
+        synchronized (samples) {
+            samples[stage.ordinal()][sampleCounts[stage.ordinal()]++ % SAMPLE_SIZE] = nanos;
+        }
+    }
+
+    /**
+     * @param stage stage measured
+     * @return 95th percentile of the stage's recent latencies in milliseconds, or 0 if none were recorded
+     */
+    public long getP95Millis(Stage stage) {
+        long[] sorted;
+        synchronized (samples) {
+            sorted = Arrays.copyOf(samples[stage.ordinal()], Math.min(sampleCounts[stage.ordinal()], SAMPLE_SIZE));
+        }
+        if (sorted.length == 0) {
+            return 0;
+        }
+        Arrays.sort(sorted);
+        return TimeUnit.NANOSECONDS.toMillis(sorted[(int) Math.ceil(sorted.length * 0.95) - 1]);
+    }
+
+    /**
+     * @return shots persisted per second since the last measurement
+     */
+    private synchronized double measureThroughput() {
+        long now = System.nanoTime();
+        long persisted = persistedShots.sum();
+        double throughput = (persisted - lastPersisted) / Math.max(1e-3, (now - lastMeasuredNanos) / 1e9);
+        lastPersisted = persisted;
+        lastMeasuredNanos = now;
+        return throughput;
+    }
+
+    /**
+     * Moves the worker limit one step based on the latest throughput
+     *
+     * @param throughput shots persisted per second over the last interval
+     */
+    synchronized void adjust(double throughput) {
+        if (!running) {
+            return;
+        }
+        long fetchP95 = getP95Millis(Stage.FETCH), writeP95 = getP95Millis(Stage.WRITE);
+        if (throughput <= 0 && lastThroughput <= 0) {
+            //Nothing persisted yet, so there is nothing to compare
+            return;
+        }
+        int step = direction;
+        if (lastThroughput >= 0) {
+            boolean improved = throughput > lastThroughput * (1 + tolerance);
+            boolean worse = throughput < lastThroughput * (1 - tolerance);
+            boolean latencyGrew = (lastFetchP95 > 0 && fetchP95 > lastFetchP95 * latencyGrowth)
+                    || (lastWriteP95 > 0 && writeP95 > lastWriteP95 * latencyGrowth);
+            if (worse) {
+                direction = -direction;
+                step = direction;
+            } else if (latencyGrew && !improved) {
+                //Same throughput at a higher latency means the extra workers only queue upstream or in MySQL
+                direction = -1;
+                step = direction;
+            } else if (!improved) {
+                //A plateau is not a reason to give back what the last moves gained
+                step = 0;
+            }
+        }
+        int previous = limit;
+        limit = Math.max(lowerBound, Math.min(upperBound, limit + step));
+        lastThroughput = throughput;
+        lastFetchP95 = fetchP95;
+        lastWriteP95 = writeP95;
+        if (limit != previous) {
+            LOGGER.info("Workers " + previous + " -> " + limit + " at " + String.format("%.1f", throughput) + " shots/s, p95 fetch "
+                    + fetchP95 + " ms, p95 write " + writeP95 + " ms");
+            if (limit > started && workerStarter != null) {
+                //Slots up to the old high point are taken by started workers, which are let in below
+                workerStarter.accept(limit - started);
+                started = limit;
+            }
+            notifyAll();
+        }
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.ShotScraperV2;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One bounded connection pool for each schema alias, shared by every scraper
+ * <p>
+ * Connections handed out by setNewConnection come from here, so closing one returns it to the pool instead of ending the session.
+ * Each pool holds at most scraper.pool.[alias].max-size connections (default scraper.pool.max-size), checks them before handing them out,
+ * and keeps idle ones alive with a periodic keepalive
+ */
+public class ConnectionPools {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPools.class);
+    /**
+     * Map of schema alias and its pool
+     */
+    private static final ConcurrentHashMap<String, HikariDataSource> POOLS = new ConcurrentHashMap<>();
+    /**
+     * Schema aliases the bulk loader sends LOAD DATA LOCAL INFILE through
+     */
+    private static final Set<String> LOCAL_INFILE_ALIASES = ConcurrentHashMap.newKeySet();
+
+    private ConnectionPools() {
+    }
+
+    /**
+     * Gets the pool for a schema alias, creating it on first use
+     *
+     * @param schemaAlias the schema alias, such as playerlocal
+     * @return the shared pool
+     */
+    public static DataSource getDataSource(String schemaAlias) {
+        return POOLS.computeIfAbsent(schemaAlias, ConnectionPools::createPool);
+    }
+
+    /**
+     * @param schemaAlias the schema alias
+     * @return most connections the alias's pool hands out at once
+     */
+    public static int getMaximumPoolSize(String schemaAlias) {
+        return POOLS.computeIfAbsent(schemaAlias, ConnectionPools::createPool).getMaximumPoolSize();
+    }
+
+    /**
+     * Lets the pool for a schema alias send LOAD DATA LOCAL INFILE, which every other pool refuses so a spoofed server cannot ask for
+     * local files. Must be called before the pool is first used
+     *
+     * @param schemaAlias the schema alias the bulk loader writes to
+     */
+    public static void allowLoadLocalInfile(String schemaAlias) {
+        if (LOCAL_INFILE_ALIASES.add(schemaAlias) && POOLS.containsKey(schemaAlias)) {
+            LOGGER.warn("Pool for " + schemaAlias + " was created before bulk loading was allowed, bulk loads will fall back to inserts");
+        }
+    }
+
+    /**
+     * Builds a pool from the spring.[alias] connection settings and the scraper.pool settings
+     *
+     * @param schemaAlias the schema alias
+     * @return the pool
+     */
+    private static HikariDataSource createPool(String schemaAlias) {
+        ResourceBundle reader = ResourceBundle.getBundle("application");
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("pool-" + schemaAlias);
+        config.setJdbcUrl(reader.getString("spring." + schemaAlias + ".jdbc-url"));
+        config.setUsername(reader.getString("spring." + schemaAlias + ".username"));
+        config.setPassword(reader.getString("spring." + schemaAlias + ".password"));
+        config.setMaximumPoolSize(Integer.parseInt(getSetting(reader, schemaAlias, "max-size", "16")));
+        config.setMinimumIdle(Integer.parseInt(getSetting(reader, schemaAlias, "min-idle", "2")));
+        config.setConnectionTimeout(TimeUnit.SECONDS.toMillis(Long.parseLong(getSetting(reader, schemaAlias, "connection-timeout-seconds", "30"))));
+        config.setValidationTimeout(TimeUnit.SECONDS.toMillis(Long.parseLong(getSetting(reader, schemaAlias, "validation-timeout-seconds", "5"))));
+        config.setKeepaliveTime(TimeUnit.MINUTES.toMillis(Long.parseLong(getSetting(reader, schemaAlias, "keepalive-minutes", "5"))));
+        config.setMaxLifetime(TimeUnit.MINUTES.toMillis(Long.parseLong(getSetting(reader, schemaAlias, "max-lifetime-minutes", "30"))));
+        config.setLeakDetectionThreshold(TimeUnit.SECONDS.toMillis(Long.parseLong(getSetting(reader, schemaAlias, "leak-detection-seconds", "0"))));
+        config.setRegisterMbeans(true);
+        //Lets batched inserts go out as multi-row INSERT statements
+        config.addDataSourceProperty("rewriteBatchedStatements", getSetting(reader, schemaAlias, "rewrite-batched-statements", "true"));
+        //Only the bulk loader's pools accept LOAD DATA LOCAL INFILE, and it only ever sends its own in-memory rows
+        config.addDataSourceProperty("allowLoadLocalInfile", getSetting(reader, schemaAlias, "allow-load-local-infile",
+                String.valueOf(LOCAL_INFILE_ALIASES.contains(schemaAlias))));
+        LOGGER.info("Creating connection pool for " + schemaAlias + " with up to " + config.getMaximumPoolSize() + " connections");
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Reads a pool setting for one alias, falling back to the setting for every pool and then the default
+     *
+     * @param reader       the application properties
+     * @param schemaAlias  the schema alias
+     * @param key          the setting name
+     * @param defaultValue the value used when neither is configured
+     * @return the setting
+     */
+    private static String getSetting(ResourceBundle reader, String schemaAlias, String key, String defaultValue) {
+        if (reader.containsKey("scraper.pool." + schemaAlias + "." + key)) {
+            return reader.getString("scraper.pool." + schemaAlias + "." + key);
+        }
+        return reader.containsKey("scraper.pool." + key) ? reader.getString("scraper.pool." + key) : defaultValue;
+    }
+
+    /**
+     * Describes the connections in use, idle, and waited for in each pool
+     *
+     * @return one line for each pool
+     */
+    public static String getStats() {
+        StringBuilder sb = new StringBuilder();
+        POOLS.forEach((alias, pool) -> {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            if (bean != null) {
+                sb.append(alias).append(": active=").append(bean.getActiveConnections())
+                        .append(" idle=").append(bean.getIdleConnections())
+                        .append(" total=").append(bean.getTotalConnections())
+                        .append(" waiting=").append(bean.getThreadsAwaitingConnection()).append("\n");
+            }
+        });
+        return sb.toString();
+    }
+
+    /**
+     * Logs the current stats of every pool
+     */
+    public static void logStats() {
+        String stats = getStats();
+        if (!stats.isEmpty()) {
+            LOGGER.info("Connection pools:\n" + stats);
+        }
+    }
+
+    /**
+     * Closes every pool and its connections
+     */
+    public static void closeAll() {
+        POOLS.values().forEach(HikariDataSource::close);
+        POOLS.clear();
+    }
+}
@@ -41,10 +41,11 @@ public class DatabaseUpdater implements ScraperUtilsInterface {
                            @Value("${playerschema2}") String schemaPlayers2,
                            @Value("${playerlocation2}") String locationPlayers2) {
         try {
-            connShots1 = ScraperUtilsInterface.super.setNewConnection(schemaShots1, locationShots1);
-            connPlayers1 = ScraperUtilsInterface.super.setNewConnection(schemaPlayers1, locationPlayers1);
-            connShots2 = ScraperUtilsInterface.super.setNewConnection(schemaShots2, locationShots2);
-            connPlayers2 = ScraperUtilsInterface.super.setNewConnection(schemaPlayers2, locationPlayers2);
+            //Schema settings are aliases into the shared connection pools, which already know each location
+            connShots1 = ScraperUtilsInterface.super.setNewConnection(schemaShots1);
+            connPlayers1 = ScraperUtilsInterface.super.setNewConnection(schemaPlayers1);
+            connShots2 = ScraperUtilsInterface.super.setNewConnection(schemaShots2);
+            connPlayers2 = ScraperUtilsInterface.super.setNewConnection(schemaPlayers2);
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage());
             System.exit(1);
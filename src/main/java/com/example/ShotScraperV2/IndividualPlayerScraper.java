@@ -1,14 +1,21 @@
 package com.example.ShotScraperV2;
 
+import com.example.ShotScraperV2.http.AdaptiveRateController;
+import com.example.ShotScraperV2.http.ScraperHttpClient;
 import com.example.ShotScraperV2.nbaobjects.Player;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.*;
 
 import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 /**
  * Scraper of all players
@@ -16,10 +23,15 @@ import org.json.JSONObject;
 public class IndividualPlayerScraper implements ScraperUtilsInterface {
     private final Logger LOGGER = LoggerFactory.getLogger(IndividualPlayerScraper.class);
     private String schema1Alias, schema2Alias;
+    /**
+     * Queue of writes for the second player database, or null if it is written directly
+     */
+    private final ReplicaWriter playerReplica;
 
     public IndividualPlayerScraper(String schema1Alias, String schema2Alias) {
         this.schema1Alias = schema1Alias;
         this.schema2Alias = schema2Alias;
+        this.playerReplica = ReplicaWriter.forSecondary(schema1Alias, schema2Alias);
         LOGGER.info("Initialized PlayerInfoFinder for " + schema1Alias + " and " + schema2Alias);
     }
 
@@ -28,7 +40,7 @@ public class IndividualPlayerScraper implements ScraperUtilsInterface {
      *
      * @param connPlayers1 connection to first player database
      * @param connPlayers2 connection to second player database
-     * @throws InterruptedException If delay between searches is interrupted
+     * @throws InterruptedException If waiting for the request governor is interrupted
      */
     public void getPlayerActiveYears(Connection connPlayers1, Connection connPlayers2) throws InterruptedException {
         //Retired players who have no active years
@@ -69,10 +81,6 @@ public class IndividualPlayerScraper implements ScraperUtilsInterface {
                     LOGGER.error(ex.getMessage());
                 }
             }
-            //Pause to prevent server denying request
-            if (RunHandler.peekQueue() != null) {
-                Thread.sleep((long) (Math.random() * 10000));
-            }
         }
     }
 
@@ -148,7 +156,10 @@ public class IndividualPlayerScraper implements ScraperUtilsInterface {
             stmt.setInt(3, seasonActivity.get(1));
             stmt.setInt(4, seasonActivity.get(2));
             stmt.execute();
-            if (connPlayers1 != connPlayers2) {
+            if (playerReplica != null) {
+                //Ignored if the year is already there, in case the write is applied again
+                playerReplica.enqueue("INSERT IGNORE INTO " + playerTableName + " VALUES (?,?,?,?)", year, seasonActivity.get(0), seasonActivity.get(1), seasonActivity.get(2));
+            } else if (connPlayers1 != connPlayers2) {
                 stmt = connPlayers2.prepareStatement(sqlInsert);
                 stmt.setString(1, year);
                 stmt.setInt(2, seasonActivity.get(0));
@@ -179,7 +190,11 @@ public class IndividualPlayerScraper implements ScraperUtilsInterface {
                 + "  UNIQUE KEY `Year_UNIQUE` (`year`)\n"
                 + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci";
         connPlayers1.prepareStatement(createTable).execute();
-        connPlayers2.prepareStatement(createTable).execute();
+        if (playerReplica != null) {
+            playerReplica.enqueue(createTable);
+        } else {
+            connPlayers2.prepareStatement(createTable).execute();
+        }
     }
 
     /**
@@ -195,7 +210,9 @@ public class IndividualPlayerScraper implements ScraperUtilsInterface {
         try {
             String sqlUpdate = "UPDATE " + playerTableName + " SET " + seasonType + "= 1 WHERE year = \"" + year + "\"";
             connPlayers1.prepareStatement(sqlUpdate).execute();
-            if (connPlayers1 != connPlayers2) {
+            if (playerReplica != null) {
+                playerReplica.enqueue(sqlUpdate);
+            } else if (connPlayers1 != connPlayers2) {
                 connPlayers2.prepareStatement(sqlUpdate).execute();
             }
             LOGGER.info("Updating " + playerTableName + " : " + year + " " + seasonType + " -> 1");
@@ -255,23 +272,43 @@ public class IndividualPlayerScraper implements ScraperUtilsInterface {
      * @param yearSeasonActivityMap map with (K,V) of (year a player is active, array of player activity status in each season type)
      */
     private void loopSearchIfError(String eachID, String firstName, String lastName, HashMap<String, ArrayList<Integer>> yearSeasonActivityMap) {
-        int exceptionRetryCounter = 0;
-        while (exceptionRetryCounter < 3) {
-            try {
-                String url = "https://stats.nba.com/stats/playerprofilev2?LeagueID=00&PerMode=PerGame&PlayerID=" + eachID;
-                String response = ScraperUtilsInterface.super.fetchSpecificURL(url);
-                LOGGER.debug("Response from " + url + ": \n" + response);
-                StringBuilder sb = new StringBuilder("\n" + firstName + " " + lastName + ": \n");
-                recordSeasons(new JSONObject(response), sb, yearSeasonActivityMap);
-                LOGGER.info(sb.toString());
-                exceptionRetryCounter = 5;
-            } catch (Exception ex) {
-                exceptionRetryCounter++;
-                LOGGER.error("Timeout caught in search for " + firstName + " " + lastName + ", Retrying (" + exceptionRetryCounter + ")");
-            }
-        }
-        if (exceptionRetryCounter == 3) {
+        AdaptiveRateController rateController = AdaptiveRateController.getSharedInstance();
+        try {
+            int attempt = 1;
+            String url = ScraperUtilsInterface.super.getStatsBaseUrl() + "/stats/playerprofilev2?LeagueID=00&PerMode=PerGame&PlayerID=" + eachID;
+            do {
+                try {
+                    JSONObject response;
+                    //Parse straight from the decompressed stream rather than building the whole response as a String
+                    try (InputStream body = ScraperUtilsInterface.super.fetchSpecificURLAsStream(url)) {
+                        try {
+                            response = new JSONObject(new JSONTokener(new InputStreamReader(body, StandardCharsets.UTF_8)));
+                        } catch (JSONException ex) {
+                            ScraperHttpClient.getSharedInstance().recordParsed(url, body, false);
+                            throw ex;
+                        }
+                        ScraperHttpClient.getSharedInstance().recordParsed(url, body, true);
+                    }
+                    LOGGER.debug("Response from " + url + ": \n" + response);
+                    StringBuilder sb = new StringBuilder("\n" + firstName + " " + lastName + ": \n");
+                    recordSeasons(response, sb, yearSeasonActivityMap);
+                    LOGGER.info(sb.toString());
+                    return;
+                } catch (InterruptedException ex) {
+                    throw ex;
+                } catch (JSONException ex) {
+                    //Garbled bodies are a sign the server is shedding load
+                    ScraperHttpClient.getSharedInstance().evictCached(url);
+                    rateController.recordFailure("unreadable response");
+                    LOGGER.error("Unreadable response in search for " + firstName + " " + lastName + ", Retrying (" + attempt + ")");
+                } catch (Exception ex) {
+                    LOGGER.error("Timeout caught in search for " + firstName + " " + lastName + ", Retrying (" + attempt + ")");
+                }
+            } while (rateController.pauseBeforeRetry(attempt++));
             LOGGER.error("Timeout caught in search for " + firstName + " " + lastName + ", Skipping");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.error("Interrupted in search for " + firstName + " " + lastName + ", Skipping");
         }
     }
 }
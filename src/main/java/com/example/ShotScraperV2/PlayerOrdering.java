@@ -0,0 +1,86 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.Player;
+import com.example.ShotScraperV2.nbaobjects.ScrapeTask;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+
+/**
+ * Orderings for the scrape queues, so the most visible data is saved first
+ * <p>
+ * scraper.queue.order is a comma separated list of keys, applied in turn to break ties:
+ * current (active in the current season first), recent (latest active year first), volume (longest career, and so most shots, first)
+ * and id (player ID, which keeps the order repeatable)
+ */
+public class PlayerOrdering implements ScraperUtilsInterface {
+
+    /**
+     * Builds the ordering named by scraper.queue.order
+     *
+     * @return comparator that sorts the players to scrape first to the front
+     */
+    public Comparator<Player> fromConfig() {
+        return parse(ScraperUtilsInterface.super.getOptionalProperty("scraper.queue.order", "current,recent,volume,id"), ScraperUtilsInterface.super.getCurrentYear());
+    }
+
+    /**
+     * Builds an ordering from a list of keys
+     *
+     * @param order       comma separated keys
+     * @param currentYear the current season as YYYY-YY
+     * @return comparator that sorts the players to scrape first to the front
+     * @throws NoSuchElementException If a key is unknown
+     */
+    static Comparator<Player> parse(String order, String currentYear) {
+        Comparator<Player> comparator = (a, b) -> 0;
+        for (String key : order.split(",")) {
+            switch (key.trim()) {
+                case "":
+                    break;
+                case "current":
+                    comparator = comparator.thenComparing(player -> !(player.getCurrentlyActive() == 1 && currentYear.equals(player.getMostRecentActiveYear())));
+                    break;
+                case "recent":
+                    comparator = comparator.thenComparing(Player::getMostRecentActiveYear, Comparator.nullsLast(Comparator.reverseOrder()));
+                    break;
+                case "volume":
+                    comparator = comparator.thenComparing(PlayerOrdering::getCareerLength, Comparator.reverseOrder());
+                    break;
+                case "id":
+                    comparator = comparator.thenComparingInt(Player::getPlayerId);
+                    break;
+                default:
+                    throw new NoSuchElementException("Invalid queue order key: " + key);
+            }
+        }
+        return comparator;
+    }
+
+    /**
+     * Orders single seasons by their player, then latest season first so the newest games of each player land first
+     *
+     * @param playerOrder the player ordering
+     * @return comparator for the task queue
+     */
+    public static Comparator<ScrapeTask> forTasks(Comparator<Player> playerOrder) {
+        return Comparator.comparing(ScrapeTask::getPlayer, playerOrder)
+                .thenComparing(ScrapeTask::getPlayer, Comparator.comparingInt(Player::getPlayerId))
+                .thenComparing(ScrapeTask::getYear, Comparator.reverseOrder())
+                .thenComparing(ScrapeTask::getSeasonType);
+    }
+
+    /**
+     * Finds the number of seasons between a player's first and most recent active years
+     *
+     * @param player the player
+     * @return the career length in seasons, or 0 if either year is missing
+     */
+    private static int getCareerLength(Player player) {
+        try {
+            return Integer.parseInt(player.getMostRecentActiveYear().substring(0, 4)) - Integer.parseInt(player.getFirstActiveYear().substring(0, 4)) + 1;
+        } catch (NullPointerException | IndexOutOfBoundsException | NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
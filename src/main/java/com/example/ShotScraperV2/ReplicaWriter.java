@@ -0,0 +1,721 @@
+package com.example.ShotScraperV2;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ordered, durable queue of writes for the second database of a pair, applied by its own thread
+ * <p>
+ * When the second schema alias differs from the first, scrapers write only to the first database and enqueue the same writes here, so a
+ * slow or unavailable second database never holds up scraping. Each write is appended to scraper.replica.dir/replica-[alias].log before
+ * enqueue returns, and the writer thread applies them in order, up to scraper.replica.batch-size rows in one transaction, retrying with
+ * backoff while the database is unavailable. Writes left in the file by an earlier process are applied first. At most scraper.replica.max-buffered-rows
+ * rows are kept in memory, and writes queued past that stay only in the file until the writer catches up to them. Every write enqueued is a
+ * CREATE TABLE IF NOT EXISTS, an INSERT IGNORE or an UPDATE to fixed values, so applying one again after a crash is harmless
+ */
+public class ReplicaWriter implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaWriter.class);
+    /**
+     * Map of second schema alias and its writer
+     */
+    private static final ConcurrentHashMap<String, ReplicaWriter> WRITERS = new ConcurrentHashMap<>();
+
+    /**
+     * One statement and the rows of parameters to run it with
+     */
+    static class Operation {
+        private final long sequence;
+        private final long enqueuedMillis;
+        private final String sql;
+        private final List<Object[]> rows;
+
+        private Operation(long sequence, long enqueuedMillis, String sql, List<Object[]> rows) {
+            this.sequence = sequence;
+            this.enqueuedMillis = enqueuedMillis;
+            this.sql = sql;
+            this.rows = rows;
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        List<Object[]> getRows() {
+            return rows;
+        }
+    }
+
+    private final String schemaAlias;
+    private final Path file;
+    private final Callable<Connection> connections;
+    /**
+     * Set from scraper.replica.async, scrapers only hand writes to this writer when it is on
+     */
+    private final boolean async;
+    private final int batchSize;
+    private final long retryInitialMillis;
+    private final long retryMaxMillis;
+    private final int maxAttempts;
+    private final int maxBufferedRows;
+    /**
+     * Oldest operations not yet applied, including the batch being applied. Newer ones past maxBufferedRows are only in the file
+     */
+    private final ArrayDeque<Operation> pending = new ArrayDeque<>();
+    private final RunStatistics statistics = RunStatistics.getSharedInstance();
+    private long nextSequence = 1;
+    /**
+     * Operations not yet applied, in memory and in the file
+     */
+    private long pendingCount;
+    private int bufferedRows;
+    /**
+     * Where the first operation left only in the file starts, or -1 if every pending operation is in memory
+     */
+    private long spillOffset = -1;
+    /**
+     * Length of the queue file in bytes, which is where the next line starts
+     */
+    private long fileLength;
+    private long applied;
+    private long dropped;
+    private Thread drainThread;
+    private FileOutputStream out;
+
+    /**
+     * Receives the lines of the queue file
+     */
+    @FunctionalInterface
+    private interface LineVisitor {
+        /**
+         * @param offset where the line starts in the file
+         * @param line   the line without its newline
+         * @return false to stop reading
+         */
+        boolean visit(long offset, String line);
+    }
+
+    /**
+     * Gets the writer for the second database of a pair, if its writes should be queued
+     *
+     * @param primaryAlias   first schema alias
+     * @param secondaryAlias second schema alias
+     * @return the shared writer for the second alias, or null if both aliases are the same or scraper.replica.async is off
+     */
+    public static ReplicaWriter forSecondary(String primaryAlias, String secondaryAlias) {
+        if (primaryAlias.equals(secondaryAlias)) {
+            return null;
+        }
+        ReplicaWriter replicaWriter = WRITERS.computeIfAbsent(secondaryAlias, alias -> new ReplicaWriter(alias, null, null));
+        return replicaWriter.async ? replicaWriter : null;
+    }
+
+    /**
+     * Loads the operations an earlier process left unapplied and starts applying them
+     *
+     * @param schemaAlias second schema alias
+     * @param file        the queue file, or null for replica-[alias].log in scraper.replica.dir
+     * @param connections opens connections to the second database, or null to borrow them from the shared pool
+     */
+    ReplicaWriter(String schemaAlias, Path file, Callable<Connection> connections) {
+        this(schemaAlias, file, connections, 0);
+    }
+
+    /**
+     * Loads the operations an earlier process left unapplied, up to the rows kept in memory, and starts applying them
+     *
+     * @param schemaAlias     second schema alias
+     * @param file            the queue file, or null for replica-[alias].log in scraper.replica.dir
+     * @param connections     opens connections to the second database, or null to borrow them from the shared pool
+     * @param maxBufferedRows most rows kept in memory, or 0 to read scraper.replica.max-buffered-rows
+     */
+    ReplicaWriter(String schemaAlias, Path file, Callable<Connection> connections, int maxBufferedRows) {
+        this.schemaAlias = schemaAlias;
+        this.file = file != null ? file
+                : Paths.get(ScraperUtilsInterface.super.getOptionalProperty("scraper.replica.dir", "scraper-cache"), "replica-" + schemaAlias + ".log");
+        this.connections = connections != null ? connections : this::borrowConnection;
+        this.async = Boolean.parseBoolean(ScraperUtilsInterface.super.getOptionalProperty("scraper.replica.async", "true"));
+        this.batchSize = Math.max(1, Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.replica.batch-size", "500")));
+        this.retryInitialMillis = Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.replica.retry-initial-millis", "1000"));
+        this.retryMaxMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.replica.retry-max-seconds", "60")));
+        this.maxAttempts = Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.replica.max-attempts", "10"));
+        this.maxBufferedRows = maxBufferedRows > 0 ? maxBufferedRows
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.replica.max-buffered-rows", "100000"));
+        if (Files.exists(this.file)) {
+            try {
+                replay();
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage());
+            }
+            if (pendingCount > 0) {
+                LOGGER.info("Resuming " + pendingCount + " queued writes for " + schemaAlias);
+                startDraining();
+            }
+        }
+    }
+
+    private Connection borrowConnection() throws SQLException {
+        return ScraperUtilsInterface.super.setNewConnection(schemaAlias);
+    }
+
+    /**
+     * Reads the queue file an earlier process left, once to find the last operation applied and once to load the rest
+     *
+     * @throws IOException If the file cannot be read
+     */
+    private void replay() throws IOException {
+        fileLength = Files.size(file);
+        long[] lastApplied = {0};
+        forEachLine(0, (offset, line) -> {
+            if (line.startsWith("APPLIED\t")) {
+                try {
+                    lastApplied[0] = Math.max(lastApplied[0], Long.parseLong(line.substring("APPLIED\t".length())));
+                } catch (NumberFormatException ex) {
+                    LOGGER.error("Skipping replica queue line: " + line);
+                }
+            }
+            return true;
+        });
+        forEachLine(0, (offset, line) -> {
+            Operation operation = parseOperation(line);
+            if (operation != null && operation.sequence > lastApplied[0]) {
+                nextSequence = Math.max(nextSequence, operation.sequence + 1);
+                pendingCount++;
+                buffer(operation, offset);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Parses an OP line of the queue file
+     *
+     * @param line a line of the queue file
+     * @return the operation, or null if the line is not a whole OP line
+     */
+    private Operation parseOperation(String line) {
+        if (!line.startsWith("OP\t")) {
+            return null;
+        }
+        try {
+            return fromJson(new JSONArray(line.substring("OP\t".length())));
+        } catch (JSONException ex) {
+            //Last line cut short by a crash
+            LOGGER.error("Skipping replica queue line: " + line);
+        } catch (IllegalArgumentException ex) {
+            LOGGER.error("Skipping replica queue line: " + line);
+        }
+        return null;
+    }
+
+    /**
+     * Keeps a pending operation in memory if there is room and nothing older is waiting in the file, or leaves it only in the file
+     *
+     * @param operation the operation
+     * @param offset    where its line starts in the file, or -1 if it could not be written
+     */
+    private void buffer(Operation operation, long offset) {
+        if (offset < 0 || (spillOffset < 0 && (pending.isEmpty() || bufferedRows + operation.rows.size() <= maxBufferedRows))) {
+            pending.add(operation);
+            bufferedRows += operation.rows.size();
+        } else if (spillOffset < 0) {
+            spillOffset = offset;
+        }
+    }
+
+    /**
+     * Loads operations left only in the file back into memory, oldest first, up to the rows kept in memory
+     */
+    private void refill() {
+        long from = spillOffset;
+        spillOffset = -1;
+        try {
+            forEachLine(from, (offset, line) -> {
+                Operation operation = parseOperation(line);
+                if (operation != null) {
+                    buffer(operation, offset);
+                }
+                return spillOffset < 0;
+            });
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+        }
+    }
+
+    /**
+     * Streams the lines of the queue file from a byte offset
+     *
+     * @param from    where to start reading
+     * @param visitor receives each line and where it starts
+     * @throws IOException If the file cannot be read
+     */
+    private void forEachLine(long from, LineVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file);
+             InputStream in = new BufferedInputStream(Channels.newInputStream(channel.position(from)), 64 * 1024)) {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            long offset = from, lineStart = from;
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                if (!visitor.visit(lineStart, line.toString(StandardCharsets.UTF_8))) {
+                    return;
+                }
+                line.reset();
+                lineStart = offset;
+            }
+            if (line.size() > 0) {
+                visitor.visit(lineStart, line.toString(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Queues a statement to run once on the second database
+     *
+     * @param sql    the statement
+     * @param params its parameters, each a String, a number, or null
+     */
+    public void enqueue(String sql, Object... params) {
+        enqueue(sql, params.length == 0 ? List.of() : List.<Object[]>of(params));
+    }
+
+    /**
+     * Queues a statement to run on the second database once for each row of parameters, syncing it to disk before returning
+     *
+     * @param sql  the statement
+     * @param rows rows of parameters, each a String, a number, or null
+     */
+    public synchronized void enqueue(String sql, List<Object[]> rows) {
+        Operation operation = new Operation(nextSequence++, System.currentTimeMillis(), sql, rows);
+        long offset = append("OP\t" + toJson(operation), true);
+        pendingCount++;
+        buffer(operation, offset);
+        startDraining();
+        notifyAll();
+    }
+
+    private void startDraining() {
+        if (drainThread == null) {
+            drainThread = new Thread(this::drain, "replica-" + schemaAlias);
+            drainThread.setDaemon(true);
+            drainThread.start();
+        }
+    }
+
+    /**
+     * Applies queued operations in order until the thread is interrupted
+     * <p>
+     * While the database is unreachable or fails in a way that passes on its own, such as a lost connection, a failover to a read-only
+     * server or a deadlock, the writes are retried for as long as it takes. Only writes that keep failing for their own data are dropped,
+     * after scraper.replica.max-attempts tries
+     */
+    private void drain() {
+        int attempts = 0, outages = 0;
+        try {
+            while (true) {
+                List<Operation> batch = takeBatch();
+                Connection conn;
+                try {
+                    conn = connections.call();
+                } catch (Exception ex) {
+                    //Unreachable, so nothing is counted against the writes themselves
+                    outages++;
+                    LOGGER.error("Cannot connect to " + schemaAlias + ", " + getPendingCount() + " writes queued: " + ex.getMessage());
+                    Thread.sleep(backoffMillis(outages));
+                    continue;
+                }
+                try (conn) {
+                    try {
+                        apply(conn, batch);
+                        markApplied(batch, false);
+                        attempts = 0;
+                        outages = 0;
+                    } catch (SQLException ex) {
+                        if (isUnavailable(conn, ex)) {
+                            outages++;
+                            LOGGER.error(schemaAlias + " is unavailable, " + getPendingCount() + " writes queued: " + ex.getMessage());
+                            Thread.sleep(backoffMillis(outages));
+                            continue;
+                        }
+                        attempts++;
+                        LOGGER.error("Writing to " + schemaAlias + " failed (attempt " + attempts + "): " + ex.getMessage());
+                        if (attempts >= maxAttempts) {
+                            //Apply the batch one write at a time so only the writes that keep failing are dropped
+                            for (Operation operation : batch) {
+                                try {
+                                    apply(conn, List.of(operation));
+                                    markApplied(List.of(operation), false);
+                                } catch (SQLException failed) {
+                                    if (isUnavailable(conn, failed)) {
+                                        //The rest of the batch is retried once the database is back
+                                        LOGGER.error(schemaAlias + " became unavailable: " + failed.getMessage());
+                                        break;
+                                    }
+                                    LOGGER.error("Dropping write to " + schemaAlias + ": " + operation.sql + " (" + failed.getMessage() + ")");
+                                    markApplied(List.of(operation), true);
+                                }
+                            }
+                            attempts = 0;
+                        } else {
+                            Thread.sleep(backoffMillis(attempts));
+                        }
+                    }
+                } catch (SQLException ex) {
+                    LOGGER.error(ex.getMessage());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param attempts failures in a row
+     * @return how long to wait before the next try, doubling from scraper.replica.retry-initial-millis up to scraper.replica.retry-max-seconds
+     */
+    private long backoffMillis(int attempts) {
+        return Math.min(retryMaxMillis, retryInitialMillis << Math.min(attempts - 1, 20));
+    }
+
+    /**
+     * Checks if a failure says the database is unavailable rather than that the writes are wrong
+     *
+     * @param conn connection the writes failed on
+     * @param ex   the failure
+     * @return true if the failure is transient or the connection no longer works
+     */
+    private static boolean isUnavailable(Connection conn, SQLException ex) {
+        if (isTransient(ex)) {
+            return true;
+        }
+        try {
+            return !conn.isValid(5);
+        } catch (SQLException invalid) {
+            return true;
+        }
+    }
+
+    /**
+     * Checks if a failure passes on its own: a lost or refused connection (SQLState 08xxx), a deadlock or serialization failure (40001),
+     * a lock wait timeout (1205), or a server that is read-only during a failover (1290, 1792)
+     *
+     * @param ex the failure
+     * @return true if the same writes may succeed later
+     */
+    static boolean isTransient(SQLException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException) cause).getSQLState();
+                int errorCode = ((SQLException) cause).getErrorCode();
+                if (sqlState != null && (sqlState.startsWith("08") || sqlState.equals("40001"))) {
+                    return true;
+                }
+                if (errorCode == 1205 || errorCode == 1213 || errorCode == 1290 || errorCode == 1792 || errorCode == 2006 || errorCode == 2013) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits for operations and takes the oldest ones, up to scraper.replica.batch-size rows, without removing them
+     *
+     * @return at least one operation
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private synchronized List<Operation> takeBatch() throws InterruptedException {
+        while (pending.isEmpty()) {
+            if (spillOffset >= 0) {
+                refill();
+            } else {
+                wait();
+            }
+        }
+        List<Operation> batch = new ArrayList<>();
+        int rows = 0;
+        for (Operation operation : pending) {
+            if (!batch.isEmpty() && rows + operation.rows.size() > batchSize) {
+                break;
+            }
+            batch.add(operation);
+            rows += Math.max(1, operation.rows.size());
+        }
+        return batch;
+    }
+
+    /**
+     * Runs operations in one transaction, sending consecutive rows of the same statement as one batch
+     *
+     * @param conn       connection to the second database
+     * @param operations operations in order
+     * @throws SQLException If any statement fails, after rolling back
+     */
+    private void apply(Connection conn, List<Operation> operations) throws SQLException {
+        conn.setAutoCommit(false);
+        PreparedStatement stmt = null;
+        String stmtSql = null;
+        try {
+            for (Operation operation : operations) {
+                if (stmt != null && (operation.rows.isEmpty() || !operation.sql.equals(stmtSql))) {
+                    stmt.executeBatch();
+                    stmt.close();
+                    stmt = null;
+                }
+                if (operation.rows.isEmpty()) {
+                    try (Statement plain = conn.createStatement()) {
+                        plain.execute(operation.sql);
+                    }
+                    continue;
+                }
+                if (stmt == null) {
+                    stmt = conn.prepareStatement(operation.sql);
+                    stmtSql = operation.sql;
+                }
+                for (Object[] row : operation.rows) {
+                    for (int i = 0; i < row.length; i++) {
+                        stmt.setObject(i + 1, row[i]);
+                    }
+                    stmt.addBatch();
+                }
+            }
+            if (stmt != null) {
+                stmt.executeBatch();
+            }
+            conn.commit();
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        } finally {
+            if (stmt != null) {
+                stmt.close();
+            }
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Removes operations from the front of the queue once they are applied or dropped, and empties the file when nothing is left
+     *
+     * @param operations operations at the front of the queue, in order
+     * @param failed     if the operations were dropped instead of applied
+     */
+    private synchronized void markApplied(List<Operation> operations, boolean failed) {
+        long now = System.currentTimeMillis();
+        for (Operation operation : operations) {
+            pending.poll();
+            pendingCount--;
+            bufferedRows -= operation.rows.size();
+            if (failed) {
+                dropped++;
+            } else {
+                applied++;
+                statistics.recordLatency(RunStatistics.Stage.REPLICATION, TimeUnit.MILLISECONDS.toNanos(Math.max(0, now - operation.enqueuedMillis)));
+            }
+        }
+        if (pendingCount == 0) {
+            try {
+                closeWriter();
+                Files.deleteIfExists(file);
+                fileLength = 0;
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage());
+            }
+            notifyAll();
+        } else {
+            //Losing this line in a crash only applies the operations again
+            append("APPLIED\t" + operations.get(operations.size() - 1).sequence, false);
+        }
+    }
+
+    /**
+     * Waits until every queued operation is applied
+     *
+     * @param timeoutMillis most time to wait
+     * @return true if nothing is left to apply
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public synchronized boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (pendingCount > 0) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Waits until every writer has applied its queued operations, leaving the rest in their files for the next process
+     *
+     * @param timeoutMillis most time to wait for all writers together
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public static void awaitAll(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (ReplicaWriter replicaWriter : WRITERS.values()) {
+            replicaWriter.awaitDrained(Math.max(0, deadline - System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * @return number of operations not yet applied
+     */
+    public synchronized long getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * @return how long the oldest operation not yet applied has been queued in milliseconds, or 0 if none are
+     */
+    public synchronized long getLagMillis() {
+        Operation oldest = pending.peek();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.enqueuedMillis);
+    }
+
+    /**
+     * @return one line for each writer with its queued, applied and dropped operations and its lag
+     */
+    public static String getStats() {
+        StringBuilder sb = new StringBuilder();
+        WRITERS.forEach((alias, replicaWriter) -> {
+            synchronized (replicaWriter) {
+                sb.append(alias).append(": pending=").append(replicaWriter.pendingCount)
+                        .append(" applied=").append(replicaWriter.applied)
+                        .append(" dropped=").append(replicaWriter.dropped)
+                        .append(" lag=").append(replicaWriter.getLagMillis()).append("ms\n");
+            }
+        });
+        return sb.toString();
+    }
+
+    /**
+     * Logs the current stats of every writer
+     */
+    public static void logStats() {
+        String stats = getStats();
+        if (!stats.isEmpty()) {
+            LOGGER.info("Replica writers:\n" + stats);
+        }
+    }
+
+    /**
+     * @return operations not yet applied that are in memory, oldest first
+     */
+    synchronized List<Operation> getPending() {
+        return new ArrayList<>(pending);
+    }
+
+    private static String toJson(Operation operation) {
+        JSONArray rows = new JSONArray();
+        for (Object[] row : operation.rows) {
+            JSONArray values = new JSONArray();
+            for (Object value : row) {
+                values.put(value == null ? JSONObject.NULL : value);
+            }
+            rows.put(values);
+        }
+        return new JSONArray().put(operation.sequence).put(operation.enqueuedMillis).put(operation.sql).put(rows).toString();
+    }
+
+    private static Operation fromJson(JSONArray json) {
+        JSONArray rowsJson = json.getJSONArray(3);
+        List<Object[]> rows = new ArrayList<>(rowsJson.length());
+        for (int i = 0; i < rowsJson.length(); i++) {
+            JSONArray values = rowsJson.getJSONArray(i);
+            Object[] row = new Object[values.length()];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = values.isNull(j) ? null : values.get(j);
+            }
+            rows.add(row);
+        }
+        return new Operation(json.getLong(0), json.getLong(1), json.getString(2), rows);
+    }
+
+    /**
+     * Appends a line to the queue file
+     *
+     * @param line line to write
+     * @param sync should wait for the line to reach the disk
+     * @return where the line starts in the file, or -1 if it could not be written
+     */
+    private long append(String line, boolean sync) {
+        try {
+            if (out == null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                boolean tornLastLine = endsWithoutNewline();
+                fileLength = Files.exists(file) ? Files.size(file) : 0;
+                out = new FileOutputStream(file.toFile(), true);
+                if (tornLastLine) {
+                    //Start on a fresh line after a line cut short by a crash
+                    out.write('\n');
+                    fileLength++;
+                }
+            }
+            byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+            out.write(bytes);
+            if (sync) {
+                out.getFD().sync();
+            }
+            long offset = fileLength;
+            fileLength += bytes.length;
+            return offset;
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+            return -1;
+        }
+    }
+
+    private boolean endsWithoutNewline() throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return false;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() != '\n';
+        }
+    }
+
+    private void closeWriter() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.ShotScraperV2;
 
 import com.example.ShotScraperV2.nbaobjects.Player;
+import com.example.ShotScraperV2.nbaobjects.ScrapeTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,10 +14,18 @@ import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.ResourceBundle;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Set;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -25,7 +34,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
  */
 @Component
 public class RunHandler implements ScraperUtilsInterface, ApplicationListener<ApplicationReadyEvent> {
-    private Logger LOGGER = LoggerFactory.getLogger(RunHandler.class);
+    private static final Logger LOGGER = LoggerFactory.getLogger(RunHandler.class);
 
     //Player scraper choices
     /**
@@ -94,21 +103,50 @@ public class RunHandler implements ScraperUtilsInterface, ApplicationListener<Ap
      */
     private String seasonType = "preseason";// reg, preseason, or playoffs
     /**
-     * How many threads should be running
+     * Starts the scraping workers, one per core or one per queued player
      */
-    private final int THREAD_COUNT = Runtime.getRuntime().availableProcessors();
+    private final WorkerThreads workerThreads = new WorkerThreads();
+    /**
+     * Progress of each season in the current shot run, kept on disk so a restart can resume
+     */
+    private final ScrapeJournal journal = ScrapeJournal.getSharedInstance();
     /**
      * The size of spaces when calculating shot percentages for spaces used by hex maps
      */
     private final int OFFSET = 15;
     /**
-     * Save number of new shots added to the database for logging results
+     * Shots, requests, and stage latencies recorded by every worker, readable while the run continues
+     */
+    private final RunStatistics statistics = RunStatistics.getSharedInstance();
+    /**
+     * Order in which queued players are handed out, set from scraper.queue.order
+     */
+    private static Comparator<Player> playerOrdering = Comparator.comparingInt(Player::getPlayerId);
+    /**
+     * A thread safe queue accessible by all threads for retrieving the next search, highest priority first
      */
-    private static int newShots = 0;
+    private static PriorityBlockingQueue<Player> threadSafePlayerQueue = new PriorityBlockingQueue<>(11, playerOrdering);
     /**
-     * A thread safe queue accessible by all threads for retrieving the next search
+     * A thread safe queue of single seasons to search, expanded from the player queue so no worker is left holding a long career
      */
-    private static ConcurrentLinkedQueue<Player> threadSafePlayerQueue = new ConcurrentLinkedQueue<>();
+    private static PriorityBlockingQueue<ScrapeTask> threadSafeTaskQueue = new PriorityBlockingQueue<>(11, PlayerOrdering.forTasks(playerOrdering));
+    /**
+     * Shared table the task queue is refilled from when scraper.queue.mode is distributed, otherwise null
+     */
+    private static volatile TaskLeaseTable taskLeases;
+    /**
+     * Held by the worker refilling the task queue from the shared table
+     */
+    private static final ReentrantLock CLAIM_LOCK = new ReentrantLock();
+    private static int claimBatch = 4;
+    /**
+     * Stops the queues handing out work once a stop is requested
+     */
+    private static final ShutdownCoordinator SHUTDOWN = ShutdownCoordinator.getSharedInstance();
+    /**
+     * Complete shot tables found while queuing tasks, read by every fetch worker
+     */
+    private Set<String> existingShotTables = Set.of();
 
     @Autowired
     private AllTeamAndPlayerScraper allTeamAndPlayerScraper;
@@ -134,26 +172,156 @@ public class RunHandler implements ScraperUtilsInterface, ApplicationListener<Ap
         this.allTeamAndPlayerScraper = allTeamAndPlayerScraper;
         this.dataDoubleChecker = dataDoubleChecker;
         READER = ResourceBundle.getBundle("application");
+        setPlayerOrdering(new PlayerOrdering().fromConfig());
     }
 
     /**
-     * Adds new shots to the new shot count for logging purposes
+     * Replaces the order in which players and their seasons are handed out, taking effect the next time the queues are populated
      *
-     * @param addedShots the number of new shots scraped
+     * @param ordering comparator that sorts the players to scrape first to the front
      */
-    public static void addToNewShotCount(int addedShots) {
-        newShots += addedShots;
+    public static void setPlayerOrdering(Comparator<Player> ordering) {
+        playerOrdering = ordering;
     }
 
     /**
      * Gets the player data from the front of the queue
      *
-     * @return hashMap of player info
+     * @return hashMap of player info, or null if the queue is empty or the run is stopping
      */
     public static Player pollQueue() {
+        if (SHUTDOWN.isStopRequested()) {
+            return null;
+        }
         return threadSafePlayerQueue.poll();
     }
 
+    /**
+     * Gets the next season to search
+     *
+     * @return the task at the front of the queue, or null if the queue is empty
+     */
+    public static ScrapeTask pollTaskQueue() {
+        return pollTaskQueue(true);
+    }
+
+    /**
+     * Gets the next season to search, claiming more from the shared table when running distributed
+     *
+     * @param waitForOtherInstances if the queue is empty, wait for seasons held by other instances to finish or be given up
+     * @return the task at the front of the queue, or null if there is none to start now or the run is stopping
+     */
+    public static ScrapeTask pollTaskQueue(boolean waitForOtherInstances) {
+        if (SHUTDOWN.isStopRequested()) {
+            return null;
+        }
+        ScrapeTask task = threadSafeTaskQueue.poll();
+        TaskLeaseTable leases = taskLeases;
+        if (task != null || leases == null) {
+            return task;
+        }
+        try {
+            //Workers with searches still running should not queue up behind a worker that is waiting
+            if (waitForOtherInstances) {
+                CLAIM_LOCK.lockInterruptibly();
+            } else if (!CLAIM_LOCK.tryLock()) {
+                return null;
+            }
+            try {
+                task = threadSafeTaskQueue.poll();
+                if (task == null) {
+                    threadSafeTaskQueue.addAll(waitForOtherInstances ? leases.claim(claimBatch) : leases.tryClaim(claimBatch));
+                    task = threadSafeTaskQueue.poll();
+                }
+            } finally {
+                CLAIM_LOCK.unlock();
+            }
+        } catch (SQLException ex) {
+            LOGGER.error(ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return task;
+    }
+
+    /**
+     * Reports a season as saved or given up, so another instance can retry it when running distributed
+     *
+     * @param task  the season
+     * @param saved true if its shots were saved
+     */
+    public static void finishTask(ScrapeTask task, boolean saved) {
+        TaskLeaseTable leases = taskLeases;
+        if (leases == null) {
+            return;
+        }
+        if (saved) {
+            leases.complete(task);
+        } else {
+            leases.release(task);
+        }
+    }
+
+    /**
+     * Puts back seasons that were handed out but not saved because the run is stopping, so they are given back to the shared table
+     * when running distributed. The journal still has them unfinished, so the next run resumes them
+     *
+     * @param tasks the seasons
+     */
+    public static void requeueTasks(Collection<ScrapeTask> tasks) {
+        threadSafeTaskQueue.addAll(tasks);
+    }
+
+    /**
+     * Expands every player in the player queue into a task for each season type of each active year
+     *
+     * @param shotScraper       scraper used to read player activity
+     * @param connPlayers       connection to player database
+     * @param connShots         connection to shot database
+     * @param schemaShotsAlias  alias of the shot schema
+     * @param onlyCurrentSeason should only search for current year and season type
+     * @param currentSeasonType current season type
+     * @return number of tasks queued
+     */
+    protected int populateThreadSafeQueueWithTasks(ShotScraper shotScraper, Connection connPlayers, Connection connShots, String schemaShotsAlias,
+                                                   boolean onlyCurrentSeason, String currentSeasonType) {
+        threadSafeTaskQueue = new PriorityBlockingQueue<>(11, PlayerOrdering.forTasks(playerOrdering));
+        HashSet<String> existingTables = shotScraper.findExistingTables(connShots, ScraperUtilsInterface.super.getSchemaName(schemaShotsAlias));
+        //Tables an earlier run created but never finished filling are searched again
+        existingTables.removeAll(journal.getUnfinishedTables());
+        existingShotTables = Collections.unmodifiableSet(existingTables);
+        ArrayList<ScrapeTask> queuedTasks = new ArrayList<>();
+        ArrayList<String> queuedTables = new ArrayList<>();
+        int skippedCount = 0;
+        Player polledPlayer;
+        while ((polledPlayer = pollQueue()) != null) {
+            for (ScrapeTask task : shotScraper.findScrapeTasks(polledPlayer, onlyCurrentSeason, currentSeasonType, existingTables, connPlayers)) {
+                ScrapeJournal.TaskState state = journal.getState(task.getShotTableName());
+                if (state == ScrapeJournal.TaskState.PERSISTED) {
+                    skippedCount++;
+                    continue;
+                }
+                task.setResumed(state != null);
+                queuedTasks.add(task);
+                queuedTables.add(task.getShotTableName());
+            }
+        }
+        if (taskLeases != null) {
+            //Every instance publishes what it found and they all claim from the shared table
+            queuedTasks.sort(PlayerOrdering.forTasks(playerOrdering));
+            try {
+                taskLeases.publish(queuedTasks);
+            } catch (SQLException ex) {
+                LOGGER.error(ex.getMessage());
+            }
+        } else {
+            threadSafeTaskQueue.addAll(queuedTasks);
+        }
+        journal.recordQueued(queuedTables);
+        LOGGER.info("Queued " + queuedTables.size() + " seasons to search, skipped " + skippedCount + " already persisted");
+        return queuedTables.size();
+    }
+
     /**
      * Creates a queue of all players and their data for threads to poll
      */
@@ -168,7 +336,7 @@ public class RunHandler implements ScraperUtilsInterface, ApplicationListener<Ap
                 }
                 rsTables.close();
             }
-            threadSafePlayerQueue = new ConcurrentLinkedQueue<>();
+            threadSafePlayerQueue = new PriorityBlockingQueue<>(11, playerOrdering);
             //Generate SQL
             StringBuilder sqlSelectBuilder = new StringBuilder("SELECT * FROM player_relevant_data");
             if (onlyActivePlayers && !currentYearOnly) {
@@ -207,22 +375,23 @@ public class RunHandler implements ScraperUtilsInterface, ApplicationListener<Ap
         Connection connPlayersSingleThreaded2 = schemaPlayers1Alias.equals(schemaPlayers2Alias) ? connPlayersSingleThreaded1 : ScraperUtilsInterface.super.setNewConnection(schemaPlayers2Alias);
         Connection connShotsSingleThreaded1 = ScraperUtilsInterface.super.setNewConnection(schemaShots1Alias);
         Connection connShotsSingleThreaded2 = schemaShots1Alias.equals(schemaShots2Alias) ? connShotsSingleThreaded1 : ScraperUtilsInterface.super.setNewConnection(schemaShots2Alias);
+        SHUTDOWN.runStarted();
         try {
-            if (getTeamAndPlayerData) {
+            if (shouldRun(getTeamAndPlayerData)) {
                 allTeamAndPlayerScraper.getTeamAndPlayerData(connPlayersSingleThreaded1, connPlayersSingleThreaded2);
             }
-            if (getAllPlayersForFirstTime) {
+            if (shouldRun(getAllPlayersForFirstTime)) {
                 populateThreadSafeQueueWithPlayers(connPlayersSingleThreaded1, false, false, true, schemaPlayers1Alias);
                 scrapePlayers(schemaPlayers1Alias, schemaPlayers2Alias);
             }
-            if (updatePlayersForCurrentYearOnly) {
+            if (shouldRun(updatePlayersForCurrentYearOnly)) {
                 populateThreadSafeQueueWithPlayers(connPlayersSingleThreaded1, true, true, false, schemaPlayers1Alias);
                 scrapePlayers(schemaPlayers1Alias, schemaPlayers2Alias);
             }
-            if (doubleCheckPlayerTables) {
+            if (shouldRun(doubleCheckPlayerTables)) {
                 dataDoubleChecker.comparePlayerTables(dropMismatchedTables, schemaPlayers1Alias, "playertrusted");
             }
-            if (makeShotLocationAverages) {
+            if (shouldRun(makeShotLocationAverages)) {
                 for (int year = 1996; year <= Integer.parseInt(ScraperUtilsInterface.super.getCurrentYear().substring(0, 4)); year++) {
                     databaseUpdater.createShotLocationAverages(year + "", OFFSET, databaseUpdater.getConnShots1());
 //                    databaseUpdater.createShotLocationAverages(year + "", OFFSET, databaseUpdater.getConnShots2());
@@ -230,7 +399,7 @@ public class RunHandler implements ScraperUtilsInterface, ApplicationListener<Ap
                 databaseUpdater.createShotLocationAverages("", OFFSET, databaseUpdater.getConnShots1());
 //                databaseUpdater.createShotLocationAverages("", OFFSET, databaseUpdater.getConnShots2());
             }
-            if (makeZoneAverages) {
+            if (shouldRun(makeZoneAverages)) {
                 for (int year = 1996; year <= Integer.parseInt(ScraperUtilsInterface.super.getCurrentYear().substring(0, 4)); year++) {
                     databaseUpdater.getZonedAverages(year + "", databaseUpdater.getConnShots1());
 //                    databaseUpdater.getZonedAverages(year + "", databaseUpdater.getConnShots2());
@@ -238,11 +407,11 @@ public class RunHandler implements ScraperUtilsInterface, ApplicationListener<Ap
                 databaseUpdater.getZonedAverages("", databaseUpdater.getConnShots1());
 //                databaseUpdater.getZonedAverages("", databaseUpdater.getConnShots2());
             }
-            if (organizePlayersByYear) {
+            if (shouldRun(organizePlayersByYear)) {
                 databaseUpdater.organizeByYear(databaseUpdater.getConnPlayers1());
 //                databaseUpdater.organizeByYear(databaseUpdater.getConnPlayers2());
             }
-            if (makeDistanceAverages) {
+            if (shouldRun(makeDistanceAverages)) {
                 for (int year = 1996; year <= Integer.parseInt(ScraperUtilsInterface.super.getCurrentYear().substring(0, 4)); year++) {
                     databaseUpdater.getDistancesAndAvg(year + "", databaseUpdater.getConnShots1());
 //                    databaseUpdater.getZonedAverages(year + "", databaseUpdater.getConnShots2());
@@ -250,24 +419,24 @@ public class RunHandler implements ScraperUtilsInterface, ApplicationListener<Ap
                 databaseUpdater.getDistancesAndAvg("", databaseUpdater.getConnShots1());
                 //                databaseUpdater.organizeByYear(databaseUpdater.getConnPlayers2());
             }
-            if (makePlayTypeTable) {
+            if (shouldRun(makePlayTypeTable)) {
                 databaseUpdater.createPlayTypeTable(databaseUpdater.getConnShots1());
                 //databaseUpdater.createPlayTypeTable( databaseUpdater.getConnShots2());
             }
-            if (getAllShotsForFirstTime) {
+            if (shouldRun(getAllShotsForFirstTime)) {
                 populateThreadSafeQueueWithPlayers(connPlayersSingleThreaded1, false, false, false, schemaPlayers1Alias);
                 scrapeShots(schemaPlayers1Alias, schemaPlayers2Alias, schemaShots1Alias, schemaShots2Alias, false, "");
-                LOGGER.info("Total New Shots Added: " + newShots);
+                LOGGER.info("Total New Shots Added: " + statistics.snapshot().getTotal(RunStatistics.Counter.SHOTS_INSERTED));
             }
-            if (updateShotsForCurrentYear) {
+            if (shouldRun(updateShotsForCurrentYear)) {
                 populateThreadSafeQueueWithPlayers(connPlayersSingleThreaded1, true, true, false, schemaPlayers1Alias);
                 scrapeShots(schemaPlayers1Alias, schemaPlayers2Alias, schemaShots1Alias, schemaShots2Alias, true, seasonType);
-                LOGGER.info("Total New Shots Added: " + newShots);
+                LOGGER.info("Total New Shots Added: " + statistics.snapshot().getTotal(RunStatistics.Counter.SHOTS_INSERTED));
             }
-            if (doubleCheckShotTables) {
+            if (shouldRun(doubleCheckShotTables)) {
                 dataDoubleChecker.compareShotTables(dropMismatchedTables, checkFullShots, schemaPlayers1Alias, schemaShots1Alias, "shottrusted");
             }
-            if (dropAllEmptyShotTables) {
+            if (shouldRun(dropAllEmptyShotTables)) {
                 Connection connShots = ScraperUtilsInterface.super.setNewConnection(schemaShots1Alias);
                 ResultSet rs = connShots.getMetaData().getTables(ScraperUtilsInterface.super.getSchemaName(schemaShots1Alias), null, "%", null);
                 //Get each table title
@@ -303,7 +472,33 @@ public class RunHandler implements ScraperUtilsInterface, ApplicationListener<Ap
         if (!connShotsSingleThreaded1.equals(connShotsSingleThreaded2)) {
             connShotsSingleThreaded2.close();
         }
+        if (SHUTDOWN.isStopRequested()) {
+            //Make sure the progress and stats of a stopped run reach the disk before the process exits
+            journal.flush();
+            LOGGER.info("Run stopped early");
+        }
+        //Give the second databases a chance to catch up, anything left stays queued on disk for the next process
+        long replicaDrainMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.replica.drain-seconds", "60")));
+        try {
+            ReplicaWriter.awaitAll(SHUTDOWN.isStopRequested() ? Math.min(replicaDrainMillis, SHUTDOWN.getMillisUntilDeadline()) : replicaDrainMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("Run statistics:\n" + statistics.snapshot());
+        ConnectionPools.logStats();
+        ReplicaWriter.logStats();
         LOGGER.info("END OF RUN");
+        SHUTDOWN.runFinished();
+    }
+
+    /**
+     * Checks whether a phase of the run should start
+     *
+     * @param enabled if the phase is turned on
+     * @return true if it is turned on and the run is not stopping
+     */
+    private boolean shouldRun(boolean enabled) {
+        return enabled && !SHUTDOWN.isStopRequested();
     }
 
     /**
@@ -313,6 +508,8 @@ public class RunHandler implements ScraperUtilsInterface, ApplicationListener<Ap
      */
     @Override
     public void onApplicationEvent(ApplicationReadyEvent applicationReadyEvent) {
+        //Stop cleanly on SIGTERM so a planned restart resumes where this run left off
+        SHUTDOWN.installShutdownHook();
         try {
 //            runScraper("playerlocal", "playerremote", "shotlocal", "shotremote");
             runScraper("playerlocal", "playerlocal", "shotlocal", "shotlocal");
@@ -330,71 +527,101 @@ public class RunHandler implements ScraperUtilsInterface, ApplicationListener<Ap
     }
 
     protected void scrapePlayers(String schemaPlayers1, String schemaPlayers2) throws InterruptedException {
-        final ArrayList<Thread> threads = new ArrayList<>();
-        for (int i = 0; i < THREAD_COUNT; i++) {
-            //Create scraper object and connections for each thread
-            Thread thread = new Thread(() -> {
-                IndividualPlayerScraper individualPlayerScraper = new IndividualPlayerScraper(schemaPlayers1, schemaPlayers2);
+        //Writes for a queued second database go only to the first one here
+        boolean singleDatabase = schemaPlayers1.equals(schemaPlayers2) || ReplicaWriter.forSecondary(schemaPlayers1, schemaPlayers2) != null;
+        //Create scraper object and connections for each worker, which hold them until the queue is empty
+        workerThreads.runAndJoin(threadSafePlayerQueue.size(), singleDatabase ? List.of(schemaPlayers1) : List.of(schemaPlayers1, schemaPlayers2), () -> {
+            IndividualPlayerScraper individualPlayerScraper = new IndividualPlayerScraper(schemaPlayers1, schemaPlayers2);
+            try {
+                Connection connPlayersEachThread1 = ScraperUtilsInterface.super.setNewConnection(schemaPlayers1);
+                Connection connPlayersEachThread2 = singleDatabase ? connPlayersEachThread1 : ScraperUtilsInterface.super.setNewConnection(schemaPlayers2);
                 try {
-                    Connection connPlayersEachThread1 = ScraperUtilsInterface.super.setNewConnection(schemaPlayers1);
-                    Connection connPlayersEachThread2 = schemaPlayers1.equals(schemaPlayers2) ? connPlayersEachThread1 : ScraperUtilsInterface.super.setNewConnection(schemaPlayers2);
-                    try {
-                        individualPlayerScraper.getPlayerActiveYears(connPlayersEachThread1, connPlayersEachThread2);
-                    } catch (InterruptedException ex) {
-                        LOGGER.error(ex.getMessage());
-                    }
-                    connPlayersEachThread1.close();
-                    if (!connPlayersEachThread1.equals(connPlayersEachThread2)) {
-                        connPlayersEachThread2.close();
-                    }
-                } catch (SQLException ex) {
-                    LOGGER.error(ex.getMessage());
+                    individualPlayerScraper.getPlayerActiveYears(connPlayersEachThread1, connPlayersEachThread2);
+                } catch (InterruptedException ex) {
+                    //Interrupted at the shutdown deadline
+                    Thread.currentThread().interrupt();
+                    LOGGER.info("Player worker stopped at the shutdown deadline");
                 }
-            });
-            threads.add(thread);
-            thread.start();
-            //Prevent all threads from starting at the same time and sending too many requests in a short time
-            Thread.sleep(15000);
-        }
-        for (Thread thread : threads) {
-            thread.join();
-        }
+                connPlayersEachThread1.close();
+                if (!connPlayersEachThread1.equals(connPlayersEachThread2)) {
+                    connPlayersEachThread2.close();
+                }
+            } catch (SQLException ex) {
+                LOGGER.error(ex.getMessage());
+            }
+        });
     }
 
     protected void scrapeShots(String schemaPlayers1, String schemaPlayers2, String schemaShots1, String schemaShots2, boolean onlyCurrentSeason, String currentSeasonType) throws InterruptedException {
-        final ArrayList<Thread> threads = new ArrayList<>();
-        for (int i = 0; i < THREAD_COUNT; i++) {
-            Thread thread = new Thread(() -> {
+        //Resume the same run if an earlier process stopped partway through it
+        String runName = onlyCurrentSeason ? "current_" + ScraperUtilsInterface.super.getCurrentYear() + "_" + currentSeasonType : "all";
+        journal.begin(runName);
+        if (ScraperUtilsInterface.super.getOptionalProperty("scraper.queue.mode", "local").equalsIgnoreCase("distributed")) {
+            //Instances started for the same run share its rows in the task table
+            String runId = ScraperUtilsInterface.super.getOptionalProperty("scraper.queue.run-id", LocalDate.now().toString());
+            claimBatch = Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.lease.claim-batch", "4"));
+            try {
+                taskLeases = new TaskLeaseTable(schemaPlayers1, runName + "_" + runId);
+                LOGGER.info("Claiming seasons of run " + taskLeases.getRun() + " as " + taskLeases.getOwner());
+            } catch (SQLException ex) {
+                LOGGER.error(ex.getMessage());
+                return;
+            }
+        }
+        //Split every queued player into single seasons so the work stays balanced until the end of the run
+        int taskCount;
+        try {
+            //Created first so the shot pools it bulk loads through are set up to allow it
+            ShotScraper shotScraper = new ShotScraper(schemaShots1, schemaShots2, schemaPlayers1, schemaPlayers2,
+                    new IndividualPlayerScraper(schemaPlayers1, schemaPlayers2));
+            Connection connPlayers = ScraperUtilsInterface.super.setNewConnection(schemaPlayers1);
+            Connection connShots = ScraperUtilsInterface.super.setNewConnection(schemaShots1);
+            taskCount = populateThreadSafeQueueWithTasks(shotScraper, connPlayers, connShots, schemaShots1, onlyCurrentSeason, currentSeasonType);
+            connPlayers.close();
+            connShots.close();
+        } catch (SQLException ex) {
+            LOGGER.error(ex.getMessage());
+            return;
+        }
+        //Workers only fetch and parse, and a separate pool of writers saves what they find
+        ShotWritePipeline writePipeline = new ShotWritePipeline(schemaShots1, schemaShots2, schemaPlayers1, schemaPlayers2);
+        writePipeline.start();
+        //The tuner decides how many workers take seasons at any time, and starts more as it lets more in
+        ConcurrencyTuner tuner = ConcurrencyTuner.getSharedInstance();
+        int workerCount = tuner.begin(taskCount, workerThreads.getWorkerCount(taskCount), workerThreads::startMore);
+        statistics.startReporting();
+        try {
+            workerThreads.startAndJoin(workerCount, taskCount, () -> {
+                //Fetch workers hold no connections, only the writers borrow them from the pools
                 ShotScraper shotScraper = new ShotScraper(schemaShots1, schemaShots2, schemaPlayers1, schemaPlayers2,
                         new IndividualPlayerScraper(schemaPlayers1, schemaPlayers2));
                 try {
-                    Connection connPlayersEachThread1 = ScraperUtilsInterface.super.setNewConnection(schemaPlayers1);
-                    Connection connPlayersEachThread2 = schemaPlayers1.equals(schemaPlayers2) ? connPlayersEachThread1 : ScraperUtilsInterface.super.setNewConnection(schemaPlayers2);
-                    Connection connShotsEachThread1 = ScraperUtilsInterface.super.setNewConnection(schemaShots1);
-                    Connection connShotsEachThread2 = schemaShots1.equals(schemaShots2) ? connShotsEachThread1 : ScraperUtilsInterface.super.setNewConnection(schemaShots2);
-                    try {
-                        shotScraper.getEveryShotWithMainThread(connPlayersEachThread1, connPlayersEachThread2, connShotsEachThread1, connShotsEachThread2, onlyCurrentSeason, currentSeasonType);
-                    } catch (Exception ex) {
-                        LOGGER.error(ex.getMessage());
-                    }
-                    connPlayersEachThread1.close();
-                    if (!connPlayersEachThread1.equals(connPlayersEachThread2)) {
-                        connPlayersEachThread2.close();
-                    }
-                    connShotsEachThread1.close();
-                    if (!connShotsEachThread1.equals(connShotsEachThread2)) {
-                        connShotsEachThread2.close();
-                    }
-                } catch (SQLException ex) {
+                    shotScraper.getEveryShotWithMainThread(existingShotTables, onlyCurrentSeason, writePipeline);
+                } catch (InterruptedException ex) {
+                    //Interrupted at the shutdown deadline, its unsaved seasons are already back in the queue
+                    Thread.currentThread().interrupt();
+                    LOGGER.info("Shot worker stopped at the shutdown deadline");
+                } catch (Exception ex) {
                     LOGGER.error(ex.getMessage());
                 }
             });
-            threads.add(thread);
-            thread.start();
-            Thread.sleep(5000);
+        } finally {
+            tuner.end();
+            statistics.stopReporting();
+            requeueTasks(writePipeline.finish());
+            if (taskLeases != null) {
+                //Give back anything claimed but never started
+                ArrayList<ScrapeTask> unstarted = new ArrayList<>();
+                threadSafeTaskQueue.drainTo(unstarted);
+                taskLeases.close(unstarted);
+                taskLeases = null;
+            }
         }
-        for (Thread thread : threads) {
-            thread.join();
+        List<String> unfinishedTables = journal.getUnfinishedTables();
+        if (unfinishedTables.isEmpty()) {
+            journal.end();
+        } else {
+            LOGGER.info(unfinishedTables.size() + " seasons of run " + runName + " were not persisted and will be resumed next run");
         }
     }
 }
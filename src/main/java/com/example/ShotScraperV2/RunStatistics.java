@@ -0,0 +1,290 @@
+package com.example.ShotScraperV2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the scraper, cheap enough to record from every worker and readable while a run continues
+ * <p>
+ * Counters are striped LongAdders kept for each season type, and stage latencies go into a histogram owned by the recording thread,
+ * so recording never contends with other threads. snapshot() sums everything at the time it is called, and a running scrape logs
+ * a snapshot every scraper.stats.log-interval-seconds
+ */
+public class RunStatistics implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RunStatistics.class);
+    private static volatile RunStatistics sharedInstance;
+    /**
+     * Season type used for counters that are not tied to a season, such as requests
+     */
+    public static final String ANY_SEASON_TYPE = "Any";
+    /**
+     * Histogram buckets, four for each power of two microseconds, which covers about an hour
+     */
+    static final int BUCKETS = 128;
+    /**
+     * Each stage of a histogram holds its buckets, then the number of samples, then their sum in nanoseconds
+     */
+    private static final int STAGE_WIDTH = BUCKETS + 2;
+
+    public enum Counter {SHOTS_FETCHED, SHOTS_INSERTED, SHOTS_DEDUPLICATED, SEASONS_PERSISTED, REQUESTS, CACHE_HITS, RETRIES, BYTES}
+
+    public enum Stage {FETCH, QUEUE, WRITE, REPLICATION}
+
+    /**
+     * Map of season type and its counters, indexed by Counter
+     */
+    private final ConcurrentHashMap<String, LongAdder[]> counters = new ConcurrentHashMap<>();
+    /**
+     * Histogram of every thread that has recorded a latency
+     */
+    private final ConcurrentLinkedQueue<AtomicLongArray> histograms = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<AtomicLongArray> threadHistogram = ThreadLocal.withInitial(() -> {
+        AtomicLongArray histogram = new AtomicLongArray(Stage.values().length * STAGE_WIDTH);
+        histograms.add(histogram);
+        return histogram;
+    });
+    private ScheduledExecutorService reporter;
+
+    /**
+     * Gets the statistics shared by the whole scraper
+     *
+     * @return the shared statistics
+     */
+    public static RunStatistics getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (RunStatistics.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new RunStatistics();
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    RunStatistics() {
+    }
+
+    /**
+     * Adds to a counter of a season type
+     *
+     * @param counter    counter to add to
+     * @param seasonType season type, such as Regular Season, or ANY_SEASON_TYPE
+     * @param amount     amount to add
+     */
+    public void add(Counter counter, String seasonType, long amount) {
+        LongAdder[] adders = counters.get(seasonType);
+        if (adders == null) {
+            adders = counters.computeIfAbsent(seasonType, key -> {
+                LongAdder[] created = new LongAdder[Counter.values().length];
+                for (int i = 0; i < created.length; i++) {
+                    created[i] = new LongAdder();
+                }
+                return created;
+            });
+        }
+        adders[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * Adds to a counter that is not tied to a season type
+     *
+     * @param counter counter to add to
+     * @param amount  amount to add
+     */
+    public void add(Counter counter, long amount) {
+        add(counter, ANY_SEASON_TYPE, amount);
+    }
+
+    /**
+     * Records how long one season spent in a stage, in this thread's histogram
+     *
+     * @param stage stage measured
+     * @param nanos time spent
+     */
+    public void recordLatency(Stage stage, long nanos) {
+        AtomicLongArray histogram = threadHistogram.get();
+        int offset = stage.ordinal() * STAGE_WIDTH;
+        histogram.incrementAndGet(offset + bucketOf(TimeUnit.NANOSECONDS.toMicros(nanos)));
+        histogram.incrementAndGet(offset + BUCKETS);
+        histogram.addAndGet(offset + BUCKETS + 1, nanos);
+    }
+
+    /**
+     * Finds the histogram bucket of a latency
+     *
+     * @param micros latency in microseconds
+     * @return the bucket, where each power of two is split into four
+     */
+    static int bucketOf(long micros) {
+        if (micros < 4) {
+            return (int) Math.max(0, micros);
+        }
+        int octave = 63 - Long.numberOfLeadingZeros(micros);
+        return Math.min(BUCKETS - 1, (octave - 1) * 4 + (int) ((micros >>> (octave - 2)) & 3));
+    }
+
+    /**
+     * @param bucket histogram bucket
+     * @return the smallest latency in microseconds that falls into the bucket
+     */
+    static long lowerBoundOf(int bucket) {
+        return bucket < 4 ? bucket : (4L + bucket % 4) << (bucket / 4 - 1);
+    }
+
+    /**
+     * Sums every counter and histogram as they are now
+     *
+     * @return the totals
+     */
+    public Snapshot snapshot() {
+        TreeMap<String, long[]> counts = new TreeMap<>();
+        counters.forEach((seasonType, adders) -> {
+            long[] values = new long[adders.length];
+            for (int i = 0; i < adders.length; i++) {
+                values[i] = adders[i].sum();
+            }
+            counts.put(seasonType, values);
+        });
+        long[] merged = new long[Stage.values().length * STAGE_WIDTH];
+        for (AtomicLongArray histogram : histograms) {
+            for (int i = 0; i < merged.length; i++) {
+                merged[i] += histogram.get(i);
+            }
+        }
+        return new Snapshot(counts, merged);
+    }
+
+    /**
+     * Starts logging a snapshot every scraper.stats.log-interval-seconds, until stopReporting is called
+     */
+    public synchronized void startReporting() {
+        long interval = Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.stats.log-interval-seconds", "60"));
+        if (reporter != null || interval <= 0) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "run-statistics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> LOGGER.info("Run statistics:\n" + snapshot()), interval, interval, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    /**
+     * Totals of every counter and stage at one point in time
+     */
+    public static class Snapshot {
+        private final TreeMap<String, long[]> counts;
+        private final long[] histograms;
+
+        private Snapshot(TreeMap<String, long[]> counts, long[] histograms) {
+            this.counts = counts;
+            this.histograms = histograms;
+        }
+
+        /**
+         * @param counter    counter to read
+         * @param seasonType season type, or ANY_SEASON_TYPE
+         * @return the counter's value for the season type
+         */
+        public long get(Counter counter, String seasonType) {
+            long[] values = counts.get(seasonType);
+            return values == null ? 0 : values[counter.ordinal()];
+        }
+
+        /**
+         * @param counter counter to read
+         * @return the counter's value over every season type
+         */
+        public long getTotal(Counter counter) {
+            long total = 0;
+            for (long[] values : counts.values()) {
+                total += values[counter.ordinal()];
+            }
+            return total;
+        }
+
+        /**
+         * @param stage stage to read
+         * @return number of latencies recorded for the stage
+         */
+        public long getCount(Stage stage) {
+            return histograms[stage.ordinal() * STAGE_WIDTH + BUCKETS];
+        }
+
+        /**
+         * @param stage stage to read
+         * @return mean latency of the stage in milliseconds, or 0 if none were recorded
+         */
+        public double getMeanMillis(Stage stage) {
+            long count = getCount(stage);
+            return count == 0 ? 0 : histograms[stage.ordinal() * STAGE_WIDTH + BUCKETS + 1] / (count * 1e6);
+        }
+
+        /**
+         * @param stage      stage to read
+         * @param percentile percentile between 0 and 100
+         * @return upper bound of the bucket holding the percentile in milliseconds, or 0 if none were recorded
+         */
+        public double getPercentileMillis(Stage stage, double percentile) {
+            long count = getCount(stage);
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            int offset = stage.ordinal() * STAGE_WIDTH;
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += histograms[offset + bucket];
+                if (seen >= rank) {
+                    return lowerBoundOf(bucket + 1) / 1000.0;
+                }
+            }
+            return lowerBoundOf(BUCKETS) / 1000.0;
+        }
+
+        /**
+         * @return one line for each season type's shot counters, one for the HTTP counters, and one for each stage
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+                if (entry.getKey().equals(ANY_SEASON_TYPE)) {
+                    continue;
+                }
+                sb.append(entry.getKey()).append(": seasons=").append(get(Counter.SEASONS_PERSISTED, entry.getKey()))
+                        .append(" fetched=").append(get(Counter.SHOTS_FETCHED, entry.getKey()))
+                        .append(" inserted=").append(get(Counter.SHOTS_INSERTED, entry.getKey()))
+                        .append(" deduplicated=").append(get(Counter.SHOTS_DEDUPLICATED, entry.getKey())).append("\n");
+            }
+            sb.append("HTTP: requests=").append(getTotal(Counter.REQUESTS))
+                    .append(" cacheHits=").append(getTotal(Counter.CACHE_HITS))
+                    .append(" retries=").append(getTotal(Counter.RETRIES))
+                    .append(" bytes=").append(getTotal(Counter.BYTES)).append("\n");
+            for (Stage stage : Stage.values()) {
+                sb.append(stage).append(": count=").append(getCount(stage))
+                        .append(String.format(" mean=%.1fms p50=%.1fms p95=%.1fms p99=%.1fms", getMeanMillis(stage),
+                                getPercentileMillis(stage, 50), getPercentileMillis(stage, 95), getPercentileMillis(stage, 99))).append("\n");
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.example.ShotScraperV2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of the state of each season searched in a shot run
+ * <p>
+ * Every season is journaled as QUEUED, then FETCHED with the number of shots found, then PERSISTED once saved. A run stays open until
+ * all of its seasons are persisted, so a restart after a crash resumes the open run: persisted seasons are skipped and seasons that were
+ * started but not persisted are searched again and only their missing shots are added. The file is scraper.journal.file and is compacted
+ * whenever a run ends
+ */
+public class ScrapeJournal implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScrapeJournal.class);
+    private static volatile ScrapeJournal sharedInstance;
+
+    public enum TaskState {QUEUED, FETCHED, PERSISTED}
+
+    /**
+     * Latest state of one season and the number of shots it had then
+     */
+    private static class TaskProgress {
+        private final TaskState state;
+        private final int rows;
+
+        private TaskProgress(TaskState state, int rows) {
+            this.state = state;
+            this.rows = rows;
+        }
+    }
+
+    private final Path file;
+    /**
+     * Map of open run name and, for each of its shot tables, the latest state and row count
+     */
+    private final LinkedHashMap<String, LinkedHashMap<String, TaskProgress>> openRuns = new LinkedHashMap<>();
+    private String currentRun;
+    private BufferedWriter writer;
+    private FileOutputStream out;
+
+    /**
+     * Gets the journal shared by all scrapers, loading it on first use
+     *
+     * @return the shared journal
+     */
+    public static ScrapeJournal getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (ScrapeJournal.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new ScrapeJournal(null);
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Loads the journal from a file
+     *
+     * @param file the file, or null to read scraper.journal.file
+     */
+    ScrapeJournal(Path file) {
+        this.file = file != null ? file
+                : Paths.get(ScraperUtilsInterface.super.getOptionalProperty("scraper.journal.file", "scraper-cache/scrape-journal.log"));
+        if (Files.exists(this.file)) {
+            try {
+                for (String line : Files.readAllLines(this.file, StandardCharsets.UTF_8)) {
+                    replay(line);
+                }
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Applies one journal line to the in-memory state
+     *
+     * @param line tab separated action, run name, and for task lines the shot table and row count
+     */
+    private void replay(String line) {
+        String[] fields = line.split("\t");
+        if (fields.length < 2) {
+            //Last line cut short by a crash
+            return;
+        }
+        switch (fields[0]) {
+            case "BEGIN":
+                openRuns.put(fields[1], new LinkedHashMap<>());
+                break;
+            case "END":
+                openRuns.remove(fields[1]);
+                break;
+            default:
+                LinkedHashMap<String, TaskProgress> tasks = openRuns.get(fields[1]);
+                if (tasks != null && fields.length == 4) {
+                    try {
+                        tasks.put(fields[2], new TaskProgress(TaskState.valueOf(fields[0]), Integer.parseInt(fields[3])));
+                    } catch (IllegalArgumentException ex) {
+                        LOGGER.error("Skipping journal line: " + line);
+                    }
+                }
+        }
+    }
+
+    /**
+     * Starts a run, or resumes it if an earlier process left it open
+     *
+     * @param runName name of the run, such as all or current_2020-21_reg
+     * @return true if an open run was resumed
+     */
+    public synchronized boolean begin(String runName) {
+        currentRun = runName;
+        if (openRuns.containsKey(runName)) {
+            LinkedHashMap<String, TaskProgress> tasks = openRuns.get(runName);
+            long persisted = tasks.values().stream().filter(entry -> entry.state == TaskState.PERSISTED).count();
+            LOGGER.info("Resuming run " + runName + ": " + persisted + " of " + tasks.size() + " journaled seasons already persisted");
+            return true;
+        }
+        openRuns.put(runName, new LinkedHashMap<>());
+        append(List.of("BEGIN\t" + runName), false);
+        return false;
+    }
+
+    /**
+     * Gets the state of a shot table in the current run
+     *
+     * @param shotTableName shot table name
+     * @return the latest state, or null if the table has not been journaled in this run
+     */
+    public synchronized TaskState getState(String shotTableName) {
+        TaskProgress entry = getCurrentTasks().get(shotTableName);
+        return entry == null ? null : entry.state;
+    }
+
+    /**
+     * Gets the row count last journaled for a shot table in the current run
+     *
+     * @param shotTableName shot table name
+     * @return the row count, or -1 if the table has not been journaled in this run
+     */
+    public synchronized int getRows(String shotTableName) {
+        TaskProgress entry = getCurrentTasks().get(shotTableName);
+        return entry == null ? -1 : entry.rows;
+    }
+
+    /**
+     * @return shot tables in the current run that were started but not persisted
+     */
+    public synchronized List<String> getUnfinishedTables() {
+        List<String> unfinished = new ArrayList<>();
+        getCurrentTasks().forEach((table, entry) -> {
+            if (entry.state != TaskState.PERSISTED) {
+                unfinished.add(table);
+            }
+        });
+        return unfinished;
+    }
+
+    /**
+     * Records seasons placed on the task queue
+     *
+     * @param shotTableNames shot table names
+     */
+    public synchronized void recordQueued(Collection<String> shotTableNames) {
+        if (currentRun == null) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        for (String shotTableName : shotTableNames) {
+            //Keep the progress of a season carried over from an earlier process
+            if (!getCurrentTasks().containsKey(shotTableName)) {
+                getCurrentTasks().put(shotTableName, new TaskProgress(TaskState.QUEUED, 0));
+                lines.add("QUEUED\t" + currentRun + "\t" + shotTableName + "\t0");
+            }
+        }
+        append(lines, false);
+    }
+
+    /**
+     * Records a season whose response has been received and parsed
+     *
+     * @param shotTableName shot table name
+     * @param rows          number of shots in the response
+     */
+    public void recordFetched(String shotTableName, int rows) {
+        record(TaskState.FETCHED, shotTableName, rows, false);
+    }
+
+    /**
+     * Records a season whose shots are all saved, syncing the journal to disk
+     *
+     * @param shotTableName shot table name
+     * @param rows          number of shots saved
+     */
+    public void recordPersisted(String shotTableName, int rows) {
+        record(TaskState.PERSISTED, shotTableName, rows, true);
+    }
+
+    private synchronized void record(TaskState state, String shotTableName, int rows, boolean sync) {
+        if (currentRun == null) {
+            return;
+        }
+        getCurrentTasks().put(shotTableName, new TaskProgress(state, rows));
+        append(List.of(state + "\t" + currentRun + "\t" + shotTableName + "\t" + rows), sync);
+    }
+
+    /**
+     * Closes the current run and compacts the journal down to the runs still open
+     */
+    public synchronized void end() {
+        if (currentRun == null) {
+            return;
+        }
+        openRuns.remove(currentRun);
+        //Keeps the run closed even if compacting fails
+        append(List.of("END\t" + currentRun), true);
+        LOGGER.info("Run " + currentRun + " complete");
+        currentRun = null;
+        try {
+            closeWriter();
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            //Write a new file and swap it in so a crash never leaves a partial journal
+            Path tempFile = Files.createTempFile(directory, "journal", ".tmp");
+            List<String> lines = new ArrayList<>();
+            for (Map.Entry<String, LinkedHashMap<String, TaskProgress>> run : openRuns.entrySet()) {
+                lines.add("BEGIN\t" + run.getKey());
+                run.getValue().forEach((table, entry) -> lines.add(entry.state + "\t" + run.getKey() + "\t" + table + "\t" + entry.rows));
+            }
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+        }
+    }
+
+    /**
+     * Syncs every line journaled so far to disk, so progress survives the process exiting
+     */
+    public synchronized void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            writer.flush();
+            out.getFD().sync();
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+        }
+    }
+
+    public synchronized String getCurrentRun() {
+        return currentRun;
+    }
+
+    private Map<String, TaskProgress> getCurrentTasks() {
+        return currentRun == null ? new HashMap<>() : openRuns.get(currentRun);
+    }
+
+    /**
+     * Appends lines to the journal file
+     *
+     * @param lines lines to write
+     * @param sync  should wait for the lines to reach the disk
+     */
+    private void append(List<String> lines, boolean sync) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        try {
+            if (writer == null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                boolean tornLastLine = endsWithoutNewline();
+                out = new FileOutputStream(file.toFile(), true);
+                writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                if (tornLastLine) {
+                    //Start on a fresh line after a line cut short by a crash
+                    writer.newLine();
+                }
+            }
+            for (String line : lines) {
+                writer.write(line);
+                writer.newLine();
+            }
+            writer.flush();
+            if (sync) {
+                out.getFD().sync();
+            }
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+        }
+    }
+
+    private boolean endsWithoutNewline() throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) {
+            return false;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            raf.seek(raf.length() - 1);
+            return raf.read() != '\n';
+        }
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            out = null;
+        }
+    }
+}
@@ -1,14 +1,12 @@
 package com.example.ShotScraperV2;
 
+import com.example.ShotScraperV2.http.ScraperHttpClient;
+
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.time.Duration;
+import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 
 /**
@@ -17,15 +15,14 @@ import java.util.ResourceBundle;
 public interface ScraperUtilsInterface {
 
     /**
-     * Establishes connection to an allowed database
+     * Borrows a connection to an allowed database from its pool, which it returns to when closed
      *
      * @param schema The schema name of the database
      * @return Returns a Connection to the database
-     * @throws SQLException If connection is denied
+     * @throws SQLException If connection is denied or none frees up in time
      */
     default Connection setNewConnection(String schema) throws SQLException {
-        ResourceBundle reader = ResourceBundle.getBundle("application");
-        return DriverManager.getConnection(reader.getString("spring." + schema + ".jdbc-url"), reader.getString("spring." + schema + ".username"), reader.getString("spring." + schema + ".password"));
+        return ConnectionPools.getDataSource(schema).getConnection();
     }
 
     /**
@@ -50,8 +47,43 @@ public interface ScraperUtilsInterface {
         return Integer.parseInt(year) + "-" + subYearString;
     }
 
+    /**
+     * Reads an optional setting, falling back to a default when it is not configured
+     *
+     * @param key          The property name
+     * @param defaultValue The value used when the property is missing
+     * @return The configured value or the default
+     */
+    default String getOptionalProperty(String key, String defaultValue) {
+        try {
+            return ResourceBundle.getBundle("application").getString(key);
+        } catch (MissingResourceException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads the base URL of the stats API, which can point at a local stub server instead of stats.nba.com
+     *
+     * @return The base URL without a trailing slash
+     */
+    default String getStatsBaseUrl() {
+        return getOptionalProperty("scraper.stats.base-url", "https://stats.nba.com");
+    }
+
+    /**
+     * Reads the base URL of the site serving stats_ptsd.js, which can point at a local stub server instead of www.nba.com
+     *
+     * @return The base URL without a trailing slash
+     */
+    default String getSiteBaseUrl() {
+        return getOptionalProperty("scraper.site.base-url", "https://www.nba.com");
+    }
+
     /**
      * Fetches a URL and returns the response
+     * <p>
+     * All requests share one pooled client so connections are reused between searches
      *
      * @param url The URL to be fetched
      * @return The response body from the URL as a String
@@ -59,17 +91,19 @@ public interface ScraperUtilsInterface {
      * @throws IOException          If the request is interrupted
      */
     default String fetchSpecificURL(String url) throws InterruptedException, IOException {
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
-                .header("accept", "application/json")
-                .header("Origin", "https://www.nba.com")
-                .header("Referer", "https://www.nba.com/")
-                .header("Access-Control-Request-Headers", "x-nba-stats-origin,x-nba-stats-token")
-                .header("Access-Control-Request-Method", "GET")
-                .timeout(Duration.ofSeconds(60))
-                .build();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        return response.body();
+        return ScraperHttpClient.getSharedInstance().fetch(url);
+    }
+
+    /**
+     * Fetches a URL and returns the decompressed response body as a stream
+     *
+     * @param url The URL to be fetched
+     * @return The response body, to be closed by the caller
+     * @throws InterruptedException If the request is interrupted
+     * @throws IOException          If the request is interrupted
+     */
+    default InputStream fetchSpecificURLAsStream(String url) throws InterruptedException, IOException {
+        return ScraperHttpClient.getSharedInstance().fetchStream(url);
     }
 
     /**
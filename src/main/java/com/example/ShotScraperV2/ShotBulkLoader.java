@@ -0,0 +1,249 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.ShotBatch;
+import com.example.ShotScraperV2.nbaobjects.ShotRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.function.ToIntFunction;
+
+/**
+ * Loads a whole season of shots with LOAD DATA LOCAL INFILE instead of inserting them row by row
+ * <p>
+ * Used for season tables created by the same run, such as in the first full scrape, where there are no existing shots to skip. The shots
+ * are written as tab separated rows into a buffer in memory and streamed to MySQL, once into the season table and once into all_shots on
+ * each database. The server needs local_infile turned on, and the shot pools open connections with allowLoadLocalInfile
+ */
+public class ShotBulkLoader {
+    private static final String COLUMNS = "(uniqueshotid,playerid,playerlast,playerfirst,season,"
+            + "seasontype,gameid,gameeventid,calendar,clock,"
+            + "minutes,seconds,x,y,distance,"
+            + "make,period,shottype,playtype,teamid,"
+            + "teamname,awayteamid,awayteamname,hometeamid,hometeamname,"
+            + "athome,shotzonebasic,shotzonearea,shotzonerange)";
+    /**
+     * JdbcStatement.setLocalInfileInputStream(InputStream), or null if Connector/J is not on the classpath. The driver is only a runtime
+     * dependency, so it is looked up instead of imported
+     */
+    private static final Class<?> JDBC_STATEMENT;
+    private static final Method SET_LOCAL_INFILE_INPUT_STREAM;
+
+    static {
+        Class<?> jdbcStatement = null;
+        Method setLocalInfileInputStream = null;
+        try {
+            jdbcStatement = Class.forName("com.mysql.cj.jdbc.JdbcStatement");
+            setLocalInfileInputStream = jdbcStatement.getMethod("setLocalInfileInputStream", InputStream.class);
+        } catch (ReflectiveOperationException ex) {
+            //Bulk loads fail and the caller falls back to inserts
+        }
+        JDBC_STATEMENT = jdbcStatement;
+        SET_LOCAL_INFILE_INPUT_STREAM = setLocalInfileInputStream;
+    }
+
+    /**
+     * ER_NOT_ALLOWED_COMMAND and ER_CLIENT_LOCAL_FILES_DISABLED, sent when the server has local_infile turned off
+     */
+    private static final int ER_NOT_ALLOWED_COMMAND = 1148, ER_CLIENT_LOCAL_FILES_DISABLED = 3948;
+
+    /**
+     * Finds the team ID for a team abbreviation
+     */
+    private final ToIntFunction<String> teamIds;
+
+    /**
+     * @param teamIds finds the team ID for a team abbreviation
+     */
+    public ShotBulkLoader(ToIntFunction<String> teamIds) {
+        this.teamIds = teamIds;
+    }
+
+    /**
+     * Loads every shot of a season into its table and all_shots on both databases
+     *
+     * @param playerTableName player table name
+     * @param firstNameOrig   player's real first name
+     * @param lastNameOrig    player's real last name
+     * @param year            year
+     * @param seasonType      season type
+     * @param allShots        all shots scraped for the season
+     * @param connShots1      connection to first shot database
+     * @param connShots2      connection to second shot database
+     * @return number of shots loaded into the season table
+     * @throws SQLException If the server refuses the load
+     */
+    public int load(String playerTableName, String firstNameOrig, String lastNameOrig, String year, String seasonType, ShotBatch allShots,
+                    Connection connShots1, Connection connShots2) throws SQLException {
+        byte[] rows = writeRows(firstNameOrig, lastNameOrig, year, seasonType, allShots);
+        int loaded = loadInto(connShots1, playerTableName, rows);
+        loadInto(connShots1, "all_shots", rows);
+        if (connShots1 != connShots2) {
+            loadInto(connShots2, playerTableName, rows);
+            loadInto(connShots2, "all_shots", rows);
+        }
+        return loaded;
+    }
+
+    /**
+     * Streams the rows into a table
+     *
+     * @param conn  connection to the shot database
+     * @param table table to load
+     * @param rows  tab separated rows
+     * @return number of rows loaded
+     * @throws SQLException If the server refuses the load
+     */
+    private int loadInto(Connection conn, String table, byte[] rows) throws SQLException {
+        if (SET_LOCAL_INFILE_INPUT_STREAM == null) {
+            throw new SQLFeatureNotSupportedException("LOAD DATA LOCAL INFILE needs MySQL Connector/J");
+        }
+        try (Statement stmt = conn.createStatement()) {
+            //The file name is ignored, the driver sends this stream when the server asks for it
+            try {
+                SET_LOCAL_INFILE_INPUT_STREAM.invoke(stmt.unwrap(JDBC_STATEMENT), new ByteArrayInputStream(rows));
+            } catch (ReflectiveOperationException ex) {
+                throw new SQLFeatureNotSupportedException(ex);
+            }
+            return stmt.executeUpdate("LOAD DATA LOCAL INFILE 'shots.tsv' INTO TABLE " + table
+                    + " CHARACTER SET utf8mb4 FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\' LINES TERMINATED BY '\\n' " + COLUMNS);
+        }
+    }
+
+    /**
+     * Checks if a failed load means LOAD DATA LOCAL INFILE is turned off, rather than something that may not happen on the next load
+     *
+     * @param ex the failure
+     * @return true if the driver cannot send local data or the client or server refuses it
+     */
+    public static boolean isLocalInfileRefused(SQLException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLFeatureNotSupportedException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                int errorCode = ((SQLException) cause).getErrorCode();
+                if (errorCode == ER_NOT_ALLOWED_COMMAND || errorCode == ER_CLIENT_LOCAL_FILES_DISABLED) {
+                    return true;
+                }
+            }
+            //Connector/J refuses on its own when the connection does not allow local infile
+            if (cause.getMessage() != null && cause.getMessage().contains("Loading local data is disabled")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes each shot once as a tab separated row, in the same form insertShots binds it
+     *
+     * @param firstNameOrig player's real first name
+     * @param lastNameOrig  player's real last name
+     * @param year          year
+     * @param seasonType    season type
+     * @param allShots      all shots scraped for the season
+     * @return the rows as UTF-8
+     */
+    byte[] writeRows(String firstNameOrig, String lastNameOrig, String year, String seasonType, ShotBatch allShots) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(allShots.size() * 256);
+        HashSet<String> uniqueIds = new HashSet<>();
+        ShotRecord shot = new ShotRecord();
+        try (Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            StringBuilder row = new StringBuilder(256);
+            for (int index = 0; index < allShots.size(); index++) {
+                allShots.readInto(index, shot);
+                if (!uniqueIds.add(shot.getUniqueShotId())) {
+                    continue;
+                }
+                row.setLength(0);
+                for (Object value : toColumns(shot, firstNameOrig, lastNameOrig, year, seasonType)) {
+                    appendField(row, value);
+                }
+                //Replace the last tab with the end of the row
+                row.setCharAt(row.length() - 1, '\n');
+                writer.append(row);
+            }
+        } catch (IOException ex) {
+            //Writing to memory does not fail
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Gets the value of each column of a shot, in the same form insertShots binds it
+     *
+     * @param shot          the shot
+     * @param firstNameOrig player's real first name
+     * @param lastNameOrig  player's real last name
+     * @param year          year
+     * @param seasonType    season type
+     * @return a String or Integer for each column, in the order of COLUMNS
+     */
+    public Object[] toColumns(ShotRecord shot, String firstNameOrig, String lastNameOrig, String year, String seasonType) {
+        int homeId = teamIds.applyAsInt(shot.getHomeTeamAbbr());
+        return new Object[]{
+                shot.getUniqueShotId(), shot.getPlayerId(), lastNameOrig, firstNameOrig, year,
+                seasonType, shot.getGameId(), shot.getGameEventId(),
+                //Game date comes as yyyyMMdd
+                String.format("%04d-%02d-%02d", shot.getGameDate() / 10000, shot.getGameDate() / 100 % 100, shot.getGameDate() % 100),
+                String.format("00:%02d:%02d", shot.getMinutes(), shot.getSeconds()),
+                shot.getMinutes(), shot.getSeconds(), shot.getX(), shot.getY(), shot.getDistance(),
+                shot.isMade() ? 1 : 0, shot.getPeriod(), shot.getShotType(), shot.getPlayType(), shot.getTeamId(),
+                shot.getTeamName(), teamIds.applyAsInt(shot.getAwayTeamAbbr()), shot.getAwayTeamAbbr(), homeId, shot.getHomeTeamAbbr(),
+                shot.getTeamId() == homeId ? 1 : 0, shot.getShotZoneBasic(), shot.getShotZoneArea(), shot.getShotZoneRange()};
+    }
+
+    /**
+     * Appends a field, escaping the characters that LOAD DATA treats as separators
+     *
+     * @param row   row being written
+     * @param value the text or number, or null
+     */
+    private void appendField(StringBuilder row, Object value) {
+        if (value == null) {
+            row.append("\\N\t");
+            return;
+        }
+        if (!(value instanceof String)) {
+            row.append(value).append('\t');
+            return;
+        }
+        String text = (String) value;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\':
+                    row.append("\\\\");
+                    break;
+                case '\t':
+                    row.append("\\t");
+                    break;
+                case '\n':
+                    row.append("\\n");
+                    break;
+                case '\r':
+                    row.append("\\r");
+                    break;
+                case '\0':
+                    row.append("\\0");
+                    break;
+                default:
+                    row.append(c);
+            }
+        }
+        row.append('\t');
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.ShotBatch;
+import com.example.ShotScraperV2.nbaobjects.ShotRecord;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Pull parser for shotchartdetail responses
+ * <p>
+ * Reads resultSets[0].rowSet one row at a time into a reused ShotRecord, skipping everything else without building a tree
+ */
+public class ShotChartParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Parses every shot in a response into a batch
+     *
+     * @param body response body
+     * @return all shots in the response
+     * @throws IOException If the body is not a shot chart response
+     */
+    public static ShotBatch parse(InputStream body) throws IOException {
+        ShotBatch batch = new ShotBatch();
+        parse(body, batch::add);
+        return batch;
+    }
+
+    /**
+     * Parses every shot in a response and hands each one to a consumer
+     *
+     * @param body     response body
+     * @param consumer receives the same reused record for every row
+     * @return number of shots parsed
+     * @throws IOException If the body is not a shot chart response
+     */
+    public static int parse(InputStream body, Consumer<ShotRecord> consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Shot chart response is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("resultSets".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                    //Only the first result set holds shots, the rest are league averages
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        return parseResultSet(parser, consumer);
+                    }
+                    break;
+                }
+                parser.skipChildren();
+            }
+        }
+        throw new IOException("Shot chart response has no rowSet");
+    }
+
+    /**
+     * Finds the rowSet of the current result set and parses its rows
+     *
+     * @param parser   parser positioned on the start of a result set
+     * @param consumer receives each parsed row
+     * @return number of shots parsed
+     * @throws IOException If the result set has no rowSet
+     */
+    private static int parseResultSet(JsonParser parser, Consumer<ShotRecord> consumer) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("rowSet".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                ShotRecord shot = new ShotRecord();
+                int count = 0;
+                while (parser.nextToken() == JsonToken.START_ARRAY) {
+                    shot.clear();
+                    parseRow(parser, shot);
+                    consumer.accept(shot);
+                    count++;
+                }
+                return count;
+            }
+            parser.skipChildren();
+        }
+        throw new IOException("Shot chart response has no rowSet");
+    }
+
+    /**
+     * Reads one row into a record by column position
+     *
+     * @param parser parser positioned on the start of a row
+     * @param shot   the record to fill
+     * @throws IOException If a value cannot be read
+     */
+    private static void parseRow(JsonParser parser, ShotRecord shot) throws IOException {
+        int column = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            switch (column) {
+                case 1:
+                    shot.setGameId(readInt(parser));
+                    break;
+                case 2:
+                    shot.setGameEventId(readInt(parser));
+                    break;
+                case 3:
+                    shot.setPlayerId(readInt(parser));
+                    break;
+                case 5:
+                    shot.setTeamId(readInt(parser));
+                    break;
+                case 6:
+                    shot.setTeamName(parser.getValueAsString());
+                    break;
+                case 7:
+                    shot.setPeriod(readInt(parser));
+                    break;
+                case 8:
+                    shot.setMinutes(readInt(parser));
+                    break;
+                case 9:
+                    shot.setSeconds(readInt(parser));
+                    break;
+                case 10:
+                    String eventType = parser.getValueAsString();
+                    shot.setMade(eventType != null && eventType.contains("Made"));
+                    break;
+                case 11:
+                    shot.setPlayType(parser.getValueAsString());
+                    break;
+                case 12:
+                    shot.setShotType(parser.getValueAsString());
+                    break;
+                case 13:
+                    shot.setShotZoneBasic(parser.getValueAsString());
+                    break;
+                case 14:
+                    shot.setShotZoneArea(parser.getValueAsString());
+                    break;
+                case 15:
+                    shot.setShotZoneRange(parser.getValueAsString());
+                    break;
+                case 16:
+                    shot.setDistance(readInt(parser));
+                    break;
+                case 17:
+                    shot.setX(readInt(parser));
+                    break;
+                case 18:
+                    shot.setY(readInt(parser));
+                    break;
+                case 21:
+                    shot.setGameDate(readInt(parser));
+                    break;
+                case 22:
+                    shot.setHomeTeamAbbr(parser.getValueAsString());
+                    break;
+                case 23:
+                    shot.setAwayTeamAbbr(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+            column++;
+        }
+    }
+
+    /**
+     * Reads an integer that may be sent as a number or as a string such as "0011800002"
+     *
+     * @param parser parser positioned on the value
+     * @return the value, or 0 if it is null
+     * @throws IOException If the value is not a number
+     */
+    private static int readInt(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            try {
+                return Integer.parseInt(parser.getText().trim());
+            } catch (NumberFormatException ex) {
+                throw new IOException("Expected a number but found " + parser.getText(), ex);
+            }
+        }
+        return parser.getValueAsInt();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.ShotRecord;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Binds every column of a shot to shot insert statements, one season at a time
+ * <p>
+ * The binding plan is built once: one typed setter for each parameter of the insert, indexed by its position. Numbers are bound as
+ * ints, game dates and clocks as java.time values through setObject, and the clocks of a period are looked up instead of created, so
+ * binding a shot allocates nothing beyond its ID and a game date when the game changes
+ */
+public class ShotColumnBinder {
+    /**
+     * Clock values for every minute and second remaining in a period, including overtime
+     */
+    private static final LocalTime[] CLOCKS = new LocalTime[13 * 60];
+
+    static {
+        for (int i = 0; i < CLOCKS.length; i++) {
+            CLOCKS[i] = LocalTime.of(0, i / 60, i % 60);
+        }
+    }
+
+    /**
+     * Sets one parameter of a statement from the shot being bound
+     */
+    @FunctionalInterface
+    private interface Column {
+        void bind(PreparedStatement stmt, int parameterIndex, ShotColumnBinder binder) throws SQLException;
+    }
+
+    /**
+     * Setter for each parameter of the insert, in the order of its columns
+     */
+    private static final Column[] PLAN = {
+            (stmt, i, binder) -> stmt.setString(i, binder.uniqueShotId),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getPlayerId()),
+            (stmt, i, binder) -> stmt.setString(i, binder.lastNameOrig),
+            (stmt, i, binder) -> stmt.setString(i, binder.firstNameOrig),
+            (stmt, i, binder) -> stmt.setString(i, binder.year),
+            (stmt, i, binder) -> stmt.setString(i, binder.seasonType),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getGameId()),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getGameEventId()),
+            (stmt, i, binder) -> stmt.setObject(i, binder.gameDate),
+            (stmt, i, binder) -> stmt.setObject(i, binder.clock),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getMinutes()),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getSeconds()),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getX()),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getY()),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getDistance()),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.isMade() ? 1 : 0),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getPeriod()),
+            (stmt, i, binder) -> stmt.setString(i, binder.shot.getShotType()),
+            (stmt, i, binder) -> stmt.setString(i, binder.shot.getPlayType()),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getTeamId()),
+            (stmt, i, binder) -> stmt.setString(i, binder.shot.getTeamName()),
+            (stmt, i, binder) -> stmt.setInt(i, binder.awayTeamId),
+            (stmt, i, binder) -> stmt.setString(i, binder.shot.getAwayTeamAbbr()),
+            (stmt, i, binder) -> stmt.setInt(i, binder.homeTeamId),
+            (stmt, i, binder) -> stmt.setString(i, binder.shot.getHomeTeamAbbr()),
+            (stmt, i, binder) -> stmt.setInt(i, binder.shot.getTeamId() == binder.homeTeamId ? 1 : 0),
+            (stmt, i, binder) -> stmt.setString(i, binder.shot.getShotZoneBasic()),
+            (stmt, i, binder) -> stmt.setString(i, binder.shot.getShotZoneArea()),
+            (stmt, i, binder) -> stmt.setString(i, binder.shot.getShotZoneRange())
+    };
+
+    private final ToIntFunction<String> teamIds;
+    private final String firstNameOrig, lastNameOrig, year, seasonType;
+    /**
+     * The shot being bound and the values derived from it
+     */
+    private ShotRecord shot;
+    private String uniqueShotId;
+    private int homeTeamId, awayTeamId;
+    private int gameDateNumber = -1;
+    private LocalDate gameDate;
+    private LocalTime clock;
+
+    /**
+     * @param teamIds       finds the team ID for a team abbreviation
+     * @param firstNameOrig player's real first name
+     * @param lastNameOrig  player's real last name
+     * @param year          year
+     * @param seasonType    season type
+     */
+    public ShotColumnBinder(ToIntFunction<String> teamIds, String firstNameOrig, String lastNameOrig, String year, String seasonType) {
+        this.teamIds = teamIds;
+        this.firstNameOrig = firstNameOrig;
+        this.lastNameOrig = lastNameOrig;
+        this.year = year;
+        this.seasonType = seasonType;
+    }
+
+    /**
+     * Sets every parameter of each statement to a shot of this season
+     *
+     * @param shot         the shot
+     * @param uniqueShotId the shot's unique ID
+     * @param statements   shot insert statements
+     * @throws SQLException If setting a parameter fails
+     */
+    public void bind(ShotRecord shot, String uniqueShotId, List<PreparedStatement> statements) throws SQLException {
+        bind(shot, uniqueShotId, statements, 0);
+    }
+
+    /**
+     * Sets the parameters of one row of multi-row shot insert statements to a shot of this season
+     *
+     * @param shot         the shot
+     * @param uniqueShotId the shot's unique ID
+     * @param statements   shot insert statements with a group of getColumnCount() parameters for each row
+     * @param row          row of the statements to set, starting at 0
+     * @throws SQLException If setting a parameter fails
+     */
+    public void bind(ShotRecord shot, String uniqueShotId, List<PreparedStatement> statements, int row) throws SQLException {
+        this.shot = shot;
+        this.uniqueShotId = uniqueShotId;
+        homeTeamId = teamIds.applyAsInt(shot.getHomeTeamAbbr());
+        awayTeamId = teamIds.applyAsInt(shot.getAwayTeamAbbr());
+        //Shots come game by game, so the date only changes with the game
+        if (shot.getGameDate() != gameDateNumber) {
+            gameDateNumber = shot.getGameDate();
+            gameDate = toGameDate(gameDateNumber);
+        }
+        clock = toClock(shot.getMinutes(), shot.getSeconds());
+        for (int column = 0; column < PLAN.length; column++) {
+            for (int each = 0; each < statements.size(); each++) {
+                PLAN[column].bind(statements.get(each), row * PLAN.length + column + 1, this);
+            }
+        }
+    }
+
+    /**
+     * @return number of parameters bound for each shot
+     */
+    public static int getColumnCount() {
+        return PLAN.length;
+    }
+
+    /**
+     * @param yyyyMMdd game date as a number, such as 20181012
+     * @return the game date
+     */
+    static LocalDate toGameDate(int yyyyMMdd) {
+        return LocalDate.of(yyyyMMdd / 10000, yyyyMMdd / 100 % 100, yyyyMMdd % 100);
+    }
+
+    /**
+     * @param minutes minutes remaining in the period
+     * @param seconds seconds remaining in the minute
+     * @return the clock as a time of day, such as 00:11:37
+     */
+    static LocalTime toClock(int minutes, int seconds) {
+        int index = minutes * 60 + seconds;
+        return index >= 0 && index < CLOCKS.length && seconds < 60 ? CLOCKS[index] : LocalTime.of(0, minutes, seconds);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.ShotScraperV2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Remembers the hash of the last shot chart response saved for each shot table
+ * <p>
+ * Lets the current season update skip seasons whose response has not changed since the last run
+ */
+public class ShotFingerprintStore implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShotFingerprintStore.class);
+    private static volatile ShotFingerprintStore sharedInstance;
+    private final Path file;
+    /**
+     * Map of shot table name and hash of the response last saved into it
+     */
+    private final Properties fingerprints = new Properties();
+
+    /**
+     * Gets the store shared by all scrapers, loading it on first use
+     *
+     * @return the shared store
+     */
+    public static ShotFingerprintStore getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (ShotFingerprintStore.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new ShotFingerprintStore(null);
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Loads the store from a file
+     *
+     * @param file the file, or null to read scraper.fingerprints.file
+     */
+    ShotFingerprintStore(Path file) {
+        this.file = file != null ? file
+                : Paths.get(ScraperUtilsInterface.super.getOptionalProperty("scraper.fingerprints.file", "scraper-cache/shot-fingerprints.properties"));
+        if (Files.exists(this.file)) {
+            try (InputStream in = Files.newInputStream(this.file)) {
+                fingerprints.load(in);
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gets the hash of the response last saved into a shot table
+     *
+     * @param shotTableName shot table name
+     * @return the hash, or null if none is known
+     */
+    public String get(String shotTableName) {
+        return fingerprints.getProperty(shotTableName);
+    }
+
+    /**
+     * Records the hash of a response once its shots are saved, and writes the store to disk
+     *
+     * @param shotTableName shot table name
+     * @param contentHash   hash of the response body
+     */
+    public synchronized void put(String shotTableName, String contentHash) {
+        if (contentHash.equals(fingerprints.put(shotTableName, contentHash))) {
+            return;
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            //Write a new file and swap it in so a crash never leaves a partial store
+            Path tempFile = Files.createTempFile(directory, "fingerprints", ".tmp");
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                fingerprints.store(out, "Hash of the last shot chart response saved into each shot table");
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+        }
+    }
+}
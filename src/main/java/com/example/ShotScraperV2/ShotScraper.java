@@ -1,16 +1,22 @@
 package com.example.ShotScraperV2;
 
+import com.example.ShotScraperV2.http.AsyncFetchPipeline;
+import com.example.ShotScraperV2.http.ResponseCache;
 import com.example.ShotScraperV2.nbaobjects.Player;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import com.example.ShotScraperV2.nbaobjects.ScrapeTask;
+import com.example.ShotScraperV2.nbaobjects.ShotBatch;
+import com.example.ShotScraperV2.nbaobjects.ShotRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.*;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Scraper of all shots
@@ -38,34 +44,6 @@ public class ShotScraper implements ScraperUtilsInterface {
      */
     private HashMap<String, Integer> teamAbbrMap;
 
-    /**
-     * Map of data location in shot data response to prepared statement index
-     * <p></p>
-     * Helps organize data in database in more logical order
-     */
-    private final HashMap<Integer, Integer> MAP_JSON_ARRAY_INDEX_TO_PS_INDEX = new HashMap<>(Map.ofEntries(
-            Map.entry(1, 7),//gameID
-            Map.entry(2, 8),//gameEventID
-            Map.entry(3, 2),//playerID
-            Map.entry(5, 20),//teamID
-            Map.entry(6, 21),//teamName
-            Map.entry(7, 17),//period
-            Map.entry(8, 11),//minutes
-            Map.entry(9, 12),//seconds
-            Map.entry(10, 16),//make
-            Map.entry(11, 19),//playType
-            Map.entry(12, 18),//shotType
-            Map.entry(13, 27),//shotZoneBasic
-            Map.entry(14, 28),//shotZoneArea
-            Map.entry(15, 29),//shotZoneRange
-            Map.entry(16, 15),//distance
-            Map.entry(17, 13),//x
-            Map.entry(18, 14),//y
-            Map.entry(21, 9),//calendar
-            Map.entry(22, 25),//homeTeamName
-            Map.entry(23, 23)//awayTeamName
-    ));
-
     /**
      * Map of old team abbreviations to their updated team abbreviations
      */
@@ -76,6 +54,29 @@ public class ShotScraper implements ScraperUtilsInterface {
             Map.entry("SEA", "OKC"),
             Map.entry("CHH", "CHA"));
     private int totalNewShotsAdded;
+    private final ShotFingerprintStore fingerprintStore = ShotFingerprintStore.getSharedInstance();
+    private final ScrapeJournal journal = ScrapeJournal.getSharedInstance();
+    private final ShutdownCoordinator shutdown = ShutdownCoordinator.getSharedInstance();
+    private final ConcurrencyTuner tuner = ConcurrencyTuner.getSharedInstance();
+    private final RunStatistics statistics = RunStatistics.getSharedInstance();
+    /**
+     * Rows sent to the database at once, set from scraper.writers.batch-size
+     */
+    private final int batchSize = Math.max(1, Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.writers.batch-size", "500")));
+    /**
+     * Cleared for the rest of the process the first time the server refuses LOAD DATA LOCAL INFILE
+     */
+    private static volatile boolean bulkLoadAvailable = true;
+    /**
+     * Set from scraper.writers.upsert, inserts ignore shots already in a table instead of reading the table's shots first
+     */
+    private final boolean upsertEnabled = Boolean.parseBoolean(ScraperUtilsInterface.super.getOptionalProperty("scraper.writers.upsert", "true"));
+    private final boolean bulkLoadEnabled = Boolean.parseBoolean(ScraperUtilsInterface.super.getOptionalProperty("scraper.writers.bulk-load", "true"));
+    private final ShotBulkLoader bulkLoader = new ShotBulkLoader(this::findTeamId);
+    /**
+     * Queue of writes for the second shot database, or null if it is written directly
+     */
+    private final ReplicaWriter shotReplica;
     private IndividualPlayerScraper individualPlayerScraper;
 
     /**
@@ -88,19 +89,30 @@ public class ShotScraper implements ScraperUtilsInterface {
      * @param individualPlayerScraper player scraper
      */
     public ShotScraper(String schemaShots1Alias, String schemaShots2Alias, String schemaPlayers1Alias, String schemaPlayers2Alias, IndividualPlayerScraper individualPlayerScraper) {
+        this.shotReplica = ReplicaWriter.forSecondary(schemaShots1Alias, schemaShots2Alias);
+        //Bulk loads go to the first shot database, and to the second unless its writes are queued
+        if (bulkLoadEnabled) {
+            ConnectionPools.allowLoadLocalInfile(schemaShots1Alias);
+            if (shotReplica == null) {
+                ConnectionPools.allowLoadLocalInfile(schemaShots2Alias);
+            }
+        }
         try {
             this.schemaShots1Alias = schemaShots1Alias;
             this.schemaShots2Alias = schemaShots2Alias;
             this.schemaPlayers1Alias = schemaPlayers1Alias;
             this.schemaPlayers2Alias = schemaPlayers2Alias;
+            //Borrowed from the shared pools only long enough to read the teams and make sure all_shots exists
             Connection connPlayers = ScraperUtilsInterface.super.setNewConnection(schemaPlayers1Alias);
-            Connection connShots1 = ScraperUtilsInterface.super.setNewConnection(schemaShots1Alias);
-            Connection connShots2 = ScraperUtilsInterface.super.setNewConnection(schemaShots2Alias);
             this.teamAbbrMap = createTeamAbbreviationMap(connPlayers);
-            createAllShotsTable(connShots1, connShots2);
             connPlayers.close();
+            Connection connShots1 = ScraperUtilsInterface.super.setNewConnection(schemaShots1Alias);
+            Connection connShots2 = schemaShots1Alias.equals(schemaShots2Alias) || shotReplica != null ? connShots1 : ScraperUtilsInterface.super.setNewConnection(schemaShots2Alias);
+            createAllShotsTable(connShots1, connShots2);
             connShots1.close();
-            connShots2.close();
+            if (connShots1 != connShots2) {
+                connShots2.close();
+            }
         } catch (Exception ex) {
             LOGGER.error(ex.getMessage());
         }
@@ -193,304 +205,568 @@ public class ShotScraper implements ScraperUtilsInterface {
     }
 
     /**
-     * Scrapes all shots for all players
+     * Expands a player into one task for each season type of each year the player was active
      *
-     * @param connPlayers1      connection to first player database
-     * @param connPlayers2      connection to second player database
-     * @param connShots1        connection to first shot database
-     * @param connShots2        connection to second shot database
+     * @param player            the player
      * @param onlyCurrentSeason should only search for current year and season type
      * @param currentSeasonType current season type
+     * @param existingTables    shot tables that already exist, which are skipped unless only searching the current season
+     * @param connPlayers       connection to player database
+     * @return tasks for the player, in the order of their individual data rows
      */
-    public void getEveryShotWithMainThread(Connection connPlayers1, Connection connPlayers2, Connection connShots1, Connection connShots2, boolean onlyCurrentSeason, String currentSeasonType) throws InterruptedException {
-        HashSet<String> allExistingTables = findExistingTables(connShots1, ScraperUtilsInterface.super.getSchemaName(schemaShots1Alias));
-        while (true) {
-            //Exits while loop when queue return null
-            Player polledPlayer = RunHandler.pollQueue();
-            if (polledPlayer == null) {
-                break;
-            } else {
-                int playerID = polledPlayer.getPlayerId();
-                String lastNameOrig = polledPlayer.getLastName();
-                String firstNameOrig = polledPlayer.getFirstName();
-                String lastName = lastNameOrig.replaceAll("[^A-Za-z0-9]", "");
-                String firstName = firstNameOrig.replaceAll("[^A-Za-z0-9]", "");
-                //Gathers all active years for polled player
-                ResultSet playerActivityResultSet = findPlayerActivity(lastName, firstName, playerID, onlyCurrentSeason, currentSeasonType, connPlayers1);
-                String year, playerTableName;
-                ArrayList<String> seasonTypes;
-                try {
-                    //Iterate through ResultSet
-                    //If onlyCurrentSeason is true and player is not active in the current season type, ResultSet will be empty (next() will end loop)
-                    while (playerActivityResultSet != null && playerActivityResultSet.next()) {
-                        //Current year of the iteration
-                        year = playerActivityResultSet.getString("year");
-                        seasonTypes = new ArrayList<>();
-                        //Update list of active season types for current year to scrape
-                        //Add only the current season type if only scraping new shots (player is guaranteed to be active in season type)
-                        if (onlyCurrentSeason) {
-                            seasonTypes.add(mapDBColumnToSeasonType.get(currentSeasonType));
-                        } else {
-                            //Check each season type for activity
-                            //If active, add to list of seasons to search
-                            for (String key : mapDBColumnToSeasonType.keySet()) {
-                                if (playerActivityResultSet.getInt(key) == 1) {
-                                    seasonTypes.add(mapDBColumnToSeasonType.get(key));
-                                }
-                            }
-                        }
-                        //For each active season type for the given year
-                        for (String eachSeasonType : seasonTypes) {
-                            //Format table name
-                            playerTableName = lastName + "_" + firstName + "_" + playerID + "_" + year.substring(0, 4) + "_" + year.substring(5) + "_" + eachSeasonType.replace(" ", "");
-                            //Check if table exists already in database
-                            //If scraping all tables, skip if table exists already
-                            if (onlyCurrentSeason || !allExistingTables.contains(playerTableName)) {
-                                //URL parameters can be slightly different from normal
-                                //Get the shot data for the current parameters
-                                JSONArray allShotsAsJSONArray = searchForShots(year, playerID, mapDBColumnToURLParamName.get(eachSeasonType));
-                                createIndividualSeasonTable(playerTableName, connShots1, connShots2);
-                                //If there is at least 1 shot recorded that player during that season
-                                if (allShotsAsJSONArray != null && !allShotsAsJSONArray.isEmpty()) {
-                                    HashSet<String> existingUniqueShotIds = new HashSet<>();
-                                    if (onlyCurrentSeason) {
-                                        findExistingShots(connShots1, playerTableName, existingUniqueShotIds);
-                                    }
-                                    insertShots(playerTableName, firstNameOrig, lastNameOrig, year, eachSeasonType, allShotsAsJSONArray, existingUniqueShotIds,
-                                            connShots1, connShots2);
-                                } else {
-                                    LOGGER.info("\nTABLE NAME: " + playerTableName + "\n                                    NO SHOTS TAKEN");
-                                }
-                            }
+    public ArrayList<ScrapeTask> findScrapeTasks(Player player, boolean onlyCurrentSeason, String currentSeasonType, HashSet<String> existingTables, Connection connPlayers) {
+        ArrayList<ScrapeTask> tasks = new ArrayList<>();
+        int playerID = player.getPlayerId();
+        String lastName = player.getLastName().replaceAll("[^A-Za-z0-9]", "");
+        String firstName = player.getFirstName().replaceAll("[^A-Za-z0-9]", "");
+        //Gathers all active years for the player
+        ResultSet playerActivityResultSet = findPlayerActivity(lastName, firstName, playerID, onlyCurrentSeason, currentSeasonType, connPlayers);
+        String year, playerTableName;
+        ArrayList<String> seasonTypes;
+        try {
+            //Iterate through ResultSet
+            //If onlyCurrentSeason is true and player is not active in the current season type, ResultSet will be empty (next() will end loop)
+            while (playerActivityResultSet != null && playerActivityResultSet.next()) {
+                //Current year of the iteration
+                year = playerActivityResultSet.getString("year");
+                seasonTypes = new ArrayList<>();
+                //Update list of active season types for current year to scrape
+                //Add only the current season type if only scraping new shots (player is guaranteed to be active in season type)
+                if (onlyCurrentSeason) {
+                    seasonTypes.add(mapDBColumnToSeasonType.get(currentSeasonType));
+                } else {
+                    //Check each season type for activity
+                    //If active, add to list of seasons to search
+                    for (String key : mapDBColumnToSeasonType.keySet()) {
+                        if (playerActivityResultSet.getInt(key) == 1) {
+                            seasonTypes.add(mapDBColumnToSeasonType.get(key));
                         }
                     }
-                    playerActivityResultSet.close();
-                } catch (Exception ex) {
-                    LOGGER.error(ex.getMessage());
+                }
+                //For each active season type for the given year
+                for (String eachSeasonType : seasonTypes) {
+                    //Format table name
+                    playerTableName = lastName + "_" + firstName + "_" + playerID + "_" + year.substring(0, 4) + "_" + year.substring(5) + "_" + eachSeasonType.replace(" ", "");
+                    //Check if table exists already in database
+                    //If scraping all tables, skip if table exists already
+                    if (onlyCurrentSeason || !existingTables.contains(playerTableName)) {
+                        tasks.add(new ScrapeTask(player, year, eachSeasonType, playerTableName));
+                    }
                 }
             }
-            //Pause to prevent server denying request
-            if (RunHandler.peekQueue() != null) {
-                Thread.sleep((long) (Math.random() * 10000));
+            if (playerActivityResultSet != null) {
+                playerActivityResultSet.close();
             }
+        } catch (SQLException ex) {
+            LOGGER.error(ex.getMessage());
         }
-        RunHandler.addToNewShotCount(totalNewShotsAdded);
+        return tasks;
     }
 
     /**
-     * Generates bulk of SQL INSERT statement for a given table name
+     * Scrapes shots for tasks polled from the shared task queue until it is empty
+     * <p>
+     * Each worker keeps up to scraper.workers.prefetch searches running, so later seasons download while earlier ones are saved.
+     * Once a stop is requested no more seasons are polled, and if the worker is interrupted at the deadline its unsaved seasons go back in the queue.
+     * A worker the concurrency tuner has not let in waits without taking seasons
+     *
+     * @param allExistingTables shot tables that exist and are complete, whose saved response hash can be trusted
+     * @param onlyCurrentSeason should only search for current year and season type
+     * @param writePipeline     writers to hand each season off to, or null to save seasons on this thread
+     * @throws InterruptedException If interrupted while waiting for a search or for room in the write queue
+     */
+    public void getEveryShotWithMainThread(Set<String> allExistingTables, boolean onlyCurrentSeason, ShotWritePipeline writePipeline) throws InterruptedException {
+        int prefetch = Math.max(1, Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.workers.prefetch", "4")));
+        ArrayDeque<ScrapeTask> tasks = new ArrayDeque<>();
+        ArrayDeque<CompletableFuture<ShotBatch>> searches = new ArrayDeque<>();
+        ArrayDeque<Long> searchStarts = new ArrayDeque<>();
+        int slot = tuner.register();
+        boolean queueEmpty = false;
+        while (true) {
+            //Top up the running searches from the shared queue
+            while (searches.size() < prefetch && tuner.isActive(slot)) {
+                //Only wait on other scraper instances when there is nothing else to do
+                ScrapeTask polledTask = RunHandler.pollTaskQueue(searches.isEmpty());
+                if (polledTask == null) {
+                    queueEmpty = searches.isEmpty();
+                    break;
+                }
+                //Only compare against a saved response if its table is still there
+                String previousContentHash = onlyCurrentSeason && allExistingTables.contains(polledTask.getShotTableName())
+                        ? fingerprintStore.get(polledTask.getShotTableName()) : null;
+                //URL parameters can be slightly different from normal
+                searches.add(searchForShots(polledTask.getYear(), polledTask.getPlayer().getPlayerId(), mapDBColumnToURLParamName.get(polledTask.getSeasonType()),
+                        onlyCurrentSeason, previousContentHash));
+                searchStarts.add(System.nanoTime());
+                tasks.add(polledTask);
+            }
+            if (searches.isEmpty()) {
+                //Exits while loop when the queue is empty and every search has been saved
+                if (queueEmpty) {
+                    tuner.drained();
+                    break;
+                }
+                //Wait until the tuner wants this worker again
+                if (!tuner.awaitTurn(slot)) {
+                    break;
+                }
+                continue;
+            }
+            ScrapeTask task = tasks.poll();
+            long searchStart = searchStarts.poll();
+            try {
+                //Get the shot data for the current parameters
+                ShotBatch allShots = searches.poll().get();
+                long fetchNanos = System.nanoTime() - searchStart;
+                tuner.recordLatency(ConcurrencyTuner.Stage.FETCH, fetchNanos);
+                statistics.recordLatency(RunStatistics.Stage.FETCH, fetchNanos);
+                if (allShots != null) {
+                    journal.recordFetched(task.getShotTableName(), allShots.size());
+                    statistics.add(RunStatistics.Counter.SHOTS_FETCHED, task.getSeasonType(), allShots.size());
+                }
+                if (writePipeline != null) {
+                    //Waits here if the writers have fallen behind
+                    long putStart = System.nanoTime();
+                    writePipeline.put(task, allShots, onlyCurrentSeason);
+                    statistics.recordLatency(RunStatistics.Stage.QUEUE, System.nanoTime() - putStart);
+                } else {
+                    saveSeason(task, allShots, onlyCurrentSeason);
+                }
+            } catch (InterruptedException ex) {
+                //Neither this season nor the ones still being searched were handed off
+                tasks.addFirst(task);
+                RunHandler.requeueTasks(tasks);
+                throw ex;
+            } catch (Exception ex) {
+                LOGGER.error(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Creates the table for a searched season and saves its shots, borrowing connections from the pools only while saving
+     *
+     * @param task              the season searched
+     * @param allShots          the shots found, or null if the response was not received
+     * @param onlyCurrentSeason if only shots not already in the table should be added
+     * @throws SQLException If connecting or creating the table fails
+     */
+    protected void saveSeason(ScrapeTask task, ShotBatch allShots, boolean onlyCurrentSeason) throws SQLException {
+        //Writes for a queued second database go only to the first one here
+        Connection connShots1 = ScraperUtilsInterface.super.setNewConnection(schemaShots1Alias);
+        Connection connShots2 = schemaShots1Alias.equals(schemaShots2Alias) || shotReplica != null ? connShots1 : ScraperUtilsInterface.super.setNewConnection(schemaShots2Alias);
+        try {
+            saveSeason(task, allShots, onlyCurrentSeason, connShots1, connShots2);
+        } finally {
+            connShots1.close();
+            if (connShots1 != connShots2) {
+                connShots2.close();
+            }
+        }
+    }
+
+    /**
+     * Creates the table for a searched season and saves its shots
+     *
+     * @param task              the season searched
+     * @param allShots          the shots found, or null if the response was not received
+     * @param onlyCurrentSeason if only shots not already in the table should be added
+     * @param connShots1        connection to first shot database
+     * @param connShots2        connection to second shot database
+     * @throws SQLException If creating the table or committing the shots fails
+     */
+    protected void saveSeason(ScrapeTask task, ShotBatch allShots, boolean onlyCurrentSeason, Connection connShots1, Connection connShots2) throws SQLException {
+        long saveStart = System.nanoTime();
+        if (allShots != null && allShots.isUnchanged()) {
+            LOGGER.info("\nTABLE NAME: " + task.getShotTableName() + "\n                                    UNCHANGED SINCE LAST RUN");
+            journal.recordPersisted(task.getShotTableName(), 0);
+            RunHandler.finishTask(task, true);
+            return;
+        }
+        createIndividualSeasonTable(task.getShotTableName(), connShots1, connShots2);
+        //If there is at least 1 shot recorded that player during that season
+        if (allShots != null && !allShots.isEmpty()) {
+            HashSet<String> existingUniqueShotIds = new HashSet<>();
+            //A season left unfinished by an earlier run may already hold some of its shots, which upserts skip on their own
+            if (!upsertEnabled && (onlyCurrentSeason || task.isResumed())) {
+                findExistingShots(connShots1, task.getShotTableName(), existingUniqueShotIds);
+            }
+            //Each season is saved in one transaction so a shutdown never leaves it half written
+            boolean saved = false, committed = false;
+            int addedBefore = totalNewShotsAdded;
+            connShots1.setAutoCommit(false);
+            connShots2.setAutoCommit(false);
+            try {
+                //A table this run just created has nothing to skip, so the whole season can be loaded at once
+                if (bulkLoadEnabled && bulkLoadAvailable && !onlyCurrentSeason && !task.isResumed()) {
+                    saved = loadShots(task, allShots, connShots1, connShots2);
+                } else {
+                    saved = insertShots(task.getShotTableName(), task.getPlayer().getFirstName(), task.getPlayer().getLastName(), task.getYear(), task.getSeasonType(), allShots,
+                            existingUniqueShotIds, connShots1, connShots2);
+                }
+                if (saved) {
+                    connShots1.commit();
+                    if (connShots1 != connShots2) {
+                        connShots2.commit();
+                    }
+                    committed = true;
+                }
+            } catch (SQLException ex) {
+                //Another instance may claim the season right away instead of waiting for the lease to run out
+                RunHandler.finishTask(task, false);
+                throw ex;
+            } finally {
+                if (!committed) {
+                    connShots1.rollback();
+                    if (connShots1 != connShots2) {
+                        connShots2.rollback();
+                    }
+                }
+                connShots1.setAutoCommit(true);
+                connShots2.setAutoCommit(true);
+            }
+            if (!saved) {
+                LOGGER.info("\nTABLE NAME: " + task.getShotTableName() + "\n                                    ROLLED BACK AT SHUTDOWN");
+                RunHandler.requeueTasks(List.of(task));
+                return;
+            }
+            if (shotReplica != null) {
+                replicateSeason(task, allShots);
+            }
+            int added = totalNewShotsAdded - addedBefore;
+            statistics.add(RunStatistics.Counter.SHOTS_INSERTED, task.getSeasonType(), added);
+            statistics.add(RunStatistics.Counter.SHOTS_DEDUPLICATED, task.getSeasonType(), allShots.size() - added);
+        } else {
+            LOGGER.info("\nTABLE NAME: " + task.getShotTableName() + "\n                                    NO SHOTS TAKEN");
+        }
+        if (allShots != null && allShots.getContentHash() != null) {
+            fingerprintStore.put(task.getShotTableName(), allShots.getContentHash());
+        }
+        //A season whose response never arrived stays unfinished so the next run searches it again
+        if (allShots != null) {
+            journal.recordPersisted(task.getShotTableName(), allShots.size());
+            long saveNanos = System.nanoTime() - saveStart;
+            tuner.recordPersisted(allShots.size());
+            tuner.recordLatency(ConcurrencyTuner.Stage.WRITE, saveNanos);
+            statistics.recordLatency(RunStatistics.Stage.WRITE, saveNanos);
+            statistics.add(RunStatistics.Counter.SEASONS_PERSISTED, task.getSeasonType(), 1);
+        }
+        RunHandler.finishTask(task, allShots != null);
+    }
+
+    /**
+     * Bulk loads a season into its new table, falling back to inserts if the load fails, and for the rest of the process if the server
+     * or driver refuses LOAD DATA LOCAL INFILE
+     *
+     * @param task       the season searched
+     * @param allShots   the shots found
+     * @param connShots1 connection to first shot database, in a transaction
+     * @param connShots2 connection to second shot database, in a transaction
+     * @return false if the shutdown deadline passed before the shots were saved
+     * @throws SQLException If rolling back the failed load fails
+     */
+    private boolean loadShots(ScrapeTask task, ShotBatch allShots, Connection connShots1, Connection connShots2) throws SQLException {
+        if (shutdown.isPastDeadline()) {
+            return false;
+        }
+        try {
+            int loaded = bulkLoader.load(task.getShotTableName(), task.getPlayer().getFirstName(), task.getPlayer().getLastName(), task.getYear(), task.getSeasonType(),
+                    allShots, connShots1, connShots2);
+            LOGGER.info("\nTABLE NAME: " + task.getShotTableName() + "\n          TOTAL SHOTS: " + loaded + "\n" + "          NEW SHOTS ADDED: " + loaded + " (BULK LOADED)");
+            totalNewShotsAdded += loaded;
+            return true;
+        } catch (SQLException ex) {
+            if (ShotBulkLoader.isLocalInfileRefused(ex)) {
+                LOGGER.error("Bulk load refused, using inserts from now on: " + ex.getMessage());
+                bulkLoadAvailable = false;
+            } else {
+                //A deadlock or lost connection says nothing about later loads
+                LOGGER.error("Bulk load failed, using inserts for " + task.getShotTableName() + ": " + ex.getMessage());
+            }
+            connShots1.rollback();
+            if (connShots1 != connShots2) {
+                connShots2.rollback();
+            }
+            return insertShots(task.getShotTableName(), task.getPlayer().getFirstName(), task.getPlayer().getLastName(), task.getYear(), task.getSeasonType(), allShots,
+                    new HashSet<>(), connShots1, connShots2);
+        }
+    }
+
+    /**
+     * Queues every shot of a committed season for the second shot database, which skips the shots it already has
+     *
+     * @param task     the season searched
+     * @param allShots the shots found
+     */
+    private void replicateSeason(ScrapeTask task, ShotBatch allShots) {
+        List<Object[]> rows = new ArrayList<>(allShots.size());
+        HashSet<String> uniqueIds = new HashSet<>();
+        ShotRecord shot = new ShotRecord();
+        for (int index = 0; index < allShots.size(); index++) {
+            allShots.readInto(index, shot);
+            if (uniqueIds.add(shot.getUniqueShotId())) {
+                rows.add(bulkLoader.toColumns(shot, task.getPlayer().getFirstName(), task.getPlayer().getLastName(), task.getYear(), task.getSeasonType()));
+            }
+        }
+        shotReplica.enqueue(createShotInsertSQL(task.getShotTableName(), true, 1), rows);
+        shotReplica.enqueue(createShotInsertSQL("all_shots", true, 1), rows);
+    }
+
+    /**
+     * @return number of shots this scraper has added since it was created
+     */
+    public int getTotalNewShotsAdded() {
+        return totalNewShotsAdded;
+    }
+
+    /**
+     * Generates a multi-row SQL INSERT statement for a given table name, following the upsert setting
      *
      * @param tableName table name to receive data
+     * @param rows      number of shots the statement inserts
+     * @return String of SQL
+     */
+    private String createShotInsertSQL(String tableName, int rows) {
+        return createShotInsertSQL(tableName, upsertEnabled, rows);
+    }
+
+    /**
+     * Generates bulk of SQL INSERT statement for a given table name
+     *
+     * @param tableName      table name to receive data
+     * @param ignoreExisting if shots already in the table should be skipped instead of failing
+     * @param rows           number of shots the statement inserts
      * @return String of SQL
      */
-    private String createShotInsertSQL(String tableName) {
-        return "INSERT INTO " + tableName
+    private String createShotInsertSQL(String tableName, boolean ignoreExisting, int rows) {
+        StringBuilder sql = new StringBuilder(
+(ignoreExisting ? "INSERT IGNORE INTO " : "INSERT INTO ") + tableName
                 + "(uniqueshotid,playerid,playerlast,playerfirst,season,"
                 + "seasontype,gameid,gameeventid,calendar,clock,"
                 + "minutes,seconds,x,y,distance,"
                 + "make,period,shottype,playtype,teamid,"
                 + "teamname,awayteamid,awayteamname,hometeamid,hometeamname,"
                 + "athome,shotzonebasic,shotzonearea,shotzonerange )"
-                + "VALUES(?,?,?,?,?"
-                + ",?,?,?,?,?"
-                + ",?,?,?,?,?"
-                + ",?,?,?,?,?"
-                + ",?,?,?,?,?"
-                + ",?,?,?,?)";
+                + "VALUES");
+        for (int row = 0; row < rows; row++) {
+            sql.append(row == 0 ? "" : ",").append("(?,?,?,?,?"
+                    + ",?,?,?,?,?"
+                    + ",?,?,?,?,?"
+                    + ",?,?,?,?,?"
+                    + ",?,?,?,?,?"
+                    + ",?,?,?,?)");
+        }
+        return sql.toString();
     }
 
     /**
      * Organizes shot data for database entry
+     * <p>
+     * Shots are bound into one multi-row insert for each table and sent every scraper.writers.batch-size shots, so a season takes a
+     * few round trips instead of one for each shot and table. With scraper.writers.upsert, shots already in a table are ignored by the
+     * database, and the new shots are counted from the rows each insert into the season table reports affected
      *
      * @param playerTableName       player table name
      * @param firstNameOrig         player's real first name
      * @param lastNameOrig          player's real last name
      * @param year                  year
      * @param seasonType            season type
-     * @param allShotsAsJSONArray   array of all shots scraped for the current parameters
+     * @param allShots              all shots scraped for the current parameters
      * @param existingUniqueShotIDs set of all shots already in database
      * @param connShots1            connection to first shot database
      * @param connShots2            connection to second shot database
+     * @return false if the shutdown deadline passed before every shot was added
+     * @throws SQLException If preparing or sending the inserts fails, leaving the season for the caller to roll back
      */
-    protected void insertShots(String playerTableName, String firstNameOrig, String lastNameOrig, String year, String seasonType, JSONArray allShotsAsJSONArray, HashSet<String> existingUniqueShotIDs,
-                               Connection connShots1, Connection connShots2) {
-        try {
+    protected boolean insertShots(String playerTableName, String firstNameOrig, String lastNameOrig, String year, String seasonType, ShotBatch allShots, HashSet<String> existingUniqueShotIDs,
+                               Connection connShots1, Connection connShots2) throws SQLException {
+        boolean separateDatabases = connShots1 != connShots2;
+        //MySQL allows at most 65535 parameters in one statement
+        int rowsPerInsert = Math.min(batchSize, 65535 / ShotColumnBinder.getColumnCount());
+        try (PreparedStatement seasonStmt1 = connShots1.prepareStatement(createShotInsertSQL(playerTableName, rowsPerInsert));
+             PreparedStatement allShotsStmt1 = connShots1.prepareStatement(createShotInsertSQL("all_shots", rowsPerInsert));
+             PreparedStatement seasonStmt2 = separateDatabases ? connShots2.prepareStatement(createShotInsertSQL(playerTableName, rowsPerInsert)) : null;
+             PreparedStatement allShotsStmt2 = separateDatabases ? connShots2.prepareStatement(createShotInsertSQL("all_shots", rowsPerInsert)) : null) {
             ArrayList<PreparedStatement> allPreparedStatements = new ArrayList<>();
-            allPreparedStatements.add(connShots1.prepareStatement(createShotInsertSQL(playerTableName)));
-            allPreparedStatements.add(connShots1.prepareStatement(createShotInsertSQL("all_shots")));
-            if (connShots1 != connShots2) {
-                allPreparedStatements.add(connShots2.prepareStatement(createShotInsertSQL(playerTableName)));
-                allPreparedStatements.add(connShots2.prepareStatement(createShotInsertSQL("all_shots")));
+            allPreparedStatements.add(seasonStmt1);
+            allPreparedStatements.add(allShotsStmt1);
+            if (separateDatabases) {
+                allPreparedStatements.add(seasonStmt2);
+                allPreparedStatements.add(allShotsStmt2);
             }
+            ShotColumnBinder binder = new ShotColumnBinder(this::findTeamId, firstNameOrig, lastNameOrig, year, seasonType);
             HashSet<String> newUniqueIds = new HashSet<>();
+            //Index in allShots of the shot bound to each row of the inserts
+            int[] boundShots = new int[rowsPerInsert];
+            int boundRows = 0;
+            long added = 0;
             //Iterate through all gathered shot data and filter out shots already in database
-            JSONArray eachShotJSONArray;
-            for (int index = 0; index < allShotsAsJSONArray.length(); index++) {
-                eachShotJSONArray = allShotsAsJSONArray.getJSONArray(index);
-                String uniqueID = eachShotJSONArray.getInt(3) + "-" + eachShotJSONArray.getInt(1) + "-" + eachShotJSONArray.getInt(2);
-                if (!existingUniqueShotIDs.contains(uniqueID)) {
-                    for (int i = 0; i < eachShotJSONArray.length(); i++) {
-                        try {
-                            //Format shot data for prepared statement
-                            //Some values are recorded as integers, some as strings
-                            switch (i) {
-                                //UniqueID instead of default value from source
-                                case 0:
-                                    insertParametersIntoAllPreparedStatements(allPreparedStatements, "string", 1, uniqueID);
-                                    break;
-                                //Normal strings
-                                case 1:
-                                case 6:
-                                case 11:
-                                case 12:
-                                case 13:
-                                case 14:
-                                case 15:
-                                    insertParametersIntoAllPreparedStatements(allPreparedStatements, "string", MAP_JSON_ARRAY_INDEX_TO_PS_INDEX.get(i), eachShotJSONArray.getString(i));
-                                    break;
-                                //Normal Integers
-                                case 2:
-                                case 3:
-                                case 5:
-                                case 7:
-                                case 8:
-                                case 9:
-                                case 16:
-                                case 17:
-                                case 18:
-                                    insertParametersIntoAllPreparedStatements(allPreparedStatements, "integer", MAP_JSON_ARRAY_INDEX_TO_PS_INDEX.get(i), eachShotJSONArray.getInt(i) + "");
-                                    break;
-                                //Makes
-                                case 10:
-                                    insertParametersIntoAllPreparedStatements(allPreparedStatements, "integer", MAP_JSON_ARRAY_INDEX_TO_PS_INDEX.get(i), eachShotJSONArray.getString(i).contains("Made") ? "1" : "0");
-                                    break;
-                                //Dates
-                                case 21:
-                                    insertParametersIntoAllPreparedStatements(allPreparedStatements, "date", MAP_JSON_ARRAY_INDEX_TO_PS_INDEX.get(i), eachShotJSONArray.getString(i));
-                                    break;
-                                //Home and away team names
-                                case 22:
-                                case 23:
-                                    insertParametersIntoAllPreparedStatements(allPreparedStatements, "string", MAP_JSON_ARRAY_INDEX_TO_PS_INDEX.get(i), eachShotJSONArray.getString(i));
-                                    int homeID = -1;
-                                    //Team IDs
-                                    //If team abbreviation is a special abbreviation
-                                    if (specialTeams.containsKey(eachShotJSONArray.getString(i))) {
-                                        homeID = this.teamAbbrMap.get(specialTeams.get(eachShotJSONArray.getString(i)));
-                                        insertParametersIntoAllPreparedStatements(allPreparedStatements, "integer", MAP_JSON_ARRAY_INDEX_TO_PS_INDEX.get(i) - 1, this.teamAbbrMap.get(specialTeams.get(eachShotJSONArray.getString(i))) + "");
-                                    } else if (this.teamAbbrMap.containsKey(eachShotJSONArray.getString(i))) {
-                                        //Normal team abbreviation
-                                        homeID = this.teamAbbrMap.get(eachShotJSONArray.getString(i));
-                                        insertParametersIntoAllPreparedStatements(allPreparedStatements, "integer", MAP_JSON_ARRAY_INDEX_TO_PS_INDEX.get(i) - 1, this.teamAbbrMap.get(eachShotJSONArray.getString(i)) + "");
-                                    } else {
-                                        //If unknown or missing abbreviation, insert -1
-                                        insertParametersIntoAllPreparedStatements(allPreparedStatements, "integer", MAP_JSON_ARRAY_INDEX_TO_PS_INDEX.get(i) - 1, "-1");
-                                    }
-                                    //At home (1=true, 0=false)
-                                    if (i == 22) {
-                                        insertParametersIntoAllPreparedStatements(allPreparedStatements, "integer", 26, (eachShotJSONArray.getInt(5) == homeID) ? "1" : "0");
-                                    }
-                                    break;
-                            }
-                        } catch (Exception ex) {
-                            LOGGER.error(ex.getMessage());
-                        }
-                    }
+            ShotRecord shot = new ShotRecord();
+            for (int index = 0; index < allShots.size(); index++) {
+                if (shutdown.isPastDeadline()) {
+                    return false;
+                }
+                allShots.readInto(index, shot);
+                String uniqueID = shot.getUniqueShotId();
+                if (!existingUniqueShotIDs.contains(uniqueID) && !newUniqueIds.contains(uniqueID)) {
                     try {
-                        //Last name
-                        insertParametersIntoAllPreparedStatements(allPreparedStatements, "string", 3, lastNameOrig);
-                        //First name
-                        insertParametersIntoAllPreparedStatements(allPreparedStatements, "string", 4, firstNameOrig);
-                        //Year
-                        insertParametersIntoAllPreparedStatements(allPreparedStatements, "string", 5, year);
-                        //Season Type
-                        insertParametersIntoAllPreparedStatements(allPreparedStatements, "string", 6, seasonType);
-                        //Time
-                        String secondsFormat = eachShotJSONArray.getInt(9) < 10 ? "0" + eachShotJSONArray.getInt(9) : eachShotJSONArray.getInt(9) + "";
-                        insertParametersIntoAllPreparedStatements(allPreparedStatements, "time", 10, String.format("%d:", eachShotJSONArray.getInt(8)) + secondsFormat);
-                    } catch (Exception ex) {
+                        binder.bind(shot, uniqueID, allPreparedStatements, boundRows);
+                    } catch (SQLException ex) {
+                        //The next shot is bound over this row, so this shot is left out
                         LOGGER.error(ex.getMessage());
+                        continue;
                     }
-                    //Execute PreparedStatements
-                    if (!newUniqueIds.contains(uniqueID)) {
-                        newUniqueIds.add(uniqueID);
-                        for (PreparedStatement stmt : allPreparedStatements) {
-                            try {
-                                stmt.execute();
-                            } catch (SQLException ex) {
-                                LOGGER.error(ex.getMessage());
-                            }
-                        }
+                    newUniqueIds.add(uniqueID);
+                    boundShots[boundRows++] = index;
+                    if (boundRows == rowsPerInsert) {
+                        added += executeAllInserts(allPreparedStatements);
+                        boundRows = 0;
                     }
                 }
             }
-            LOGGER.info("\nTABLE NAME: " + playerTableName + "\n          TOTAL SHOTS: " + (newUniqueIds.size() + existingUniqueShotIDs.size()) + "\n" + "          NEW SHOTS ADDED: " + newUniqueIds.size());
-            totalNewShotsAdded += newUniqueIds.size();
-        } catch (Exception ex) {
-            LOGGER.error(ex.getMessage());
+            if (boundRows > 0) {
+                added += insertRemainingShots(playerTableName, allShots, boundShots, boundRows, binder, connShots1, separateDatabases ? connShots2 : null);
+            }
+            //Shots in the table are only known when they were read before inserting
+            String totalShots = upsertEnabled ? "" : "          TOTAL SHOTS: " + (added + existingUniqueShotIDs.size()) + "\n";
+            LOGGER.info("\nTABLE NAME: " + playerTableName + "\n" + totalShots + "          NEW SHOTS ADDED: " + added);
+            totalNewShotsAdded += (int) added;
         }
+        return true;
     }
 
     /**
-     * Inserts parameters of various types into prepared statements
+     * Inserts the shots left over after the last full insert with statements sized for them
      *
-     * @param statements     list of all prepared statements
-     * @param dataType       data type of value, as a String
-     * @param parameterIndex index of prepared statement where value should be inserted
-     * @param value          the data to be inserted into prepared statement
-     * @throws SQLException   If setting prepared statement fails
-     * @throws ParseException If parsing date or time fails
+     * @param playerTableName player table name
+     * @param allShots        all shots scraped for the current parameters
+     * @param boundShots      index in allShots of each shot left over
+     * @param rows            number of shots left over
+     * @param binder          binder for the season
+     * @param connShots1      connection to first shot database
+     * @param connShots2      connection to second shot database, or null if there is only one
+     * @return rows the season table reports added
+     * @throws SQLException If binding or sending the inserts fails
      */
-    protected void insertParametersIntoAllPreparedStatements(ArrayList<PreparedStatement> statements, String dataType, int parameterIndex, String value) throws SQLException, ParseException {
-        DateFormat dateFormatter = new SimpleDateFormat("yyyyMMdd");
-        dateFormatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-        DateFormat timeFormatter = new SimpleDateFormat("mm:ss");
-        timeFormatter.setTimeZone(TimeZone.getTimeZone("UTC"));
-        for (PreparedStatement statement : statements) {
-            switch (dataType) {
-                case "string":
-                    statement.setString(parameterIndex, value);
-                    break;
-                case "integer":
-                    statement.setInt(parameterIndex, Integer.parseInt(value));
-                    break;
-                case "time":
-                    statement.setTime(parameterIndex, new java.sql.Time(timeFormatter.parse(value).getTime()), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
-                    break;
-                case "date":
-                    statement.setDate(parameterIndex, new java.sql.Date(dateFormatter.parse(value).getTime()), Calendar.getInstance(TimeZone.getTimeZone("UTC")));
-                    break;
-                default:
-                    throw new NoSuchElementException("Invalid data type parameter");
+    private long insertRemainingShots(String playerTableName, ShotBatch allShots, int[] boundShots, int rows, ShotColumnBinder binder,
+                                      Connection connShots1, Connection connShots2) throws SQLException {
+        try (PreparedStatement seasonStmt1 = connShots1.prepareStatement(createShotInsertSQL(playerTableName, rows));
+             PreparedStatement allShotsStmt1 = connShots1.prepareStatement(createShotInsertSQL("all_shots", rows));
+             PreparedStatement seasonStmt2 = connShots2 != null ? connShots2.prepareStatement(createShotInsertSQL(playerTableName, rows)) : null;
+             PreparedStatement allShotsStmt2 = connShots2 != null ? connShots2.prepareStatement(createShotInsertSQL("all_shots", rows)) : null) {
+            ArrayList<PreparedStatement> allPreparedStatements = new ArrayList<>(List.of(seasonStmt1, allShotsStmt1));
+            if (connShots2 != null) {
+                allPreparedStatements.add(seasonStmt2);
+                allPreparedStatements.add(allShotsStmt2);
             }
+            ShotRecord shot = new ShotRecord();
+            for (int row = 0; row < rows; row++) {
+                allShots.readInto(boundShots[row], shot);
+                binder.bind(shot, shot.getUniqueShotId(), allPreparedStatements, row);
+            }
+            return executeAllInserts(allPreparedStatements);
+        }
+    }
+
+    /**
+     * Sends the multi-row insert bound on each statement
+     *
+     * @param allPreparedStatements statements with every row bound, the first being the season table
+     * @return rows the season table reports added, which leaves out shots an INSERT IGNORE skipped
+     * @throws SQLException If an insert fails
+     */
+    private long executeAllInserts(ArrayList<PreparedStatement> allPreparedStatements) throws SQLException {
+        long seasonAdded = 0;
+        for (int i = 0; i < allPreparedStatements.size(); i++) {
+            long updateCount = allPreparedStatements.get(i).executeLargeUpdate();
+            if (i == 0) {
+                seasonAdded = updateCount;
+            }
+        }
+        return seasonAdded;
+    }
+
+    /**
+     * Finds the team ID for a team abbreviation, including old abbreviations
+     *
+     * @param teamAbbr team abbreviation
+     * @return team ID, or -1 if the abbreviation is unknown or missing
+     */
+    private int findTeamId(String teamAbbr) {
+        //If team abbreviation is a special abbreviation
+        if (specialTeams.containsKey(teamAbbr)) {
+            return this.teamAbbrMap.get(specialTeams.get(teamAbbr));
+        } else if (this.teamAbbrMap.containsKey(teamAbbr)) {
+            //Normal team abbreviation
+            return this.teamAbbrMap.get(teamAbbr);
         }
+        return -1;
     }
 
     /**
-     * Fetches URL and get shot data
+     * Starts fetching shot data without waiting for the response
      *
-     * @param year   year
-     * @param id     player ID
-     * @param season season type
-     * @return list of shots gathered from URL, as JSONArrays, or null if the response is not received
+     * @param year                year
+     * @param id                  player ID
+     * @param season              season type
+     * @param hashBody            should hash the response so unchanged responses can be recognized on the next run
+     * @param previousContentHash hash of the response last saved for these parameters, or null
+     * @return future batch of shots gathered from URL, marked unchanged if the response matches previousContentHash, completing with null if the response is not received
+     * @throws InterruptedException If waiting for room in the fetch pipeline is interrupted
      */
-    private JSONArray searchForShots(String year, int id, String season) {
-        String url = "https://stats.nba.com/stats/shotchartdetail?AheadBehind=&CFID=33&CFPARAMS="
+    private CompletableFuture<ShotBatch> searchForShots(String year, int id, String season, boolean hashBody, String previousContentHash) throws InterruptedException {
+        String url = ScraperUtilsInterface.super.getStatsBaseUrl() + "/stats/shotchartdetail?AheadBehind=&CFID=33&CFPARAMS="
                 + year + "&ClutchTime=&Conference=&ContextFilter=&ContextMeasure=FGA&DateFrom=&DateTo=&Division=&EndPeriod=10&EndRange=28800&GROUP_ID=&GameEventID=&GameID=&GameSegment=&GroupID=&GroupMode=&GroupQuantity=5&LastNGames=0&LeagueID=00&Location=&Month=0&OnOff=&OpponentTeamID=0&Outcome=&PORound=0&Period=0&PlayerID="
                 + id + "&PlayerID1=&PlayerID2=&PlayerID3=&PlayerID4=&PlayerID5=&PlayerPosition=&PointDiff=&Position=&RangeType=0&RookieYear=&Season=&SeasonSegment=&SeasonType="
                 + season + "&ShotClockRange=&StartPeriod=1&StartRange=0&StarterBench=&TeamID=0&VsConference=&VsDivision=&VsPlayerID1=&VsPlayerID2=&VsPlayerID3=&VsPlayerID4=&VsPlayerID5=&VsTeamID=";
-        int exceptionRetryCounter = 0;
-        while (exceptionRetryCounter < 3) {
-            try {
-                String response = ScraperUtilsInterface.super.fetchSpecificURL(url);
-                LOGGER.debug("Response from " + url + ": " + response);
-                return new JSONObject(response).getJSONArray("resultSets").getJSONObject(0).getJSONArray("rowSet");
-            } catch (Exception ex) {
-                LOGGER.error(ex.getMessage());
-                exceptionRetryCounter++;
+        return AsyncFetchPipeline.getSharedInstance().submit(url, body -> {
+            if (!hashBody) {
+                //Pull shots straight from the decompressed stream without building the whole response in memory
+                ShotBatch shots = ShotChartParser.parse(body);
+                LOGGER.debug("Response from " + url + ": " + shots.size() + " shots");
+                return shots;
+            }
+            //A body from the cache, including one the server answered 304 for, is recognized by its hash without being read
+            String contentHash = ResponseCache.contentHashOf(body);
+            if (contentHash != null && contentHash.equals(previousContentHash)) {
+                return ShotBatch.unchanged(contentHash);
+            }
+            ShotBatch shots;
+            if (contentHash != null) {
+                shots = ShotChartParser.parse(body);
+            } else {
+                //Hash a new body as it streams through the parser so it is never held in memory
+                DigestInputStream digestingBody = new DigestInputStream(body, newResponseDigest());
+                shots = ShotChartParser.parse(digestingBody);
+                //The parser stops after the shots, so read the rest to hash the whole body
+                digestingBody.transferTo(OutputStream.nullOutputStream());
+                contentHash = String.format("%064x", new BigInteger(1, digestingBody.getMessageDigest().digest()));
+                if (contentHash.equals(previousContentHash)) {
+                    //Unchanged, so the shots are never compared against the database
+                    return ShotBatch.unchanged(contentHash);
+                }
             }
+            shots.setContentHash(contentHash);
+            LOGGER.debug("Response from " + url + ": " + shots.size() + " shots");
+            return shots;
+        }).exceptionally(ex -> {
+            LOGGER.error("Giving up on " + url + ": " + ex.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Creates the SHA-256 digest response bodies are hashed with, matching the hashes the response cache stores bodies under
+     *
+     * @return the digest
+     */
+    private static MessageDigest newResponseDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            //Every JVM is required to support SHA-256
+            throw new IllegalStateException(ex);
         }
-        return null;
     }
 
     /**
@@ -539,7 +815,11 @@ public class ShotScraper implements ScraperUtilsInterface {
                 + "DEFAULT CHARSET=utf8mb4\n"
                 + "COLLATE=utf8mb4_0900_ai_ci";
         connShots1.prepareStatement(createAllShotTable).execute();
-        connShots2.prepareStatement(createAllShotTable).execute();
+        if (shotReplica != null) {
+            shotReplica.enqueue(createAllShotTable);
+        } else if (connShots1 != connShots2) {
+            connShots2.prepareStatement(createAllShotTable).execute();
+        }
     }
 
     /**
@@ -588,6 +868,10 @@ public class ShotScraper implements ScraperUtilsInterface {
                 + "DEFAULT CHARSET=utf8mb4\n"
                 + "COLLATE=utf8mb4_0900_ai_ci";
         connShots1.prepareStatement(createTable).execute();
-        connShots2.prepareStatement(createTable).execute();
+        if (shotReplica != null) {
+            shotReplica.enqueue(createTable);
+        } else if (connShots1 != connShots2) {
+            connShots2.prepareStatement(createTable).execute();
+        }
     }
 }
\ No newline at end of file
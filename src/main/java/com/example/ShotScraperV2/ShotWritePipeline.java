@@ -0,0 +1,248 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.ScrapeTask;
+import com.example.ShotScraperV2.nbaobjects.ShotBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Second stage of the shot scrape: a pool of database writers draining parsed shot batches from a bounded queue
+ * <p>
+ * Fetch workers hand each season off here instead of saving it themselves, so downloads and inserts overlap. When MySQL falls behind,
+ * the queue fills and put blocks the fetchers until a writer catches up. The writers are sized by scraper.writers.count and the queue by
+ * scraper.writers.queue-capacity, separately from the fetch workers. If every writer has stopped, put and finish stop waiting for room
+ */
+public class ShotWritePipeline implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShotWritePipeline.class);
+    /**
+     * Placed once per writer to tell it the fetchers are done
+     */
+    private static final Job FINISHED = new Job(null, null, false);
+    /**
+     * How often a full queue is checked for writers that are still running
+     */
+    private static final long LIVENESS_CHECK_MILLIS = 500;
+
+    /**
+     * Saves the seasons taken from the queue, one instance per writer thread
+     */
+    public interface Writer {
+        /**
+         * Saves one season of shots
+         *
+         * @param task              the season searched
+         * @param shots             the shots found, or null if the response was not received
+         * @param onlyCurrentSeason if only new shots should be added to an existing table
+         * @throws Exception If saving fails
+         */
+        void write(ScrapeTask task, ShotBatch shots, boolean onlyCurrentSeason) throws Exception;
+
+        /**
+         * Releases the writer's resources once the queue is drained
+         */
+        void close();
+    }
+
+    private static class Job {
+        private final ScrapeTask task;
+        private final ShotBatch shots;
+        private final boolean onlyCurrentSeason;
+
+        private Job(ScrapeTask task, ShotBatch shots, boolean onlyCurrentSeason) {
+            this.task = task;
+            this.shots = shots;
+            this.onlyCurrentSeason = onlyCurrentSeason;
+        }
+    }
+
+    private final BlockingQueue<Job> queue;
+    private final int writerCount;
+    private final Supplier<Writer> writerFactory;
+    private final ArrayList<Thread> writerThreads = new ArrayList<>();
+    private final AtomicInteger liveWriters = new AtomicInteger();
+    /**
+     * Seasons taken from the queue but not saved because a requested stop ran past its deadline
+     */
+    private final List<ScrapeTask> unsaved = Collections.synchronizedList(new ArrayList<>());
+    private final ShutdownCoordinator shutdown = ShutdownCoordinator.getSharedInstance();
+
+    /**
+     * Creates a pipeline whose writers save through a ShotScraper using the shared connection pools
+     *
+     * @param schemaShots1   first shot schema alias
+     * @param schemaShots2   second shot schema alias
+     * @param schemaPlayers1 first player schema alias
+     * @param schemaPlayers2 second player schema alias
+     */
+    public ShotWritePipeline(String schemaShots1, String schemaShots2, String schemaPlayers1, String schemaPlayers2) {
+        this(0, 0, () -> new DatabaseWriter(schemaShots1, schemaShots2, schemaPlayers1, schemaPlayers2));
+    }
+
+    /**
+     * @param writerCount   number of writer threads, or 0 to read scraper.writers.count
+     * @param capacity      most batches waiting to be saved, or 0 to read scraper.writers.queue-capacity
+     * @param writerFactory creates the writer for each writer thread
+     */
+    ShotWritePipeline(int writerCount, int capacity, Supplier<Writer> writerFactory) {
+        this.writerCount = writerCount > 0 ? writerCount
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.writers.count", "2"));
+        this.queue = new ArrayBlockingQueue<>(capacity > 0 ? capacity
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.writers.queue-capacity", "32")));
+        this.writerFactory = writerFactory;
+    }
+
+    /**
+     * Starts the writer threads
+     */
+    public void start() {
+        liveWriters.addAndGet(writerCount);
+        for (int i = 0; i < writerCount; i++) {
+            Thread thread = new Thread(this::drain, "shot-writer-" + i);
+            writerThreads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Queues a season to be saved, waiting while the queue is full
+     *
+     * @param task              the season searched
+     * @param shots             the shots found, or null if the response was not received
+     * @param onlyCurrentSeason if only new shots should be added to an existing table
+     * @throws InterruptedException  If interrupted while waiting for room in the queue
+     * @throws IllegalStateException If every writer has stopped, so the queue would never have room
+     */
+    public void put(ScrapeTask task, ShotBatch shots, boolean onlyCurrentSeason) throws InterruptedException {
+        if (!offer(new Job(task, shots, onlyCurrentSeason))) {
+            throw new IllegalStateException("No shot writers left to save " + task.getShotTableName());
+        }
+    }
+
+    /**
+     * Waits for room in the queue while any writer is still running
+     *
+     * @param job the job to queue
+     * @return false if every writer stopped before the job was queued
+     * @throws InterruptedException If interrupted while waiting for room in the queue
+     */
+    private boolean offer(Job job) throws InterruptedException {
+        while (liveWriters.get() > 0) {
+            if (queue.offer(job, LIVENESS_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lets the writers save what is left in the queue and waits for them to stop. If a requested stop runs past its deadline,
+     * the writers are interrupted and whatever they have not saved is handed back
+     *
+     * @return seasons that were queued but not saved
+     * @throws InterruptedException If interrupted while waiting for the writers
+     */
+    public List<ScrapeTask> finish() throws InterruptedException {
+        for (int i = 0; i < writerThreads.size(); i++) {
+            //Writers that stopped on their own do not need telling
+            if (!offer(FINISHED)) {
+                break;
+            }
+        }
+        shutdown.joinAll(writerThreads);
+        writerThreads.clear();
+        ArrayList<Job> left = new ArrayList<>();
+        queue.drainTo(left);
+        ArrayList<ScrapeTask> tasks = new ArrayList<>(unsaved);
+        unsaved.clear();
+        for (Job job : left) {
+            if (job != FINISHED) {
+                tasks.add(job.task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Saves batches until told the fetchers are done
+     */
+    private void drain() {
+        Writer writer = null;
+        Job job = null;
+        try {
+            writer = writerFactory.get();
+            while (true) {
+                job = queue.take();
+                if (job == FINISHED) {
+                    break;
+                }
+                if (shutdown.isPastDeadline()) {
+                    unsaved.add(job.task);
+                    continue;
+                }
+                try {
+                    writer.write(job.task, job.shots, job.onlyCurrentSeason);
+                } catch (Exception ex) {
+                    LOGGER.error(ex.getMessage());
+                }
+                job = null;
+            }
+        } catch (InterruptedException ex) {
+            //Interrupted at the shutdown deadline, finish hands back what is left in the queue
+            Thread.currentThread().interrupt();
+        } catch (Throwable ex) {
+            LOGGER.error("Shot writer " + Thread.currentThread().getName() + " stopped: " + ex);
+            if (job != null && job != FINISHED) {
+                unsaved.add(job.task);
+            }
+        } finally {
+            liveWriters.decrementAndGet();
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    public int getWriterCount() {
+        return writerCount;
+    }
+
+    public int getLiveWriterCount() {
+        return liveWriters.get();
+    }
+
+    /**
+     * Writer that saves into both shot databases through its own ShotScraper, borrowing pooled connections for each season
+     */
+    private static class DatabaseWriter implements Writer {
+        private final ShotScraper shotScraper;
+
+        private DatabaseWriter(String schemaShots1, String schemaShots2, String schemaPlayers1, String schemaPlayers2) {
+            shotScraper = new ShotScraper(schemaShots1, schemaShots2, schemaPlayers1, schemaPlayers2,
+                    new IndividualPlayerScraper(schemaPlayers1, schemaPlayers2));
+        }
+
+        @Override
+        public void write(ScrapeTask task, ShotBatch shots, boolean onlyCurrentSeason) throws SQLException {
+            shotScraper.saveSeason(task, shots, onlyCurrentSeason);
+        }
+
+        @Override
+        public void close() {
+            //Connections are borrowed for each season and the shots added are already in the run statistics
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.ShotScraperV2;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stops a scrape run early without losing or corrupting the work already done
+ * <p>
+ * Once a stop is requested the queues stop handing out work, and the workers and writers have until the deadline,
+ * scraper.shutdown.deadline-seconds, to finish the seasons they started. After the deadline they are interrupted, a season being saved
+ * is rolled back, and every season not saved is left unfinished in the journal for the next run to resume. The shutdown hook requests
+ * a stop when the JVM is asked to exit and holds the exit until the run has wound down
+ */
+public class ShutdownCoordinator implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShutdownCoordinator.class);
+    private static volatile ShutdownCoordinator sharedInstance;
+    /**
+     * How often threads being joined are checked while no stop is requested
+     */
+    private static final long JOIN_POLL_MILLIS = 1000;
+    /**
+     * Extra time the shutdown hook waits after the deadline for interrupted threads to flush
+     */
+    private static final long HOOK_GRACE_MILLIS = 5000;
+
+    private final long deadlineMillis;
+    private final AtomicBoolean hookInstalled = new AtomicBoolean(false);
+    private volatile boolean stopRequested = false;
+    private volatile long deadlineNanos;
+    private volatile CountDownLatch runFinished = new CountDownLatch(0);
+
+    /**
+     * Gets the coordinator shared by the whole scraper
+     *
+     * @return the shared coordinator
+     */
+    public static ShutdownCoordinator getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (ShutdownCoordinator.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new ShutdownCoordinator(0);
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * @param deadlineMillis time given to started work after a stop is requested, or 0 to read scraper.shutdown.deadline-seconds
+     */
+    ShutdownCoordinator(long deadlineMillis) {
+        this.deadlineMillis = deadlineMillis > 0 ? deadlineMillis
+                : TimeUnit.SECONDS.toMillis(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.shutdown.deadline-seconds", "30")));
+    }
+
+    /**
+     * Requests a stop when the JVM begins to exit, such as on SIGTERM, and keeps it alive until the run has wound down
+     */
+    public void installShutdownHook() {
+        if (hookInstalled.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (runFinished.getCount() == 0) {
+                    return;
+                }
+                requestStop("JVM shutdown");
+                try {
+                    if (!awaitRunFinished(getMillisUntilDeadline() + HOOK_GRACE_MILLIS)) {
+                        LOGGER.error("Run did not stop before the shutdown deadline");
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "scrape-shutdown"));
+        }
+    }
+
+    /**
+     * Requests a stop with the configured deadline
+     *
+     * @param reason why the run is stopping, for the log
+     */
+    public void requestStop(String reason) {
+        requestStop(reason, deadlineMillis);
+    }
+
+    /**
+     * Stops handing out work and gives started work until the deadline to finish. Later requests keep the first deadline
+     *
+     * @param reason         why the run is stopping, for the log
+     * @param deadlineMillis time given to started work
+     */
+    public synchronized void requestStop(String reason, long deadlineMillis) {
+        if (stopRequested) {
+            return;
+        }
+        deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+        stopRequested = true;
+        LOGGER.info("Stopping run (" + reason + "), started seasons have " + deadlineMillis + " ms to finish");
+    }
+
+    public boolean isStopRequested() {
+        return stopRequested;
+    }
+
+    /**
+     * @return true if a stop was requested and its deadline has passed, so started work should be abandoned
+     */
+    public boolean isPastDeadline() {
+        return stopRequested && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * @return milliseconds left before the deadline, 0 once it has passed, or Long.MAX_VALUE if no stop was requested
+     */
+    public long getMillisUntilDeadline() {
+        if (!stopRequested) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+    }
+
+    /**
+     * Marks a run as started so the shutdown hook waits for it
+     */
+    public void runStarted() {
+        runFinished = new CountDownLatch(1);
+    }
+
+    /**
+     * Marks the run as finished, after its progress and stats have been flushed
+     */
+    public void runFinished() {
+        runFinished.countDown();
+    }
+
+    /**
+     * Waits for the run to finish
+     *
+     * @param timeoutMillis most time to wait
+     * @return true if the run finished
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public boolean awaitRunFinished(long timeoutMillis) throws InterruptedException {
+        return runFinished.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Waits for threads to end, interrupting all of them once the deadline of a requested stop has passed
+     *
+     * @param threads started threads
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public void joinAll(List<Thread> threads) throws InterruptedException {
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                if (!interrupted && isPastDeadline()) {
+                    LOGGER.info("Shutdown deadline passed, interrupting " + threads.size() + " threads");
+                    threads.forEach(Thread::interrupt);
+                    interrupted = true;
+                }
+                //Once interrupted the threads only need to unwind
+                thread.join(interrupted ? 0 : Math.max(1, Math.min(JOIN_POLL_MILLIS, getMillisUntilDeadline())));
+            }
+        }
+    }
+}
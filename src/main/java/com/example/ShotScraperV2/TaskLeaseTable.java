@@ -0,0 +1,330 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.Player;
+import com.example.ShotScraperV2.nbaobjects.ScrapeTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared table of shot seasons that several scraper instances claim work from
+ * <p>
+ * Every instance publishes the seasons it expands into scrape_tasks in the player schema. Each claim takes a lease of
+ * scraper.lease.seconds on a few seasons that no other instance holds, and a heartbeat extends the leases while this instance is alive.
+ * If an instance dies its leases run out and the seasons are claimed again by the others
+ * <p>
+ * Every operation borrows its own connection and returns it when done, so a dropped connection only fails that operation
+ */
+public class TaskLeaseTable implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskLeaseTable.class);
+    /**
+     * Opens a connection to the player schema for one operation
+     */
+    private final Callable<Connection> connections;
+    private final String run, owner;
+    private final int leaseSeconds, maxAttempts;
+    private final ScheduledExecutorService heartbeat;
+
+    /**
+     * Connects to the task table, creating it if necessary, and starts the heartbeat
+     *
+     * @param schemaPlayersAlias alias of the player schema holding the table
+     * @param run                name shared by every instance working on the same run
+     * @throws SQLException If connecting or creating the table fails
+     */
+    public TaskLeaseTable(String schemaPlayersAlias, String run) throws SQLException {
+        this(() -> ConnectionPools.getDataSource(schemaPlayersAlias).getConnection(), run, 0, 0);
+    }
+
+    /**
+     * @param connections  opens a connection for each operation, which the table closes when the operation is done
+     * @param run          name shared by every instance working on the same run
+     * @param leaseSeconds how long a claim lasts without a heartbeat, or 0 to read scraper.lease.seconds
+     * @param maxAttempts  claims a season gets before it is marked failed, or 0 to read scraper.lease.max-attempts
+     * @throws SQLException If creating the table fails
+     */
+    TaskLeaseTable(Callable<Connection> connections, String run, int leaseSeconds, int maxAttempts) throws SQLException {
+        this.connections = connections;
+        this.run = run;
+        this.owner = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        this.leaseSeconds = leaseSeconds > 0 ? leaseSeconds
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.lease.seconds", "120"));
+        this.maxAttempts = maxAttempts > 0 ? maxAttempts
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.lease.max-attempts", "5"));
+        createTaskTable();
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lease-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, this.leaseSeconds / 3);
+        heartbeat.scheduleAtFixedRate(this::extendLeases, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Creates the task table if it does not exist
+     *
+     * @throws SQLException If creating the table fails
+     */
+    private void createTaskTable() throws SQLException {
+        String createTable = "CREATE TABLE IF NOT EXISTS scrape_tasks (\n"
+                + "  `run` varchar(60) NOT NULL,\n"
+                + "  `shottable` varchar(150) NOT NULL,\n"
+                + "  `priority` int NOT NULL,\n"
+                + "  `playerid` int NOT NULL,\n"
+                + "  `lastname` varchar(45) NOT NULL,\n"
+                + "  `firstname` varchar(45) DEFAULT NULL,\n"
+                + "  `currentlyactive` int NOT NULL,\n"
+                + "  `firstactiveyear` varchar(10) DEFAULT NULL,\n"
+                + "  `mostrecentactiveyear` varchar(10) DEFAULT NULL,\n"
+                + "  `season` varchar(10) NOT NULL,\n"
+                + "  `seasontype` varchar(20) NOT NULL,\n"
+                + "  `status` varchar(10) NOT NULL DEFAULT 'QUEUED',\n"
+                + "  `owner` varchar(120) DEFAULT NULL,\n"
+                + "  `leaseexpires` timestamp NULL DEFAULT NULL,\n"
+                + "  `attempts` int NOT NULL DEFAULT 0,\n"
+                + "  PRIMARY KEY (`run`,`shottable`),\n"
+                + "  KEY `index_claim` (`run`,`status`,`priority`)\n"
+                + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci";
+        try (Connection conn = borrowConnection();
+             PreparedStatement stmt = conn.prepareStatement(createTable)) {
+            stmt.execute();
+        }
+    }
+
+    /**
+     * Borrows a connection for one operation
+     *
+     * @return the connection, to be closed by the caller
+     * @throws SQLException If connecting fails
+     */
+    private Connection borrowConnection() throws SQLException {
+        try {
+            return connections.call();
+        } catch (SQLException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new SQLException(ex);
+        }
+    }
+
+    /**
+     * Adds seasons to the run, leaving any season another instance already published untouched
+     *
+     * @param tasks seasons in the order they should be claimed
+     * @throws SQLException If inserting fails
+     */
+    public void publish(List<ScrapeTask> tasks) throws SQLException {
+        try (Connection conn = borrowConnection();
+             PreparedStatement stmtPurge = conn.prepareStatement("DELETE FROM scrape_tasks WHERE run <> ? AND status = 'DONE'");
+             PreparedStatement stmt = conn.prepareStatement("INSERT IGNORE INTO scrape_tasks (run,shottable,priority,playerid,lastname,firstname,currentlyactive,"
+                     + "firstactiveyear,mostrecentactiveyear,season,seasontype) VALUES (?,?,?,?,?,?,?,?,?,?,?)")) {
+            //Finished rows of earlier runs are no longer needed
+            stmtPurge.setString(1, run);
+            stmtPurge.execute();
+            publish(tasks, stmt);
+        }
+    }
+
+    /**
+     * Batches an insert of each season
+     *
+     * @param tasks seasons in the order they should be claimed
+     * @param stmt  the insert
+     * @throws SQLException If inserting fails
+     */
+    private void publish(List<ScrapeTask> tasks, PreparedStatement stmt) throws SQLException {
+        for (int priority = 0; priority < tasks.size(); priority++) {
+            ScrapeTask task = tasks.get(priority);
+            Player player = task.getPlayer();
+            stmt.setString(1, run);
+            stmt.setString(2, task.getShotTableName());
+            stmt.setInt(3, priority);
+            stmt.setInt(4, player.getPlayerId());
+            stmt.setString(5, player.getLastName());
+            stmt.setString(6, player.getFirstName());
+            stmt.setInt(7, player.getCurrentlyActive());
+            stmt.setString(8, player.getFirstActiveYear());
+            stmt.setString(9, player.getMostRecentActiveYear());
+            stmt.setString(10, task.getYear());
+            stmt.setString(11, task.getSeasonType());
+            stmt.addBatch();
+        }
+        stmt.executeBatch();
+    }
+
+    /**
+     * Claims seasons, waiting for seasons held by other instances to finish or for their leases to run out
+     *
+     * @param count most seasons to claim
+     * @return claimed seasons, empty only once every season of the run is done or held by this instance
+     * @throws SQLException         If a query fails
+     * @throws InterruptedException If interrupted while waiting for another instance's lease
+     */
+    public List<ScrapeTask> claim(int count) throws SQLException, InterruptedException {
+        while (true) {
+            List<ScrapeTask> claimed = tryClaim(count);
+            if (!claimed.isEmpty()) {
+                return claimed;
+            }
+            long waitMillis = getMillisUntilNextExpiry();
+            //Seasons held elsewhere are not worth waiting for once this instance is stopping
+            if (waitMillis < 0 || ShutdownCoordinator.getSharedInstance().isStopRequested()) {
+                return claimed;
+            }
+            Thread.sleep(Math.min(Math.max(waitMillis, 100), TimeUnit.SECONDS.toMillis(leaseSeconds)));
+        }
+    }
+
+    /**
+     * Claims queued seasons and seasons whose lease has run out, without waiting
+     *
+     * @param count most seasons to claim
+     * @return claimed seasons in priority order
+     * @throws SQLException If a query fails
+     */
+    List<ScrapeTask> tryClaim(int count) throws SQLException {
+        List<ScrapeTask> claimed = new ArrayList<>();
+        try (Connection conn = borrowConnection()) {
+            conn.setAutoCommit(false);
+            //SKIP LOCKED lets instances claim at the same time without waiting on each other's rows
+            try (PreparedStatement stmtSelect = conn.prepareStatement("SELECT * FROM scrape_tasks WHERE run = ? AND "
+                    + "(status = 'QUEUED' OR (status = 'CLAIMED' AND leaseexpires < CURRENT_TIMESTAMP)) ORDER BY priority LIMIT ? FOR UPDATE SKIP LOCKED");
+                 PreparedStatement stmtUpdate = conn.prepareStatement("UPDATE scrape_tasks SET status = 'CLAIMED', owner = ?, "
+                         + "leaseexpires = CURRENT_TIMESTAMP + INTERVAL ? SECOND, attempts = attempts + 1 WHERE run = ? AND shottable = ?")) {
+                stmtSelect.setString(1, run);
+                stmtSelect.setInt(2, count);
+                try (ResultSet rs = stmtSelect.executeQuery()) {
+                    while (rs.next()) {
+                        Player player = new Player(rs.getInt("playerid") + "", rs.getString("lastname"), rs.getString("firstname"),
+                                rs.getInt("currentlyactive") + "", rs.getString("firstactiveyear"), rs.getString("mostrecentactiveyear"));
+                        ScrapeTask task = new ScrapeTask(player, rs.getString("season"), rs.getString("seasontype"), rs.getString("shottable"));
+                        //A season claimed before may already hold some of its shots
+                        task.setResumed(rs.getInt("attempts") > 0);
+                        claimed.add(task);
+                        stmtUpdate.setString(1, owner);
+                        stmtUpdate.setInt(2, leaseSeconds);
+                        stmtUpdate.setString(3, run);
+                        stmtUpdate.setString(4, task.getShotTableName());
+                        stmtUpdate.addBatch();
+                    }
+                }
+                stmtUpdate.executeBatch();
+                conn.commit();
+            } catch (SQLException ex) {
+                conn.rollback();
+                throw ex;
+            } finally {
+                //The connection goes back to the pool the way it came
+                conn.setAutoCommit(true);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Finds how long until a season held by another instance could be claimed
+     *
+     * @return milliseconds until the earliest lease of another instance runs out, or -1 if no other instance holds a season
+     * @throws SQLException If the query fails
+     */
+    private long getMillisUntilNextExpiry() throws SQLException {
+        try (Connection conn = borrowConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*), MIN(leaseexpires), CURRENT_TIMESTAMP FROM scrape_tasks "
+                     + "WHERE run = ? AND (status = 'QUEUED' OR (status = 'CLAIMED' AND owner <> ?))")) {
+            stmt.setString(1, run);
+            stmt.setString(2, owner);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    Timestamp nextExpiry = rs.getTimestamp(2);
+                    //A queued season with no lease is only left if another instance just released it
+                    return nextExpiry == null ? 0 : Math.max(0, nextExpiry.getTime() - rs.getTimestamp(3).getTime());
+                }
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Marks a claimed season as saved
+     *
+     * @param task the season
+     */
+    public void complete(ScrapeTask task) {
+        updateStatus(task, "UPDATE scrape_tasks SET status = 'DONE', leaseexpires = NULL WHERE run = ? AND shottable = ? AND owner = ?");
+    }
+
+    /**
+     * Gives a claimed season back so it can be tried again, or marks it failed once it has used up its attempts
+     *
+     * @param task the season
+     */
+    public void release(ScrapeTask task) {
+        updateStatus(task, "UPDATE scrape_tasks SET status = IF(attempts >= " + maxAttempts + ", 'FAILED', 'QUEUED'), owner = NULL, leaseexpires = NULL "
+                + "WHERE run = ? AND shottable = ? AND owner = ?");
+    }
+
+    private void updateStatus(ScrapeTask task, String sql) {
+        try (Connection conn = borrowConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, run);
+            stmt.setString(2, task.getShotTableName());
+            stmt.setString(3, owner);
+            stmt.execute();
+        } catch (SQLException ex) {
+            LOGGER.error(ex.getMessage());
+        }
+    }
+
+    /**
+     * Extends the lease of every season this instance holds
+     */
+    private void extendLeases() {
+        //A fresh connection each beat, so a dropped one does not stop the leases from being kept
+        try (Connection conn = borrowConnection();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE scrape_tasks SET leaseexpires = CURRENT_TIMESTAMP + INTERVAL ? SECOND "
+                     + "WHERE run = ? AND owner = ? AND status = 'CLAIMED'")) {
+            stmt.setInt(1, leaseSeconds);
+            stmt.setString(2, run);
+            stmt.setString(3, owner);
+            stmt.execute();
+        } catch (SQLException ex) {
+            LOGGER.error(ex.getMessage());
+        }
+    }
+
+    /**
+     * Stops the heartbeat and gives back any seasons claimed but not started
+     *
+     * @param unstarted seasons claimed by this instance that were never worked on
+     */
+    public void close(List<ScrapeTask> unstarted) {
+        heartbeat.shutdownNow();
+        for (ScrapeTask task : unstarted) {
+            //Never worked on, so the claim does not count as an attempt
+            updateStatus(task, "UPDATE scrape_tasks SET status = 'QUEUED', owner = NULL, leaseexpires = NULL, attempts = attempts - 1 "
+                    + "WHERE run = ? AND shottable = ? AND owner = ?");
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getRun() {
+        return run;
+    }
+}
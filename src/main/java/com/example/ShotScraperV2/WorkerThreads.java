@@ -0,0 +1,200 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.http.AdaptiveRateController;
+import com.example.ShotScraperV2.http.AsyncFetchPipeline;
+import com.example.ShotScraperV2.http.RequestGovernor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the worker threads that poll the scrape queue
+ * <p>
+ * In platform mode there is one thread per core. In virtual mode there is one lightweight thread per queued player, up to
+ * scraper.workers.max-concurrent, so throughput is bounded by the request governor, the bulkheads, and the connection pools
+ * instead of by the core count. Without a configured limit, virtual mode starts as many workers as there can be requests outstanding:
+ * what the governor lets through within one request timeout, up to the fetch pipeline's in-flight limit. Workers that hold a
+ * connection are also kept within their pools. Virtual threads need Java 21; on older runtimes the same number of platform threads is used
+ */
+public class WorkerThreads implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkerThreads.class);
+    /**
+     * Thread.ofVirtual() and Thread.Builder.unstarted(Runnable), or null if the runtime has no virtual threads
+     */
+    private static final Method OF_VIRTUAL, UNSTARTED;
+
+    static {
+        Method ofVirtual = null, unstarted = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+        } catch (ReflectiveOperationException ex) {
+            //Runtime is older than Java 21
+        }
+        OF_VIRTUAL = ofVirtual;
+        UNSTARTED = unstarted;
+    }
+
+    private final boolean virtual;
+    private final int maxConcurrent;
+    private final ShutdownCoordinator shutdown = ShutdownCoordinator.getSharedInstance();
+    /**
+     * Workers of the run being joined, and the body more workers are started with, null between runs
+     */
+    private final ArrayList<Thread> threads = new ArrayList<>();
+    private Runnable worker;
+
+    /**
+     * Reads scraper.workers.mode (platform or virtual) and scraper.workers.max-concurrent
+     */
+    public WorkerThreads() {
+        this(null, 0);
+    }
+
+    /**
+     * @param virtual       true to run one worker per queued item, or null to read scraper.workers.mode
+     * @param maxConcurrent most workers at once in virtual mode, or 0 to read scraper.workers.max-concurrent, which when unset
+     *                      leaves the limit to the requests that can be outstanding
+     */
+    WorkerThreads(Boolean virtual, int maxConcurrent) {
+        this.virtual = virtual != null ? virtual
+                : ScraperUtilsInterface.super.getOptionalProperty("scraper.workers.mode", "platform").equalsIgnoreCase("virtual");
+        this.maxConcurrent = maxConcurrent > 0 ? maxConcurrent
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.workers.max-concurrent", "0"));
+        if (this.virtual && OF_VIRTUAL == null) {
+            LOGGER.warn("Virtual threads need Java 21, using platform threads for each worker");
+        }
+    }
+
+    /**
+     * Finds how many workers to start
+     *
+     * @param queuedItems number of items waiting in the queue
+     * @param poolAliases schema aliases of the pools each worker holds a connection from for its whole life
+     * @return one per core in platform mode, otherwise one per item up to the limit, never more than a pool can serve at once
+     */
+    public int getWorkerCount(int queuedItems, String... poolAliases) {
+        int workerCount = !virtual ? Runtime.getRuntime().availableProcessors()
+                : Math.max(1, Math.min(queuedItems, maxConcurrent > 0 ? maxConcurrent : getRequestBound()));
+        for (String poolAlias : poolAliases) {
+            //More workers would only wait for a connection until the pool times them out
+            workerCount = Math.min(workerCount, ConnectionPools.getMaximumPoolSize(poolAlias));
+        }
+        return workerCount;
+    }
+
+    /**
+     * Finds how many requests can be outstanding at once, since any more workers would only wait for one another
+     *
+     * @return requests the governor lets through within one request timeout, up to the fetch pipeline's in-flight limit
+     */
+    static int getRequestBound() {
+        RequestGovernor governor = RequestGovernor.getSharedInstance();
+        double perTimeout = governor.getBurstSize()
+                + governor.getPermitsPerSecond() * AdaptiveRateController.getSharedInstance().getTimeout().toMillis() / 1000.0;
+        return (int) Math.max(1, Math.min(AsyncFetchPipeline.getSharedInstance().getMaxInFlight(), Math.ceil(perTimeout)));
+    }
+
+    /**
+     * Runs the worker body on each worker and waits for all of them to finish, interrupting them if a requested stop runs past its deadline
+     *
+     * @param queuedItems number of items waiting in the queue
+     * @param worker      the worker body, which polls the queue until it is empty
+     * @throws InterruptedException If interrupted while waiting for the workers
+     */
+    public void runAndJoin(int queuedItems, Runnable worker) throws InterruptedException {
+        startAndJoin(getWorkerCount(queuedItems), queuedItems, worker);
+    }
+
+    /**
+     * Runs the worker body on each worker, each holding a connection from the given pools, and waits for all of them to finish
+     *
+     * @param queuedItems number of items waiting in the queue
+     * @param poolAliases schema aliases of the pools each worker holds a connection from
+     * @param worker      the worker body, which polls the queue until it is empty
+     * @throws InterruptedException If interrupted while waiting for the workers
+     */
+    public void runAndJoin(int queuedItems, List<String> poolAliases, Runnable worker) throws InterruptedException {
+        startAndJoin(getWorkerCount(queuedItems, poolAliases.toArray(new String[0])), queuedItems, worker);
+    }
+
+    /**
+     * Runs the worker body on a set number of workers and waits for all of them to finish, including any added by startMore
+     *
+     * @param workerCount number of workers to start
+     * @param queuedItems number of items waiting in the queue, for the log
+     * @param worker      the worker body, which polls the queue until it is empty
+     * @throws InterruptedException If interrupted while waiting for the workers
+     */
+    public void startAndJoin(int workerCount, int queuedItems, Runnable worker) throws InterruptedException {
+        LOGGER.info("Starting " + workerCount + (virtual && OF_VIRTUAL != null ? " virtual" : "") + " workers for " + queuedItems + " queued items");
+        synchronized (this) {
+            threads.clear();
+            this.worker = worker;
+        }
+        startMore(workerCount);
+        try {
+            while (true) {
+                ArrayList<Thread> joining;
+                synchronized (this) {
+                    joining = new ArrayList<>(threads);
+                }
+                shutdown.joinAll(joining);
+                synchronized (this) {
+                    //Done once no worker was added while joining
+                    if (threads.size() == joining.size()) {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            synchronized (this) {
+                this.worker = null;
+                threads.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds workers to the run being joined, doing nothing once it has ended
+     *
+     * @param workerCount number of workers to start
+     */
+    public synchronized void startMore(int workerCount) {
+        if (worker == null) {
+            return;
+        }
+        for (int i = 0; i < workerCount; i++) {
+            Thread thread = newThread(worker);
+            threads.add(thread);
+            thread.start();
+        }
+        if (!threads.isEmpty() && threads.size() > workerCount) {
+            LOGGER.info("Started " + workerCount + " more workers, " + threads.size() + " in total");
+        }
+    }
+
+    /**
+     * Creates an unstarted worker thread
+     *
+     * @param worker the worker body
+     * @return a virtual thread if enabled and available, otherwise a platform thread
+     */
+    Thread newThread(Runnable worker) {
+        if (virtual && OF_VIRTUAL != null) {
+            try {
+                return (Thread) UNSTARTED.invoke(OF_VIRTUAL.invoke(null), worker);
+            } catch (ReflectiveOperationException ex) {
+                LOGGER.error(ex.getMessage());
+            }
+        }
+        return new Thread(worker);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+}
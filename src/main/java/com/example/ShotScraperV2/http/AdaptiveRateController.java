@@ -0,0 +1,166 @@
+package com.example.ShotScraperV2.http;
+
+import com.example.ShotScraperV2.RunStatistics;
+import com.example.ShotScraperV2.ScraperUtilsInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Tunes the request governor from how the upstream server responds (additive increase, multiplicative decrease)
+ * <p>
+ * Fast successful responses slowly raise the allowed request rate. Timeouts, throttling statuses and unreadable bodies
+ * cut the rate by a constant factor. The request timeout follows the observed latency instead of a fixed value
+ */
+public class AdaptiveRateController implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveRateController.class);
+    private static volatile AdaptiveRateController sharedInstance;
+    private final RequestGovernor governor;
+    private final LongSupplier nanoClock;
+    private final double minRate, maxRate, increaseStep, decreaseFactor;
+    private final long latencyTargetNanos, decreaseCooldownNanos, minTimeoutNanos, maxTimeoutNanos;
+    private final int maxAttempts;
+    /**
+     * Smoothed response latency and its mean deviation, -1 until the first response
+     */
+    private double smoothedLatencyNanos = -1, latencyDeviationNanos = 0;
+    private long timeoutNanos;
+    private long lastDecreaseNanos;
+
+    /**
+     * Gets the controller attached to the shared request governor, creating it on first use
+     *
+     * @return the shared controller
+     */
+    public static AdaptiveRateController getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (AdaptiveRateController.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new AdaptiveRateController(RequestGovernor.getSharedInstance(), System::nanoTime);
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Creates a controller for a governor from the optional scraper.rate.* settings
+     *
+     * @param governor  the governor whose rate is adjusted
+     * @param nanoClock source of the current time in nanoseconds
+     */
+    AdaptiveRateController(RequestGovernor governor, LongSupplier nanoClock) {
+        this.governor = governor;
+        this.nanoClock = nanoClock;
+        this.minRate = Double.parseDouble(ScraperUtilsInterface.super.getOptionalProperty("scraper.rate.min-requests-per-second", "0.2"));
+        this.maxRate = Double.parseDouble(ScraperUtilsInterface.super.getOptionalProperty("scraper.rate.max-requests-per-second", "10"));
+        this.increaseStep = Double.parseDouble(ScraperUtilsInterface.super.getOptionalProperty("scraper.rate.increase-step", "0.25"));
+        this.decreaseFactor = Double.parseDouble(ScraperUtilsInterface.super.getOptionalProperty("scraper.rate.decrease-factor", "0.5"));
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.rate.latency-target-ms", "3000")));
+        this.decreaseCooldownNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.rate.decrease-cooldown-ms", "2000")));
+        this.minTimeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.http.min-request-timeout-seconds", "10")));
+        this.maxTimeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.http.request-timeout-seconds", "60")));
+        this.maxAttempts = Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.http.max-attempts", "3"));
+        this.timeoutNanos = maxTimeoutNanos;
+        this.lastDecreaseNanos = nanoClock.getAsLong() - decreaseCooldownNanos;
+    }
+
+    /**
+     * Records a usable response and raises the rate if it arrived quickly
+     *
+     * @param latencyNanos time between sending the request and receiving the body
+     */
+    public synchronized void recordSuccess(long latencyNanos) {
+        //Same smoothing as TCP retransmission timers
+        if (smoothedLatencyNanos < 0) {
+            smoothedLatencyNanos = latencyNanos;
+            latencyDeviationNanos = latencyNanos / 2.0;
+        } else {
+            latencyDeviationNanos = 0.75 * latencyDeviationNanos + 0.25 * Math.abs(smoothedLatencyNanos - latencyNanos);
+            smoothedLatencyNanos = 0.875 * smoothedLatencyNanos + 0.125 * latencyNanos;
+        }
+        timeoutNanos = Math.max(minTimeoutNanos, Math.min(maxTimeoutNanos, (long) (smoothedLatencyNanos + 4 * latencyDeviationNanos)));
+        if (latencyNanos <= latencyTargetNanos) {
+            //Spread the step over one second's worth of responses
+            double rate = governor.getPermitsPerSecond();
+            governor.setPermitsPerSecond(Math.min(maxRate, rate + increaseStep / Math.max(rate, 1)));
+        }
+    }
+
+    /**
+     * Records a request that timed out, backing off both the rate and the timeout
+     */
+    public synchronized void recordTimeout() {
+        timeoutNanos = Math.min(maxTimeoutNanos, timeoutNanos * 2);
+        decrease("timeout");
+    }
+
+    /**
+     * Records a throttling or server error status, an empty body, or a body that could not be parsed
+     *
+     * @param reason description for logging
+     */
+    public synchronized void recordFailure(String reason) {
+        decrease(reason);
+    }
+
+    /**
+     * Cuts the rate by the decrease factor, at most once per cooldown so a burst of in-flight failures counts once
+     *
+     * @param reason description for logging
+     */
+    private void decrease(String reason) {
+        long now = nanoClock.getAsLong();
+        if (now - lastDecreaseNanos < decreaseCooldownNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        double newRate = Math.max(minRate, governor.getPermitsPerSecond() * decreaseFactor);
+        governor.setPermitsPerSecond(newRate);
+        LOGGER.warn("Backing off after " + reason + ", request rate now " + String.format("%.2f", newRate) + "/s");
+    }
+
+    /**
+     * Gets the timeout for the next request
+     *
+     * @return request timeout
+     */
+    public synchronized Duration getTimeout() {
+        return Duration.ofNanos(timeoutNanos);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Finds how long to wait before the next attempt, growing exponentially with random jitter
+     *
+     * @param attempt the attempt that just failed, starting at 1
+     * @return milliseconds to wait
+     */
+    public long getRetryDelayMillis(int attempt) {
+        long ceiling = Math.min(30000, 1000L << Math.min(attempt, 5));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    /**
+     * Sleeps before retrying a failed request
+     *
+     * @param attempt the attempt that just failed, starting at 1
+     * @return true if another attempt should be made
+     * @throws InterruptedException If the wait is interrupted
+     */
+    public boolean pauseBeforeRetry(int attempt) throws InterruptedException {
+        if (attempt >= maxAttempts) {
+            return false;
+        }
+        RunStatistics.getSharedInstance().add(RunStatistics.Counter.RETRIES, 1);
+        Thread.sleep(getRetryDelayMillis(attempt));
+        return true;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.ShotScraperV2.http;
+
+import com.example.ShotScraperV2.RunStatistics;
+import com.example.ShotScraperV2.ScraperUtilsInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking fetch stage that keeps a bounded number of requests in flight and hands parsed bodies to consumers
+ * <p>
+ * Network concurrency is set by scraper.http.max-in-flight rather than by the number of worker threads
+ */
+public class AsyncFetchPipeline implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncFetchPipeline.class);
+    private static volatile AsyncFetchPipeline sharedInstance;
+    private final ScraperHttpClient httpClient;
+    private final AdaptiveRateController rateController;
+    /**
+     * Permits for requests in flight, including their retries
+     */
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    /**
+     * Gets the pipeline shared by all scrapers, creating it on first use
+     *
+     * @return the shared pipeline
+     */
+    public static AsyncFetchPipeline getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (AsyncFetchPipeline.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new AsyncFetchPipeline(ScraperHttpClient.getSharedInstance(), AdaptiveRateController.getSharedInstance(), 0);
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Creates a pipeline over a client
+     *
+     * @param httpClient     client used to send requests
+     * @param rateController controller notified of unreadable bodies and consulted for retries
+     * @param maxInFlight    most requests outstanding at once, or 0 to read the configured value
+     */
+    AsyncFetchPipeline(ScraperHttpClient httpClient, AdaptiveRateController rateController, int maxInFlight) {
+        this.httpClient = httpClient;
+        this.rateController = rateController;
+        this.maxInFlight = maxInFlight > 0 ? maxInFlight
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.http.max-in-flight", "16"));
+        this.inFlight = new Semaphore(this.maxInFlight, true);
+        LOGGER.info("Async fetch pipeline allows " + this.maxInFlight + " requests in flight");
+    }
+
+    /**
+     * Starts fetching a URL and parsing its body
+     * <p>
+     * Blocks while the circuit for the endpoint is open, so an outage pauses every worker, and while the in-flight limit or the endpoint's bulkhead is full
+     *
+     * @param url    the URL to be fetched
+     * @param parser parses the decompressed response body as it streams in
+     * @param <T>    type of the parsed value
+     * @return future completed with the parsed value, or exceptionally once every attempt has failed
+     * @throws InterruptedException If waiting for an in-flight permit is interrupted
+     */
+    public <T> CompletableFuture<T> submit(String url, BodyParser<T> parser) throws InterruptedException {
+        String endpoint = ScraperHttpClient.endpointOf(url);
+        Bulkhead bulkhead = Bulkhead.forEndpoint(endpoint);
+        CircuitBreaker.forEndpoint(endpoint).awaitNotOpen();
+        bulkhead.acquire();
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException ex) {
+            bulkhead.release();
+            throw ex;
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.whenComplete((parsed, ex) -> {
+            inFlight.release();
+            bulkhead.release();
+        });
+        attempt(url, parser, 1, result);
+        return result;
+    }
+
+    /**
+     * Sends one attempt and schedules a delayed retry if it fails
+     *
+     * @param url     the URL to be fetched
+     * @param parser  turns the response body into the value handed downstream
+     * @param attempt attempt number, starting at 1
+     * @param result  future completed with the final outcome
+     * @param <T>     type of the parsed value
+     */
+    private <T> void attempt(String url, BodyParser<T> parser, int attempt, CompletableFuture<T> result) {
+        httpClient.fetchAsync(url)
+                .thenApply(body -> {
+                    try (InputStream stream = body) {
+                        T parsed = parser.parse(stream);
+                        //The circuit only counts a response as usable once its body has been parsed
+                        httpClient.recordParsed(url, body, true);
+                        return parsed;
+                    } catch (IOException ex) {
+                        httpClient.evictCached(url);
+                        rateController.recordFailure("interrupted response body");
+                        httpClient.recordParsed(url, body, false);
+                        throw new UncheckedIOException(ex);
+                    } catch (RuntimeException ex) {
+                        //Garbled bodies are a sign the server is shedding load
+                        httpClient.evictCached(url);
+                        rateController.recordFailure("unreadable response");
+                        httpClient.recordParsed(url, body, false);
+                        throw ex;
+                    }
+                })
+                .whenComplete((parsed, ex) -> {
+                    if (ex == null) {
+                        result.complete(parsed);
+                        return;
+                    }
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof CircuitOpenException) {
+                        //Wait out the open circuit without using up an attempt
+                        CompletableFuture.delayedExecutor(Math.max(10, ((CircuitOpenException) cause).getRetryAfterMillis()), TimeUnit.MILLISECONDS)
+                                .execute(() -> attempt(url, parser, attempt, result));
+                        return;
+                    }
+                    if (attempt >= rateController.getMaxAttempts()) {
+                        result.completeExceptionally(cause);
+                        return;
+                    }
+                    LOGGER.error(cause.getMessage() + ", Retrying (" + attempt + ")");
+                    RunStatistics.getSharedInstance().add(RunStatistics.Counter.RETRIES, 1);
+                    CompletableFuture.delayedExecutor(rateController.getRetryDelayMillis(attempt), TimeUnit.MILLISECONDS)
+                            .execute(() -> attempt(url, parser, attempt + 1, result));
+                });
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.ShotScraperV2.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Turns a decompressed response body into the value handed to downstream consumers
+ *
+ * @param <T> type of the parsed value
+ */
+@FunctionalInterface
+public interface BodyParser<T> {
+
+    /**
+     * Parses a response body as it streams in
+     *
+     * @param body the decompressed response body
+     * @return the parsed value
+     * @throws IOException If reading the body fails
+     */
+    T parse(InputStream body) throws IOException;
+}
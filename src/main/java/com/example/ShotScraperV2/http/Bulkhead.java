@@ -0,0 +1,101 @@
+package com.example.ShotScraperV2.http;
+
+import com.example.ShotScraperV2.ScraperUtilsInterface;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Separate limit on concurrent requests for one upstream endpoint
+ * <p>
+ * Keeps one kind of traffic, such as player profiles, from using up the connections needed by another, such as shot charts
+ */
+public class Bulkhead implements ScraperUtilsInterface {
+    /**
+     * Map of endpoint name and its bulkhead
+     */
+    private static final ConcurrentHashMap<String, Bulkhead> BULKHEADS = new ConcurrentHashMap<>();
+    /**
+     * Map of endpoint name and its default limit, for endpoints that need more than scraper.bulkhead.max-concurrent
+     */
+    private static final Map<String, String> DEFAULT_LIMITS = Map.of("shotchartdetail", "16");
+    private final String endpoint;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+
+    /**
+     * Gets the bulkhead for an endpoint, creating it on first use
+     *
+     * @param endpoint endpoint name, such as shotchartdetail
+     * @return the shared bulkhead for the endpoint
+     */
+    public static Bulkhead forEndpoint(String endpoint) {
+        return BULKHEADS.computeIfAbsent(endpoint, name -> new Bulkhead(name, 0));
+    }
+
+    /**
+     * Creates a bulkhead
+     *
+     * @param endpoint      endpoint name, such as shotchartdetail
+     * @param maxConcurrent most requests at once, or 0 to read scraper.bulkhead.[endpoint].max-concurrent
+     */
+    Bulkhead(String endpoint, int maxConcurrent) {
+        this.endpoint = endpoint;
+        this.maxConcurrent = maxConcurrent > 0 ? maxConcurrent
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.bulkhead." + endpoint + ".max-concurrent",
+                DEFAULT_LIMITS.getOrDefault(endpoint, ScraperUtilsInterface.super.getOptionalProperty("scraper.bulkhead.max-concurrent", "8"))));
+        this.permits = new Semaphore(this.maxConcurrent, true);
+    }
+
+    /**
+     * Waits for room to send a request to the endpoint
+     *
+     * @throws InterruptedException If the wait is interrupted
+     */
+    public void acquire() throws InterruptedException {
+        permits.acquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * Ties the permit to a response body so it is released once the body has been read and closed
+     *
+     * @param body the response body
+     * @return a stream with the same content that releases the permit when first closed
+     */
+    public InputStream releaseOnClose(InputStream body) {
+        AtomicBoolean released = new AtomicBoolean();
+        return new FilterInputStream(body) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        release();
+                    }
+                }
+            }
+        };
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
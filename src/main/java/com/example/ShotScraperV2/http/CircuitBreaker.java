@@ -0,0 +1,201 @@
+package com.example.ShotScraperV2.http;
+
+import com.example.ShotScraperV2.ScraperUtilsInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for one upstream endpoint
+ * <p>
+ * Opens when too many of the recent requests fail, which holds back every worker instead of letting each one retry into a struggling server.
+ * Once scraper.breaker.open-seconds have passed, a few trial requests are let through and the circuit closes only if they all succeed
+ */
+public class CircuitBreaker implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+    /**
+     * Map of endpoint name and its breaker
+     */
+    private static final ConcurrentHashMap<String, CircuitBreaker> BREAKERS = new ConcurrentHashMap<>();
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final String endpoint;
+    private final LongSupplier nanoClock;
+    private final double failureRateThreshold;
+    private final int minimumCalls, halfOpenTrials;
+    private final long openNanos;
+    /**
+     * Outcomes of the most recent requests while closed, true for a failure
+     */
+    private final boolean[] window;
+    private int windowNext, windowCount, windowFailures;
+    private State state = State.CLOSED;
+    private long openedAt, halfOpenedAt;
+    private int trialsStarted, trialsSucceeded;
+
+    /**
+     * Gets the breaker for an endpoint, creating it on first use
+     *
+     * @param endpoint endpoint name, such as shotchartdetail
+     * @return the shared breaker for the endpoint
+     */
+    public static CircuitBreaker forEndpoint(String endpoint) {
+        return BREAKERS.computeIfAbsent(endpoint, name -> new CircuitBreaker(name, System::nanoTime, 0, 0, 0, 0, 0));
+    }
+
+    /**
+     * Creates a breaker
+     *
+     * @param endpoint             endpoint name used in logs
+     * @param nanoClock            source of the current time in nanoseconds
+     * @param windowSize           number of recent requests the failure rate is taken over, or 0 to read the configured value
+     * @param failureRateThreshold share of failed requests that opens the circuit, or 0 to read the configured value
+     * @param minimumCalls         requests needed in the window before the circuit can open, or 0 to read the configured value
+     * @param openMillis           how long the circuit stays open before trial requests, or 0 to read the configured value
+     * @param halfOpenTrials       trial requests that must succeed to close the circuit, or 0 to read the configured value
+     */
+    CircuitBreaker(String endpoint, LongSupplier nanoClock, int windowSize, double failureRateThreshold, int minimumCalls, long openMillis, int halfOpenTrials) {
+        this.endpoint = endpoint;
+        this.nanoClock = nanoClock;
+        this.window = new boolean[windowSize > 0 ? windowSize
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.breaker.window", "20"))];
+        this.failureRateThreshold = failureRateThreshold > 0 ? failureRateThreshold
+                : Double.parseDouble(ScraperUtilsInterface.super.getOptionalProperty("scraper.breaker.failure-rate", "0.5"));
+        this.minimumCalls = minimumCalls > 0 ? minimumCalls
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.breaker.minimum-calls", "10"));
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis > 0 ? openMillis
+                : TimeUnit.SECONDS.toMillis(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.breaker.open-seconds", "30"))));
+        this.halfOpenTrials = halfOpenTrials > 0 ? halfOpenTrials
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.breaker.half-open-trials", "2"));
+    }
+
+    /**
+     * Asks to send a request without waiting
+     *
+     * @return true if the request may be sent, which must then be followed by recordSuccess or recordFailure
+     */
+    public synchronized boolean tryAcquirePermission() {
+        long now = nanoClock.getAsLong();
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.OPEN) {
+            if (now - openedAt < openNanos) {
+                return false;
+            }
+            LOGGER.info("Circuit for " + endpoint + " half-open, sending " + halfOpenTrials + " trial requests");
+            startTrials(now);
+        } else if (trialsStarted >= halfOpenTrials && now - halfOpenedAt >= openNanos) {
+            //Trials that never reported back should not hold the circuit half-open forever
+            startTrials(now);
+        }
+        if (trialsStarted < halfOpenTrials) {
+            trialsStarted++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Waits until a request may be sent, pausing the calling worker while the circuit is open
+     *
+     * @throws InterruptedException If the wait is interrupted
+     */
+    public void awaitPermission() throws InterruptedException {
+        while (!tryAcquirePermission()) {
+            Thread.sleep(Math.max(10, getMillisUntilRetry()));
+        }
+    }
+
+    /**
+     * Waits while the circuit is open without taking a trial permit
+     *
+     * @throws InterruptedException If the wait is interrupted
+     */
+    public void awaitNotOpen() throws InterruptedException {
+        long wait;
+        while ((wait = getMillisUntilRetry()) > 0) {
+            Thread.sleep(wait);
+        }
+    }
+
+    /**
+     * @return how long until a request could be let through, or 0 if one could be now
+     */
+    public synchronized long getMillisUntilRetry() {
+        switch (state) {
+            case OPEN:
+                return Math.max(0, TimeUnit.NANOSECONDS.toMillis(openedAt + openNanos - nanoClock.getAsLong()));
+            case HALF_OPEN:
+                //Poll until the trial requests report back
+                return trialsStarted < halfOpenTrials ? 0 : 100;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Records a request that got a usable response
+     */
+    public synchronized void recordSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialsSucceeded >= halfOpenTrials) {
+                LOGGER.info("Circuit for " + endpoint + " closed");
+                state = State.CLOSED;
+                windowNext = windowCount = windowFailures = 0;
+            }
+        } else if (state == State.CLOSED) {
+            addOutcome(false);
+        }
+    }
+
+    /**
+     * Records a request that timed out, failed, or was throttled
+     */
+    public synchronized void recordFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            addOutcome(true);
+            if (windowCount >= minimumCalls && windowFailures >= failureRateThreshold * windowCount) {
+                open();
+            }
+        }
+    }
+
+    private void addOutcome(boolean failed) {
+        if (windowCount == window.length) {
+            windowFailures -= window[windowNext] ? 1 : 0;
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = failed;
+        windowFailures += failed ? 1 : 0;
+        windowNext = (windowNext + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoClock.getAsLong();
+        LOGGER.warn("Circuit for " + endpoint + " open, pausing requests for " + TimeUnit.NANOSECONDS.toSeconds(openNanos) + "s");
+    }
+
+    private void startTrials(long now) {
+        state = State.HALF_OPEN;
+        halfOpenedAt = now;
+        trialsStarted = 0;
+        trialsSucceeded = 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
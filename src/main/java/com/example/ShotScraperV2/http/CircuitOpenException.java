@@ -0,0 +1,23 @@
+package com.example.ShotScraperV2.http;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request is held back because the circuit for its endpoint is open
+ */
+public class CircuitOpenException extends IOException {
+    private final long retryAfterMillis;
+
+    /**
+     * @param endpoint         endpoint whose circuit is open
+     * @param retryAfterMillis how long until a request could be let through
+     */
+    public CircuitOpenException(String endpoint, long retryAfterMillis) {
+        super("Circuit for " + endpoint + " is open");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.ShotScraperV2.http;
+
+import com.example.ShotScraperV2.ScraperUtilsInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide token bucket that every outbound request must acquire from
+ * <p>
+ * Tokens refill at a fixed rate up to the burst size. A caller that finds the bucket empty reserves the next token and
+ * sleeps only until that token is due, so no thread idles while there is budget left
+ */
+public class RequestGovernor implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestGovernor.class);
+    private static volatile RequestGovernor sharedInstance;
+    private final LongSupplier nanoClock;
+    private double permitsPerSecond;
+    private final double burstSize;
+    /**
+     * Tokens currently available, negative when callers have reserved future tokens
+     */
+    private double storedTokens;
+    private long lastRefillNanos;
+
+    /**
+     * Gets the governor shared by all scrapers, creating it on first use
+     *
+     * @return the shared governor
+     */
+    public static RequestGovernor getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (RequestGovernor.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new RequestGovernor();
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Builds the governor from the optional scraper.governor.* settings
+     */
+    private RequestGovernor() {
+        this(System::nanoTime, 0, 0);
+    }
+
+    /**
+     * Creates a governor with a given rate and burst size
+     *
+     * @param permitsPerSecond requests allowed per second
+     * @param burstSize        most requests that can be sent back to back after an idle period
+     */
+    public RequestGovernor(double permitsPerSecond, int burstSize) {
+        this(System::nanoTime, permitsPerSecond, burstSize);
+    }
+
+    /**
+     * Creates a governor with a given clock, used for testing
+     *
+     * @param nanoClock        source of the current time in nanoseconds
+     * @param permitsPerSecond requests allowed per second, or 0 to read the configured value
+     * @param burstSize        most requests that can be sent back to back, or 0 to read the configured value
+     */
+    RequestGovernor(LongSupplier nanoClock, double permitsPerSecond, int burstSize) {
+        this.nanoClock = nanoClock;
+        this.permitsPerSecond = permitsPerSecond > 0 ? permitsPerSecond
+                : Double.parseDouble(ScraperUtilsInterface.super.getOptionalProperty("scraper.governor.requests-per-second", "2"));
+        this.burstSize = burstSize > 0 ? burstSize
+                : Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.governor.burst", "4"));
+        this.storedTokens = this.burstSize;
+        this.lastRefillNanos = nanoClock.getAsLong();
+        LOGGER.info("Request governor allows " + this.permitsPerSecond + " requests/s with a burst of " + (int) this.burstSize);
+    }
+
+    /**
+     * Blocks until the caller may send one request
+     *
+     * @throws InterruptedException If the wait is interrupted
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes one token and finds how long the caller must wait before using it
+     *
+     * @return nanoseconds to wait, 0 if a token was available
+     */
+    synchronized long reserve() {
+        refill();
+        storedTokens -= 1;
+        if (storedTokens >= 0) {
+            return 0;
+        }
+        return (long) (-storedTokens / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Adds the tokens earned since the last refill, up to the burst size
+     */
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        storedTokens = Math.min(burstSize, storedTokens + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+    }
+
+    /**
+     * Changes the refill rate, keeping tokens already earned at the old rate
+     *
+     * @param permitsPerSecond new requests allowed per second
+     */
+    public synchronized void setPermitsPerSecond(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        refill();
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public synchronized double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public double getBurstSize() {
+        return burstSize;
+    }
+}
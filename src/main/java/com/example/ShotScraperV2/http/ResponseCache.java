@@ -0,0 +1,563 @@
+package com.example.ShotScraperV2.http;
+
+import com.example.ShotScraperV2.ScraperUtilsInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk cache of response bodies so past seasons are only downloaded once
+ * <p>
+ * Bodies are stored gzipped under the SHA-256 of their content, and each normalized URL points at the body it last returned,
+ * which lists the keys pointing at it so it can be deleted when the last one goes.
+ * Responses stored after their season was over never expire, while anything else, including a response stored while its season was
+ * still being played, expires after scraper.cache.current-season-ttl-minutes and is then revalidated with the ETag and Last-Modified
+ * the server sent
+ */
+public class ResponseCache implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCache.class);
+    private static final Pattern SEASON_PATTERN = Pattern.compile("\\d{4}-\\d{2}");
+    private static volatile ResponseCache sharedInstance;
+    /**
+     * Root of the cache, or null when caching is disabled
+     */
+    private final Path directory;
+    private final long currentSeasonTtlMillis;
+    private final String currentYear;
+    private final LongSupplier millisClock;
+
+    /**
+     * Gets the cache shared by all scrapers, creating it on first use
+     *
+     * @return the shared cache
+     */
+    public static ResponseCache getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (ResponseCache.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new ResponseCache();
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Builds the cache from the optional scraper.cache.* settings
+     */
+    private ResponseCache() {
+        this.directory = Boolean.parseBoolean(ScraperUtilsInterface.super.getOptionalProperty("scraper.cache.enabled", "true"))
+                ? Paths.get(ScraperUtilsInterface.super.getOptionalProperty("scraper.cache.directory", "scraper-cache"))
+                : null;
+        this.currentSeasonTtlMillis = TimeUnit.MINUTES.toMillis(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.cache.current-season-ttl-minutes", "360")));
+        this.currentYear = ScraperUtilsInterface.super.getOptionalProperty("currentYear", "");
+        this.millisClock = System::currentTimeMillis;
+        LOGGER.info(directory == null ? "Response cache disabled" : "Response cache at " + directory.toAbsolutePath());
+    }
+
+    /**
+     * Creates a cache with explicit settings
+     *
+     * @param directory              root of the cache, or null to disable caching
+     * @param currentSeasonTtlMillis how long responses that may still change are kept
+     * @param currentYear            the current season as YYYY-YY
+     * @param millisClock            source of the current time in milliseconds
+     */
+    ResponseCache(Path directory, long currentSeasonTtlMillis, String currentYear, LongSupplier millisClock) {
+        this.directory = directory;
+        this.currentSeasonTtlMillis = currentSeasonTtlMillis;
+        this.currentYear = currentYear;
+        this.millisClock = millisClock;
+    }
+
+    /**
+     * Creates a cache that never stores anything
+     *
+     * @return a disabled cache
+     */
+    static ResponseCache disabled() {
+        return new ResponseCache(null, 0, "", System::currentTimeMillis);
+    }
+
+    /**
+     * Opens the cached body for a URL if there is one that has not expired
+     *
+     * @param url the URL to be fetched
+     * @return the decompressed cached body, or null on a miss
+     */
+    public InputStream open(String url) {
+        Entry entry = find(url);
+        return entry != null && entry.isFresh() ? open(entry) : null;
+    }
+
+    /**
+     * Looks up what is cached for a URL, including expired entries that can still be revalidated
+     *
+     * @param url the URL to be fetched
+     * @return the entry, or null if nothing usable is cached
+     */
+    public Entry find(String url) {
+        if (directory == null) {
+            return null;
+        }
+        String key = normalize(url);
+        Path keyFile = keyPath(key);
+        try {
+            if (!Files.exists(keyFile)) {
+                return null;
+            }
+            List<String> lines = Files.readAllLines(keyFile, StandardCharsets.UTF_8);
+            long storedAt = Long.parseLong(lines.get(1));
+            if (!Files.exists(blobPath(lines.get(0)))) {
+                return null;
+            }
+            //Whether the season was over is decided when the body is stored, so a season that ended since is still revalidated once
+            boolean immutable = lines.size() > 5 && Boolean.parseBoolean(lines.get(5));
+            boolean fresh = immutable || millisClock.getAsLong() - storedAt <= currentSeasonTtlMillis;
+            return new Entry(key, lines.get(0), lines.size() > 3 ? lines.get(3) : "", lines.size() > 4 ? lines.get(4) : "", fresh);
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.error(ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens the body of a cached entry
+     *
+     * @param entry the entry found for a URL
+     * @return the decompressed cached body, carrying its content hash, or null if it can no longer be read
+     */
+    public InputStream open(Entry entry) {
+        try {
+            LOGGER.debug("Cache hit for " + entry.key);
+            return new CachedBody(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(blobPath(entry.contentHash)), 64 * 1024), 64 * 1024),
+                    entry.contentHash);
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Marks an expired entry as fresh again after the server confirmed it has not changed, and opens its body
+     *
+     * @param entry the entry that was revalidated
+     * @return the decompressed cached body, or null if it can no longer be read
+     */
+    public InputStream revalidate(Entry entry) {
+        try {
+            writeKeyFile(entry.key, entry.contentHash, entry.etag, entry.lastModified);
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+        }
+        return open(entry);
+    }
+
+    /**
+     * Gives the content hash of a body served from the cache, so callers can recognize a body they already have without reading it
+     *
+     * @param body a response body
+     * @return SHA-256 of the body as lowercase hex, or null if the body was not served from the cache
+     */
+    public static String contentHashOf(InputStream body) {
+        return body instanceof CachedBody ? ((CachedBody) body).contentHash : null;
+    }
+
+    /**
+     * Wraps a fresh response body so it is written to the cache as it is read
+     * <p>
+     * The entry is committed when the body is closed, after reading whatever the caller left unread
+     *
+     * @param url          the URL that was fetched
+     * @param body         the decompressed response body
+     * @param etag         the response ETag, or empty
+     * @param lastModified the response Last-Modified date, or empty
+     * @return a stream with the same content as the body
+     */
+    public InputStream store(String url, InputStream body, String etag, String lastModified) {
+        if (directory == null) {
+            return body;
+        }
+        try {
+            return new CachingInputStream(body, normalize(url), etag, lastModified);
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+            return body;
+        }
+    }
+
+    /**
+     * Forgets the cached body for a URL, used when a body turns out to be unreadable
+     * <p>
+     * The body is committed when its reader closes it, even if parsing gave up partway, so it is deleted too unless another key
+     * still points at it, which is looked up in the body's own list of keys rather than by reading every key
+     *
+     * @param url the URL that was fetched
+     */
+    public void evict(String url) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Path keyFile = keyPath(normalize(url));
+            if (!Files.exists(keyFile)) {
+                return;
+            }
+            String contentHash = readContentHash(keyFile);
+            Files.deleteIfExists(keyFile);
+            if (contentHash != null) {
+                release(contentHash, keyFile);
+            }
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+        }
+    }
+
+    /**
+     * Removes a key from the list of keys pointing at a body, and deletes the body once no key is left
+     * <p>
+     * Bodies stored before keys were listed have no list and are kept
+     *
+     * @param contentHash hash of the body the key pointed at
+     * @param keyFile     the key's file
+     * @throws IOException If the list cannot be changed
+     */
+    private void release(String contentHash, Path keyFile) throws IOException {
+        Path refs = refsPath(contentHash);
+        Files.deleteIfExists(refs.resolve(keyFile.getFileName().toString()));
+        try {
+            //Deleting the list only succeeds when it is empty, so no other key can be pointing at the body
+            Files.delete(refs);
+        } catch (NoSuchFileException | DirectoryNotEmptyException ex) {
+            return;
+        }
+        Files.deleteIfExists(blobPath(contentHash));
+    }
+
+    /**
+     * @param keyFile a key file
+     * @return hash of the body the key points at, or null if the key file cannot be read
+     */
+    private String readContentHash(Path keyFile) {
+        try (BufferedReader reader = Files.newBufferedReader(keyFile, StandardCharsets.UTF_8)) {
+            return reader.readLine();
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Reduces a URL to its host, port, path, and non-empty query parameters in name order
+     *
+     * @param url the URL to be fetched
+     * @return the cache key
+     */
+    static String normalize(String url) {
+        URI uri = URI.create(url);
+        TreeMap<String, String> params = new TreeMap<>();
+        if (uri.getRawQuery() != null) {
+            for (String param : uri.getRawQuery().split("&")) {
+                int split = param.indexOf('=');
+                if (split > 0 && split < param.length() - 1) {
+                    params.put(param.substring(0, split), param.substring(split + 1));
+                }
+            }
+        }
+        StringBuilder key = new StringBuilder(uri.getAuthority() + uri.getPath());
+        String separator = "?";
+        for (String name : params.keySet()) {
+            key.append(separator).append(name).append('=').append(params.get(name));
+            separator = "&";
+        }
+        return key.toString();
+    }
+
+    /**
+     * Checks if a response belongs to a season that is already over, which no longer changes
+     *
+     * @param key the cache key
+     * @return true if the key names a season before the current one
+     */
+    boolean isImmutable(String key) {
+        if (currentYear.isEmpty()) {
+            return false;
+        }
+        //Shot searches name the season in Season or CFPARAMS
+        for (String param : key.substring(key.indexOf('?') + 1).split("&")) {
+            String value = param.substring(param.indexOf('=') + 1);
+            if ((param.startsWith("Season=") || param.startsWith("CFPARAMS=")) && SEASON_PATTERN.matcher(value).matches()) {
+                return value.compareTo(currentYear) < 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Atomically points a key at a stored body, stamped with the current time and whether its season is already over
+     *
+     * @param key          the cache key
+     * @param contentHash  hash of the stored body
+     * @param etag         the response ETag, or empty
+     * @param lastModified the response Last-Modified date, or empty
+     * @throws IOException If the key file cannot be written
+     */
+    private void writeKeyFile(String key, String contentHash, String etag, String lastModified) throws IOException {
+        Path keyFile = keyPath(key);
+        Files.createDirectories(keyFile.getParent());
+        Files.createDirectories(directory.resolve("tmp"));
+        String previousHash = Files.exists(keyFile) ? readContentHash(keyFile) : null;
+        Path refs = refsPath(contentHash);
+        Files.createDirectories(refs);
+        Path ref = refs.resolve(keyFile.getFileName().toString());
+        if (!Files.exists(ref)) {
+            try {
+                Files.createFile(ref);
+            } catch (FileAlreadyExistsException ex) {
+                //Listed by a concurrent store of the same key
+            }
+        }
+        Path tempKey = Files.createTempFile(directory.resolve("tmp"), "key", ".txt");
+        Files.writeString(tempKey, contentHash + "\n" + millisClock.getAsLong() + "\n" + key + "\n" + etag + "\n" + lastModified + "\n" + isImmutable(key) + "\n");
+        Files.move(tempKey, keyFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (previousHash != null && !previousHash.equals(contentHash)) {
+            //The key now returns a different body, so the old one may have no key left
+            release(previousHash, keyFile);
+        }
+    }
+
+    private Path keyPath(String key) {
+        return directory.resolve("keys").resolve(sha256(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * @param contentHash hash of a stored body
+     * @return directory holding an empty file named after each key that points at the body
+     */
+    private Path refsPath(String contentHash) {
+        return directory.resolve("blobs").resolve(contentHash.substring(0, 2)).resolve(contentHash + ".refs");
+    }
+
+    private Path blobPath(String contentHash) {
+        return directory.resolve("blobs").resolve(contentHash.substring(0, 2)).resolve(contentHash + ".gz");
+    }
+
+    /**
+     * Hashes bytes with SHA-256
+     *
+     * @param bytes the bytes to hash
+     * @return the hash as lowercase hex
+     */
+    private static String sha256(byte[] bytes) {
+        return toHex(newDigest().digest(bytes));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            //Every JVM is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Body read from the cache, labelled with the hash it is stored under
+     */
+    private static class CachedBody extends FilterInputStream {
+        private final String contentHash;
+
+        CachedBody(InputStream body, String contentHash) {
+            super(body);
+            this.contentHash = contentHash;
+        }
+    }
+
+    /**
+     * Copies everything read from a body into a gzipped temporary file, then files it under its content hash on close
+     */
+    private class CachingInputStream extends FilterInputStream {
+        private final String key, etag, lastModified;
+        private final Path tempFile;
+        private final MessageDigest digest = newDigest();
+        private OutputStream copy;
+
+        CachingInputStream(InputStream body, String key, String etag, String lastModified) throws IOException {
+            super(body);
+            this.key = key;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            Files.createDirectories(directory.resolve("tmp"));
+            this.tempFile = Files.createTempFile(directory.resolve("tmp"), "body", ".gz");
+            this.copy = new GZIPOutputStream(Files.newOutputStream(tempFile), 64 * 1024);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                record(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = super.read(b, off, len);
+            if (count > 0) {
+                record(b, off, count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            //Read instead of skipping so the cached copy stays complete
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int count = read(buffer, 0, buffer.length);
+            return Math.max(count, 0);
+        }
+
+        /**
+         * Adds bytes to the cached copy, giving up on the copy rather than the read if the disk fails
+         */
+        private void record(byte[] b, int off, int len) {
+            if (copy == null) {
+                return;
+            }
+            try {
+                copy.write(b, off, len);
+                digest.update(b, off, len);
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage());
+                abandon();
+            }
+        }
+
+        private void abandon() {
+            if (copy != null) {
+                try {
+                    copy.close();
+                } catch (IOException ignored) {
+                    //The copy is being discarded anyway
+                }
+                copy = null;
+            }
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (copy != null) {
+                    //Parsers stop early, so read the rest to cache the whole body
+                    byte[] buffer = new byte[8192];
+                    while (read(buffer, 0, buffer.length) != -1) {
+                        //Bytes are recorded by read
+                    }
+                }
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage());
+                abandon();
+            } finally {
+                super.close();
+            }
+            if (copy != null) {
+                commit();
+            }
+        }
+
+        /**
+         * Moves the finished copy under its content hash and points the key at it
+         */
+        private void commit() {
+            try {
+                copy.close();
+                copy = null;
+                String contentHash = toHex(digest.digest());
+                Path blob = blobPath(contentHash);
+                Files.createDirectories(blob.getParent());
+                if (Files.exists(blob)) {
+                    //Same content is already stored under another key
+                    Files.delete(tempFile);
+                } else {
+                    Files.move(tempFile, blob, StandardCopyOption.REPLACE_EXISTING);
+                }
+                writeKeyFile(key, contentHash, etag, lastModified);
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage());
+                abandon();
+            }
+        }
+    }
+
+    /**
+     * What is cached for one URL
+     */
+    public static class Entry {
+        private final String key, contentHash, etag, lastModified;
+        private final boolean fresh;
+
+        Entry(String key, String contentHash, String etag, String lastModified, boolean fresh) {
+            this.key = key;
+            this.contentHash = contentHash;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.fresh = fresh;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return true if the body can be used without asking the server
+         */
+        public boolean isFresh() {
+            return fresh;
+        }
+    }
+}
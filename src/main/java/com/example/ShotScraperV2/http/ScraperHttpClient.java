@@ -0,0 +1,412 @@
+package com.example.ShotScraperV2.http;
+
+import com.example.ShotScraperV2.RunStatistics;
+import com.example.ShotScraperV2.ScraperUtilsInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HTTP client shared by every scraper so connections are kept alive and reused between requests
+ * <p>
+ * Responses are requested compressed and decompressed as they are read
+ */
+public class ScraperHttpClient implements ScraperUtilsInterface {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScraperHttpClient.class);
+    /**
+     * The single client used by the whole process
+     */
+    private static volatile ScraperHttpClient sharedInstance;
+    private final HttpClient client;
+    private final ResponseCache cache;
+    /**
+     * Checks async responses, which may block reading the first byte or an error body, off the client's own threads
+     */
+    private final ExecutorService responseExecutor;
+
+    /**
+     * Gets the shared client, creating it on first use
+     *
+     * @return the shared client
+     */
+    public static ScraperHttpClient getSharedInstance() {
+        if (sharedInstance == null) {
+            synchronized (ScraperHttpClient.class) {
+                if (sharedInstance == null) {
+                    sharedInstance = new ScraperHttpClient(ResponseCache.getSharedInstance());
+                }
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Builds the client from the optional scraper.http.* settings
+     *
+     * @param cache cache consulted before and filled after every request
+     */
+    ScraperHttpClient(ResponseCache cache) {
+        this.cache = cache;
+        //The JDK reads its pool settings once, when the first client is created
+        setSystemPropertyIfAbsent("jdk.httpclient.connectionPoolSize", ScraperUtilsInterface.super.getOptionalProperty("scraper.http.pool-size", "16"));
+        setSystemPropertyIfAbsent("jdk.httpclient.keepalive.timeout", ScraperUtilsInterface.super.getOptionalProperty("scraper.http.keep-alive-seconds", "120"));
+        HttpClient.Version version = HttpClient.Version.valueOf(ScraperUtilsInterface.super.getOptionalProperty("scraper.http.version", "HTTP_2"));
+        this.client = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofSeconds(Long.parseLong(ScraperUtilsInterface.super.getOptionalProperty("scraper.http.connect-timeout-seconds", "20"))))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        AtomicInteger responseThreads = new AtomicInteger();
+        this.responseExecutor = Executors.newFixedThreadPool(Integer.parseInt(ScraperUtilsInterface.super.getOptionalProperty("scraper.http.response-threads", "8")),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "http-response-" + responseThreads.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        LOGGER.info("Initialized shared HTTP client (" + version + ", pool size " + System.getProperty("jdk.httpclient.connectionPoolSize")
+                + ", keep-alive " + System.getProperty("jdk.httpclient.keepalive.timeout") + "s)");
+    }
+
+    /**
+     * Sets a system property unless it was already given on the command line
+     *
+     * @param key   property name
+     * @param value property value
+     */
+    private void setSystemPropertyIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Builds a GET request with the headers expected by stats.nba.com
+     *
+     * @param url the URL to be fetched
+     * @return the request
+     */
+    public HttpRequest buildRequest(String url) {
+        return buildRequest(url, null);
+    }
+
+    /**
+     * Builds a GET request, made conditional on the validators of an expired cache entry when there is one
+     *
+     * @param url         the URL to be fetched
+     * @param cachedEntry expired cache entry for the URL, or null
+     * @return the request
+     */
+    private HttpRequest buildRequest(String url, ResponseCache.Entry cachedEntry) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .header("accept", "application/json")
+                .header("Accept-Encoding", "gzip, deflate")
+                .header("Origin", "https://www.nba.com")
+                .header("Referer", "https://www.nba.com/")
+                .header("Access-Control-Request-Headers", "x-nba-stats-origin,x-nba-stats-token")
+                .header("Access-Control-Request-Method", "GET")
+                .timeout(AdaptiveRateController.getSharedInstance().getTimeout())
+                .GET();
+        if (cachedEntry != null && !cachedEntry.getEtag().isEmpty()) {
+            builder.header("If-None-Match", cachedEntry.getEtag());
+        }
+        if (cachedEntry != null && !cachedEntry.getLastModified().isEmpty()) {
+            builder.header("If-Modified-Since", cachedEntry.getLastModified());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Fetches a URL over the shared connection pool once the request governor allows it, or from the response cache
+     * <p>
+     * Each outcome is reported to the adaptive rate controller so the request rate follows what the server tolerates
+     *
+     * @param url the URL to be fetched
+     * @return the response body as a String
+     * @throws InterruptedException If the request is interrupted
+     * @throws IOException          If the request fails, times out, or the server throttles or errors
+     */
+    public String fetch(String url) throws InterruptedException, IOException {
+        try (InputStream body = fetchStream(url)) {
+            String text;
+            try {
+                text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                recordParsed(url, body, false);
+                throw ex;
+            }
+            recordParsed(url, body, true);
+            return text;
+        }
+    }
+
+    /**
+     * Fetches a URL and returns the decompressed body as a stream, so callers can parse it without holding it in memory
+     * <p>
+     * Waits while the circuit for the endpoint is open, and holds a permit of the endpoint's bulkhead until the body is closed
+     *
+     * @param url the URL to be fetched
+     * @return the decompressed response body, to be closed by the caller
+     * @throws InterruptedException If the request is interrupted
+     * @throws IOException          If the request fails, times out, or the server throttles or errors
+     */
+    public InputStream fetchStream(String url) throws InterruptedException, IOException {
+        ResponseCache.Entry cachedEntry = cache.find(url);
+        InputStream cached = cachedEntry != null && cachedEntry.isFresh() ? cache.open(cachedEntry) : null;
+        if (cached != null) {
+            RunStatistics.getSharedInstance().add(RunStatistics.Counter.CACHE_HITS, 1);
+            return cached;
+        }
+        String endpoint = endpointOf(url);
+        Bulkhead bulkhead = Bulkhead.forEndpoint(endpoint);
+        CircuitBreaker.forEndpoint(endpoint).awaitPermission();
+        bulkhead.acquire();
+        try {
+            RequestGovernor.getSharedInstance().acquire();
+            RunStatistics.getSharedInstance().add(RunStatistics.Counter.REQUESTS, 1);
+            long start = System.nanoTime();
+            HttpResponse<InputStream> response;
+            try {
+                response = client.send(buildRequest(url, cachedEntry), HttpResponse.BodyHandlers.ofInputStream());
+            } catch (IOException ex) {
+                recordSendFailure(endpoint, ex);
+                throw ex;
+            }
+            InputStream body = checkResponse(url, response, start, cachedEntry);
+            if (ResponseCache.contentHashOf(body) != null) {
+                //Not modified, so the body is read from disk and no longer needs a slot of the endpoint
+                bulkhead.release();
+                return body;
+            }
+            return bulkhead.releaseOnClose(body);
+        } catch (IOException | InterruptedException | RuntimeException ex) {
+            bulkhead.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Fetches a URL without blocking the calling thread
+     * <p>
+     * The request is held back, not the caller, until the request governor allows it. Cached bodies complete immediately. Responses
+     * are checked on scraper.http.response-threads threads of this client so the HTTP client's threads never wait on a body
+     *
+     * @param url the URL to be fetched
+     * @return future completed with the decompressed response body once headers arrive, or exceptionally if the request fails
+     * or with a CircuitOpenException if the circuit for the endpoint is open
+     */
+    public CompletableFuture<InputStream> fetchAsync(String url) {
+        ResponseCache.Entry cachedEntry = cache.find(url);
+        InputStream cached = cachedEntry != null && cachedEntry.isFresh() ? cache.open(cachedEntry) : null;
+        if (cached != null) {
+            RunStatistics.getSharedInstance().add(RunStatistics.Counter.CACHE_HITS, 1);
+            return CompletableFuture.completedFuture(cached);
+        }
+        String endpoint = endpointOf(url);
+        CircuitBreaker breaker = CircuitBreaker.forEndpoint(endpoint);
+        if (!breaker.tryAcquirePermission()) {
+            return CompletableFuture.failedFuture(new CircuitOpenException(endpoint, breaker.getMillisUntilRetry()));
+        }
+        long waitNanos = RequestGovernor.getSharedInstance().reserve();
+        Executor sendWhenAllowed = waitNanos > 0 ? CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS) : Runnable::run;
+        return CompletableFuture.supplyAsync(() -> {
+                    RunStatistics.getSharedInstance().add(RunStatistics.Counter.REQUESTS, 1);
+                    return System.nanoTime();
+                }, sendWhenAllowed)
+                .thenCompose(start -> client.sendAsync(buildRequest(url, cachedEntry), HttpResponse.BodyHandlers.ofInputStream())
+                        .handleAsync((response, ex) -> {
+                            try {
+                                if (ex != null) {
+                                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                                    recordSendFailure(endpoint, cause);
+                                    throw new CompletionException(cause);
+                                }
+                                return checkResponse(url, response, start, cachedEntry);
+                            } catch (IOException ioEx) {
+                                throw new CompletionException(ioEx);
+                            }
+                        }, responseExecutor));
+    }
+
+    /**
+     * Names the endpoint of a URL, used to pick its circuit breaker and bulkhead
+     *
+     * @param url the URL to be fetched
+     * @return the last segment of the path, such as shotchartdetail
+     */
+    static String endpointOf(String url) {
+        String path = URI.create(url).getPath();
+        return path == null || path.isEmpty() ? "/" : path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * Reports a request that never produced a response
+     *
+     * @param endpoint endpoint of the request
+     * @param ex       the failure
+     */
+    private void recordSendFailure(String endpoint, Throwable ex) {
+        CircuitBreaker.forEndpoint(endpoint).recordFailure();
+        if (ex instanceof HttpTimeoutException) {
+            AdaptiveRateController.getSharedInstance().recordTimeout();
+        } else {
+            AdaptiveRateController.getSharedInstance().recordFailure("connection error");
+        }
+    }
+
+    /**
+     * Rejects throttled, failed, or empty responses and reports the outcome to the adaptive rate controller and circuit breaker
+     * <p>
+     * A body the server sent is only reported to the circuit breaker as a success once it has been parsed, through recordParsed
+     *
+     * @param url         the URL that was fetched
+     * @param response    the response received
+     * @param start       when the request was sent, in nanoseconds
+     * @param cachedEntry expired cache entry the request was made conditional on, or null
+     * @return the decompressed response body, copied to the response cache as it is read if the status is 200, or the cached body if
+     * it has not changed
+     * @throws IOException If the server throttled, errored, or sent an empty body
+     */
+    private InputStream checkResponse(String url, HttpResponse<InputStream> response, long start, ResponseCache.Entry cachedEntry) throws IOException {
+        AdaptiveRateController rateController = AdaptiveRateController.getSharedInstance();
+        CircuitBreaker breaker = CircuitBreaker.forEndpoint(endpointOf(url));
+        //Not modified since the cached copy was stored
+        if (response.statusCode() == 304 && cachedEntry != null) {
+            response.body().close();
+            InputStream cached = cache.revalidate(cachedEntry);
+            if (cached == null) {
+                throw new IOException("Cached body for " + url + " could not be read");
+            }
+            rateController.recordSuccess(System.nanoTime() - start);
+            breaker.recordSuccess();
+            return cached;
+        }
+        //Throttling and server errors mean the server is struggling
+        if (response.statusCode() == 429 || response.statusCode() >= 500) {
+            response.body().close();
+            rateController.recordFailure("HTTP " + response.statusCode());
+            breaker.recordFailure();
+            throw new IOException("HTTP " + response.statusCode() + " from " + url);
+        }
+        PushbackInputStream body = new PushbackInputStream(decodeBody(response), 1);
+        int firstByte = body.read();
+        if (firstByte == -1) {
+            body.close();
+            rateController.recordFailure("empty response");
+            breaker.recordFailure();
+            throw new IOException("Empty response from " + url);
+        }
+        body.unread(firstByte);
+        rateController.recordSuccess(System.nanoTime() - start);
+        if (response.statusCode() != 200) {
+            //Only complete 200 responses are cached, so an error or partial body is never served in place of the data
+            return body;
+        }
+        return cache.store(url, body, response.headers().firstValue("ETag").orElse(""), response.headers().firstValue("Last-Modified").orElse(""));
+    }
+
+    /**
+     * Wraps the raw body in a decompressing stream matching the Content-Encoding the server chose
+     *
+     * @param response the response received
+     * @return the body as it would have been sent uncompressed
+     * @throws IOException If the compressed header cannot be read
+     */
+    private InputStream decodeBody(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("identity").trim().toLowerCase(Locale.ROOT);
+        InputStream wire = new ByteCountingInputStream(response.body());
+        switch (encoding) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(wire, 64 * 1024);
+            case "deflate":
+                return new InflaterInputStream(wire, new Inflater(), 64 * 1024);
+            default:
+                return new BufferedInputStream(wire, 64 * 1024);
+        }
+    }
+
+    /**
+     * Adds the bytes received over the network, before decompression, to the run statistics
+     */
+    private static class ByteCountingInputStream extends FilterInputStream {
+        private ByteCountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                RunStatistics.getSharedInstance().add(RunStatistics.Counter.BYTES, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                RunStatistics.getSharedInstance().add(RunStatistics.Counter.BYTES, read);
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Reports to the circuit breaker whether a body the server sent could be parsed, so a run of garbled responses opens the circuit
+     * the same way errors do
+     * <p>
+     * Bodies served from the response cache, including ones the server answered 304 for, were already reported and are skipped
+     *
+     * @param url    the URL that was fetched
+     * @param body   the body returned for the URL
+     * @param parsed true if the body was parsed, false if it was cut off or unreadable
+     */
+    public void recordParsed(String url, InputStream body, boolean parsed) {
+        if (ResponseCache.contentHashOf(body) != null) {
+            return;
+        }
+        CircuitBreaker breaker = CircuitBreaker.forEndpoint(endpointOf(url));
+        if (parsed) {
+            breaker.recordSuccess();
+        } else {
+            breaker.recordFailure();
+        }
+    }
+
+    /**
+     * Drops a cached body that turned out to be unreadable so the next attempt goes to the server
+     *
+     * @param url the URL that was fetched
+     */
+    public void evictCached(String url) {
+        cache.evict(url);
+    }
+
+    public HttpClient getClient() {
+        return client;
+    }
+}
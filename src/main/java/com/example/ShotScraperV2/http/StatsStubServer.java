@@ -0,0 +1,343 @@
+package com.example.ShotScraperV2.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for stats.nba.com and www.nba.com that replays recorded responses
+ * <p>
+ * Point scraper.stats.base-url and scraper.site.base-url at it to measure throughput or tune concurrency without touching the real site.
+ * Latency, server errors, and throttling can be simulated. Requests without a recording are answered with the recording for the same path,
+ * which is seeded from the sample responses in resources, or are fetched from a real upstream and recorded when one is set.
+ * <p>
+ * Run standalone with arguments such as --port=8089 --recordings=stub-recordings --latency-ms=150 --jitter-ms=100 --error-rate=0.02
+ * --throttle-rps=20 --upstream=https://stats.nba.com
+ */
+public class StatsStubServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatsStubServer.class);
+    /**
+     * Map of endpoint path and the sample response used when nothing more specific is recorded
+     */
+    private static final Map<String, String> SAMPLE_RESPONSES = Map.of(
+            "/stats/shotchartdetail", "TonyParker2018-19PreseasonSampleShotData.txt",
+            "/stats/playerprofilev2", "TonyParkerScrapedDataSample.txt",
+            "/stats/js/data/ptsd/stats_ptsd.js", "getAllTeamAndPlayerDataSampleResponse.txt");
+    private final Path recordings;
+    private final String upstreamBaseUrl;
+    /**
+     * Client for recording from upstream, skipping the response cache so recordings are always fresh
+     */
+    private final ScraperHttpClient upstreamClient = new ScraperHttpClient(ResponseCache.disabled());
+    /**
+     * Recorded bodies already read from disk, keyed by normalized path and query
+     */
+    private final ConcurrentHashMap<String, byte[]> loadedRecordings = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService responder = Executors.newScheduledThreadPool(4);
+    private final ExecutorService acceptor = Executors.newFixedThreadPool(8);
+    private final AtomicLong served = new AtomicLong(), failed = new AtomicLong(), throttled = new AtomicLong();
+    private volatile long latencyMillis, jitterMillis;
+    private volatile double errorRate;
+    private volatile int throttleRequestsPerSecond;
+    private long throttleWindowStart;
+    private int throttleWindowCount;
+    private HttpServer server;
+
+    /**
+     * Creates a stub server
+     *
+     * @param recordings      directory holding recorded bodies, created if missing
+     * @param upstreamBaseUrl real server to record from when a request has no recording, or null to replay only
+     */
+    public StatsStubServer(Path recordings, String upstreamBaseUrl) {
+        this.recordings = recordings;
+        this.upstreamBaseUrl = upstreamBaseUrl;
+    }
+
+    /**
+     * Starts serving on the loopback interface
+     *
+     * @param port port to listen on, or 0 for any free port
+     * @return base URL of the server
+     * @throws IOException If the server cannot start
+     */
+    public String start(int port) throws IOException {
+        Files.createDirectories(recordings);
+        seedFromSamples();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(acceptor);
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        LOGGER.info("Stub server listening at " + baseUrl + (upstreamBaseUrl == null ? "" : ", recording from " + upstreamBaseUrl));
+        return baseUrl;
+    }
+
+    /**
+     * Stops the server and logs what it served
+     */
+    public void stop() {
+        server.stop(0);
+        responder.shutdownNow();
+        acceptor.shutdownNow();
+        LOGGER.info("Stub server served " + served.get() + ", failed " + failed.get() + ", throttled " + throttled.get());
+    }
+
+    /**
+     * Writes the sample responses as path-wide recordings unless they are already recorded
+     *
+     * @throws IOException If a recording cannot be written
+     */
+    private void seedFromSamples() throws IOException {
+        for (Map.Entry<String, String> sample : SAMPLE_RESPONSES.entrySet()) {
+            Path recording = recordingPath(sample.getKey());
+            if (Files.exists(recording)) {
+                continue;
+            }
+            try (InputStream in = StatsStubServer.class.getResourceAsStream("/" + sample.getValue())) {
+                if (in == null) {
+                    LOGGER.error("Missing sample response " + sample.getValue());
+                    continue;
+                }
+                writeRecording(sample.getKey(), in.readAllBytes());
+            }
+        }
+    }
+
+    /**
+     * Answers one request after the simulated latency, unless it is throttled or chosen to fail
+     *
+     * @param exchange the request
+     */
+    private void handle(HttpExchange exchange) {
+        if (isThrottled()) {
+            throttled.incrementAndGet();
+            respond(exchange, 429, new byte[0]);
+            return;
+        }
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        responder.schedule(() -> {
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failed.incrementAndGet();
+                respond(exchange, 503, new byte[0]);
+                return;
+            }
+            byte[] body = findRecording(exchange.getRequestURI());
+            if (body == null) {
+                failed.incrementAndGet();
+                respond(exchange, 404, new byte[0]);
+                return;
+            }
+            served.incrementAndGet();
+            respond(exchange, 200, body);
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts a request against the per-second limit
+     *
+     * @return true if the limit for the current second is used up
+     */
+    private synchronized boolean isThrottled() {
+        if (throttleRequestsPerSecond <= 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - throttleWindowStart >= TimeUnit.SECONDS.toNanos(1)) {
+            throttleWindowStart = now;
+            throttleWindowCount = 0;
+        }
+        return ++throttleWindowCount > throttleRequestsPerSecond;
+    }
+
+    /**
+     * Finds the body to replay for a request, recording it from upstream if needed
+     *
+     * @param requestUri path and query of the request
+     * @return the body, or null if nothing is recorded for the request or its path
+     */
+    private byte[] findRecording(URI requestUri) {
+        String key = recordingKey(requestUri.toString());
+        byte[] body = readRecording(key);
+        if (body == null && upstreamBaseUrl != null) {
+            try {
+                body = upstreamClient.fetch(upstreamBaseUrl + requestUri).getBytes(StandardCharsets.UTF_8);
+                writeRecording(key, body);
+                loadedRecordings.put(key, body);
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return body != null ? body : readRecording(requestUri.getPath());
+    }
+
+    /**
+     * Reads a recording, keeping it in memory after the first read
+     *
+     * @param key normalized path and query, or a bare path for path-wide recordings
+     * @return the body, or null if it is not recorded
+     */
+    private byte[] readRecording(String key) {
+        byte[] body = loadedRecordings.get(key);
+        if (body == null) {
+            Path recording = recordingPath(key);
+            if (!Files.exists(recording)) {
+                return null;
+            }
+            try {
+                body = Files.readAllBytes(recording);
+                loadedRecordings.put(key, body);
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage());
+            }
+        }
+        return body;
+    }
+
+    private void writeRecording(String key, byte[] body) throws IOException {
+        Path tempFile = Files.createTempFile(recordings, "recording", ".tmp");
+        Files.write(tempFile, body);
+        Files.move(tempFile, recordingPath(key), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Builds the key of a request independent of the host it was sent to
+     *
+     * @param pathAndQuery path and query of the request
+     * @return the key
+     */
+    static String recordingKey(String pathAndQuery) {
+        String normalized = ResponseCache.normalize("http://stub" + pathAndQuery);
+        return normalized.substring("stub".length());
+    }
+
+    private Path recordingPath(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (int i = 0; i < 16; i++) {
+                name.append(String.format("%02x", hash[i]));
+            }
+            return recordings.resolve(name + ".body");
+        } catch (NoSuchAlgorithmException ex) {
+            //Every JVM is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Sends a response, gzipped when the client accepts it
+     *
+     * @param exchange the request
+     * @param status   HTTP status code
+     * @param body     response body
+     */
+    private void respond(HttpExchange exchange, int status, byte[] body) {
+        try {
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (body.length > 0 && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (OutputStream out = new GZIPOutputStream(compressed)) {
+                    out.write(body);
+                }
+                body = compressed.toByteArray();
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+            if (body.length > 0) {
+                exchange.getResponseBody().write(body);
+            }
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Sets the simulated response time
+     *
+     * @param latencyMillis least time before each response
+     * @param jitterMillis  most extra random time added to each response
+     */
+    public void setLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+    }
+
+    /**
+     * @param errorRate share of requests answered with 503, from 0 to 1
+     */
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * @param throttleRequestsPerSecond requests allowed per second before answering 429, or 0 for no limit
+     */
+    public void setThrottleRequestsPerSecond(int throttleRequestsPerSecond) {
+        this.throttleRequestsPerSecond = throttleRequestsPerSecond;
+    }
+
+    public long getServedCount() {
+        return served.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getThrottledCount() {
+        return throttled.get();
+    }
+
+    /**
+     * Runs the stub server until the process is stopped
+     *
+     * @param args settings as --name=value
+     * @throws IOException If the server cannot start
+     */
+    public static void main(String[] args) throws IOException {
+        HashMap<String, String> settings = new HashMap<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (arg.startsWith("--") && split > 2) {
+                settings.put(arg.substring(2, split), arg.substring(split + 1));
+            }
+        }
+        StatsStubServer stub = new StatsStubServer(Paths.get(settings.getOrDefault("recordings", "stub-recordings")), settings.get("upstream"));
+        stub.setLatency(Long.parseLong(settings.getOrDefault("latency-ms", "0")), Long.parseLong(settings.getOrDefault("jitter-ms", "0")));
+        stub.setErrorRate(Double.parseDouble(settings.getOrDefault("error-rate", "0")));
+        stub.setThrottleRequestsPerSecond(Integer.parseInt(settings.getOrDefault("throttle-rps", "0")));
+        stub.start(Integer.parseInt(settings.getOrDefault("port", "8089")));
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+    }
+}
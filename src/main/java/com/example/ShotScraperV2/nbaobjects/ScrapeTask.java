@@ -0,0 +1,70 @@
+package com.example.ShotScraperV2.nbaobjects;
+
+import java.util.Objects;
+
+/**
+ * A single shot search: one player in one season type of one year
+ */
+public class ScrapeTask {
+    private Player player;
+    private String year, seasonType, shotTableName;
+    /**
+     * If an earlier run started this season without finishing it, so some of its shots may already be saved
+     */
+    private boolean resumed;
+
+    /**
+     * @param player        the player whose shots are searched
+     * @param year          season as YYYY-YY
+     * @param seasonType    readable season type (Preseason, Regular Season, Playoffs)
+     * @param shotTableName name of the table holding the player's shots for the season
+     */
+    public ScrapeTask(Player player, String year, String seasonType, String shotTableName) {
+        this.player = player;
+        this.year = year;
+        this.seasonType = seasonType;
+        this.shotTableName = shotTableName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ScrapeTask task = (ScrapeTask) o;
+        return player.getPlayerId() == task.player.getPlayerId() && Objects.equals(year, task.year) && Objects.equals(seasonType, task.seasonType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(player.getPlayerId(), year, seasonType);
+    }
+
+    @Override
+    public String toString() {
+        return shotTableName;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public String getYear() {
+        return year;
+    }
+
+    public String getSeasonType() {
+        return seasonType;
+    }
+
+    public String getShotTableName() {
+        return shotTableName;
+    }
+
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    public void setResumed(boolean resumed) {
+        this.resumed = resumed;
+    }
+}
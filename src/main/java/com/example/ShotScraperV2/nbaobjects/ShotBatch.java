@@ -0,0 +1,159 @@
+package com.example.ShotScraperV2.nbaobjects;
+
+import java.util.Arrays;
+
+/**
+ * Compact, column-oriented store of the shots from one response
+ * <p>
+ * Numbers are kept in primitive arrays so a season of shots costs a few arrays instead of one object per shot
+ */
+public class ShotBatch {
+    private int size;
+    private String contentHash;
+    private boolean unchanged;
+    private int[] gameIds, gameEventIds, playerIds, teamIds, periods, minutes, seconds, distances, xs, ys, gameDates;
+    private boolean[] makes;
+    private String[] teamNames, playTypes, shotTypes, shotZoneBasics, shotZoneAreas, shotZoneRanges, homeTeamAbbrs, awayTeamAbbrs;
+
+    public ShotBatch() {
+        this(64);
+    }
+
+    /**
+     * @param initialCapacity number of shots that fit before the arrays grow
+     */
+    public ShotBatch(int initialCapacity) {
+        allocate(Math.max(1, initialCapacity));
+    }
+
+    /**
+     * Creates an empty batch standing in for a response identical to the one already saved
+     *
+     * @param contentHash hash of the response body
+     * @return a batch marked unchanged
+     */
+    public static ShotBatch unchanged(String contentHash) {
+        ShotBatch batch = new ShotBatch(1);
+        batch.contentHash = contentHash;
+        batch.unchanged = true;
+        return batch;
+    }
+
+    /**
+     * Creates or resizes every column to the given capacity
+     *
+     * @param capacity new capacity
+     */
+    private void allocate(int capacity) {
+        gameIds = gameIds == null ? new int[capacity] : Arrays.copyOf(gameIds, capacity);
+        gameEventIds = gameEventIds == null ? new int[capacity] : Arrays.copyOf(gameEventIds, capacity);
+        playerIds = playerIds == null ? new int[capacity] : Arrays.copyOf(playerIds, capacity);
+        teamIds = teamIds == null ? new int[capacity] : Arrays.copyOf(teamIds, capacity);
+        periods = periods == null ? new int[capacity] : Arrays.copyOf(periods, capacity);
+        minutes = minutes == null ? new int[capacity] : Arrays.copyOf(minutes, capacity);
+        seconds = seconds == null ? new int[capacity] : Arrays.copyOf(seconds, capacity);
+        distances = distances == null ? new int[capacity] : Arrays.copyOf(distances, capacity);
+        xs = xs == null ? new int[capacity] : Arrays.copyOf(xs, capacity);
+        ys = ys == null ? new int[capacity] : Arrays.copyOf(ys, capacity);
+        gameDates = gameDates == null ? new int[capacity] : Arrays.copyOf(gameDates, capacity);
+        makes = makes == null ? new boolean[capacity] : Arrays.copyOf(makes, capacity);
+        teamNames = teamNames == null ? new String[capacity] : Arrays.copyOf(teamNames, capacity);
+        playTypes = playTypes == null ? new String[capacity] : Arrays.copyOf(playTypes, capacity);
+        shotTypes = shotTypes == null ? new String[capacity] : Arrays.copyOf(shotTypes, capacity);
+        shotZoneBasics = shotZoneBasics == null ? new String[capacity] : Arrays.copyOf(shotZoneBasics, capacity);
+        shotZoneAreas = shotZoneAreas == null ? new String[capacity] : Arrays.copyOf(shotZoneAreas, capacity);
+        shotZoneRanges = shotZoneRanges == null ? new String[capacity] : Arrays.copyOf(shotZoneRanges, capacity);
+        homeTeamAbbrs = homeTeamAbbrs == null ? new String[capacity] : Arrays.copyOf(homeTeamAbbrs, capacity);
+        awayTeamAbbrs = awayTeamAbbrs == null ? new String[capacity] : Arrays.copyOf(awayTeamAbbrs, capacity);
+    }
+
+    /**
+     * Copies a shot into the next row
+     *
+     * @param shot the shot to store
+     */
+    public void add(ShotRecord shot) {
+        if (size == gameIds.length) {
+            allocate(size * 2);
+        }
+        gameIds[size] = shot.getGameId();
+        gameEventIds[size] = shot.getGameEventId();
+        playerIds[size] = shot.getPlayerId();
+        teamIds[size] = shot.getTeamId();
+        periods[size] = shot.getPeriod();
+        minutes[size] = shot.getMinutes();
+        seconds[size] = shot.getSeconds();
+        distances[size] = shot.getDistance();
+        xs[size] = shot.getX();
+        ys[size] = shot.getY();
+        gameDates[size] = shot.getGameDate();
+        makes[size] = shot.isMade();
+        teamNames[size] = shot.getTeamName();
+        playTypes[size] = shot.getPlayType();
+        shotTypes[size] = shot.getShotType();
+        shotZoneBasics[size] = shot.getShotZoneBasic();
+        shotZoneAreas[size] = shot.getShotZoneArea();
+        shotZoneRanges[size] = shot.getShotZoneRange();
+        homeTeamAbbrs[size] = shot.getHomeTeamAbbr();
+        awayTeamAbbrs[size] = shot.getAwayTeamAbbr();
+        size++;
+    }
+
+    /**
+     * Fills a reusable record with the shot at a given row
+     *
+     * @param index row index
+     * @param shot  the record to fill
+     */
+    public void readInto(int index, ShotRecord shot) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Shot " + index + " of " + size);
+        }
+        shot.setGameId(gameIds[index]);
+        shot.setGameEventId(gameEventIds[index]);
+        shot.setPlayerId(playerIds[index]);
+        shot.setTeamId(teamIds[index]);
+        shot.setPeriod(periods[index]);
+        shot.setMinutes(minutes[index]);
+        shot.setSeconds(seconds[index]);
+        shot.setDistance(distances[index]);
+        shot.setX(xs[index]);
+        shot.setY(ys[index]);
+        shot.setGameDate(gameDates[index]);
+        shot.setMade(makes[index]);
+        shot.setTeamName(teamNames[index]);
+        shot.setPlayType(playTypes[index]);
+        shot.setShotType(shotTypes[index]);
+        shot.setShotZoneBasic(shotZoneBasics[index]);
+        shot.setShotZoneArea(shotZoneAreas[index]);
+        shot.setShotZoneRange(shotZoneRanges[index]);
+        shot.setHomeTeamAbbr(homeTeamAbbrs[index]);
+        shot.setAwayTeamAbbr(awayTeamAbbrs[index]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return hash of the response body the shots were parsed from, or null if it was not hashed
+     */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * @return true if the response matched the one already saved and was not parsed
+     */
+    public boolean isUnchanged() {
+        return unchanged;
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.ShotScraperV2.nbaobjects;
+
+/**
+ * Reusable, primitive-typed view of one row of shot chart data
+ * <p>
+ * The same instance is refilled for every row, so it must not be kept after the row has been handled
+ */
+public class ShotRecord {
+    private int gameId, gameEventId, playerId, teamId, period, minutes, seconds, distance, x, y, gameDate;
+    private boolean made;
+    private String teamName, playType, shotType, shotZoneBasic, shotZoneArea, shotZoneRange, homeTeamAbbr, awayTeamAbbr;
+
+    /**
+     * Resets every field before the record is refilled
+     */
+    public void clear() {
+        gameId = gameEventId = playerId = teamId = period = minutes = seconds = distance = x = y = gameDate = 0;
+        made = false;
+        teamName = playType = shotType = shotZoneBasic = shotZoneArea = shotZoneRange = homeTeamAbbr = awayTeamAbbr = null;
+    }
+
+    /**
+     * Builds the ID used as the primary key of every shot table
+     *
+     * @return player ID, game ID, and game event ID joined by dashes
+     */
+    public String getUniqueShotId() {
+        return playerId + "-" + gameId + "-" + gameEventId;
+    }
+
+    public int getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(int gameId) {
+        this.gameId = gameId;
+    }
+
+    public int getGameEventId() {
+        return gameEventId;
+    }
+
+    public void setGameEventId(int gameEventId) {
+        this.gameEventId = gameEventId;
+    }
+
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    public void setPlayerId(int playerId) {
+        this.playerId = playerId;
+    }
+
+    public int getTeamId() {
+        return teamId;
+    }
+
+    public void setTeamId(int teamId) {
+        this.teamId = teamId;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(int period) {
+        this.period = period;
+    }
+
+    public int getMinutes() {
+        return minutes;
+    }
+
+    public void setMinutes(int minutes) {
+        this.minutes = minutes;
+    }
+
+    public int getSeconds() {
+        return seconds;
+    }
+
+    public void setSeconds(int seconds) {
+        this.seconds = seconds;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public void setDistance(int distance) {
+        this.distance = distance;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public void setX(int x) {
+        this.x = x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public void setY(int y) {
+        this.y = y;
+    }
+
+    /**
+     * @return game date as the number YYYYMMDD
+     */
+    public int getGameDate() {
+        return gameDate;
+    }
+
+    public void setGameDate(int gameDate) {
+        this.gameDate = gameDate;
+    }
+
+    public boolean isMade() {
+        return made;
+    }
+
+    public void setMade(boolean made) {
+        this.made = made;
+    }
+
+    public String getTeamName() {
+        return teamName;
+    }
+
+    public void setTeamName(String teamName) {
+        this.teamName = teamName;
+    }
+
+    public String getPlayType() {
+        return playType;
+    }
+
+    public void setPlayType(String playType) {
+        this.playType = playType;
+    }
+
+    public String getShotType() {
+        return shotType;
+    }
+
+    public void setShotType(String shotType) {
+        this.shotType = shotType;
+    }
+
+    public String getShotZoneBasic() {
+        return shotZoneBasic;
+    }
+
+    public void setShotZoneBasic(String shotZoneBasic) {
+        this.shotZoneBasic = shotZoneBasic;
+    }
+
+    public String getShotZoneArea() {
+        return shotZoneArea;
+    }
+
+    public void setShotZoneArea(String shotZoneArea) {
+        this.shotZoneArea = shotZoneArea;
+    }
+
+    public String getShotZoneRange() {
+        return shotZoneRange;
+    }
+
+    public void setShotZoneRange(String shotZoneRange) {
+        this.shotZoneRange = shotZoneRange;
+    }
+
+    public String getHomeTeamAbbr() {
+        return homeTeamAbbr;
+    }
+
+    public void setHomeTeamAbbr(String homeTeamAbbr) {
+        this.homeTeamAbbr = homeTeamAbbr;
+    }
+
+    public String getAwayTeamAbbr() {
+        return awayTeamAbbr;
+    }
+
+    public void setAwayTeamAbbr(String awayTeamAbbr) {
+        this.awayTeamAbbr = awayTeamAbbr;
+    }
+}
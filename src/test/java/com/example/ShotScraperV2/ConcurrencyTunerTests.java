@@ -0,0 +1,125 @@
+package com.example.ShotScraperV2;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ConcurrencyTuner")
+public class ConcurrencyTunerTests {
+
+    /**
+     * Checks that workers are added while throughput rises and the last move is undone when it falls
+     */
+    @Test
+    @DisplayName("climbs while throughput rises")
+    void shouldClimbWhileThroughputRises() {
+        ConcurrencyTuner tuner = new ConcurrencyTuner(true, 2, 8, TimeUnit.HOURS.toMillis(1));
+        assertEquals(4, tuner.begin(100, 4));
+        assertEquals(4, tuner.getLimit());
+        tuner.adjust(100);
+        assertEquals(5, tuner.getLimit());
+        tuner.adjust(150);
+        assertEquals(6, tuner.getLimit());
+        tuner.adjust(100);
+        assertEquals(5, tuner.getLimit());
+        //Same throughput holds the limit
+        tuner.adjust(101);
+        assertEquals(5, tuner.getLimit());
+        tuner.end();
+    }
+
+    /**
+     * Checks that workers are only started once the limit first grows past the workers already started
+     */
+    @Test
+    @DisplayName("starts workers as the limit grows")
+    void shouldStartWorkersAsLimitGrows() {
+        ConcurrencyTuner tuner = new ConcurrencyTuner(true, 1, 8, TimeUnit.HOURS.toMillis(1));
+        AtomicInteger startedLater = new AtomicInteger();
+        assertEquals(2, tuner.begin(100, 2, startedLater::addAndGet));
+        tuner.adjust(100);
+        assertEquals(1, startedLater.get());
+        tuner.adjust(200);
+        assertEquals(2, startedLater.get());
+        //Falling back and climbing to the old high point reuses the parked workers
+        tuner.adjust(100);
+        tuner.adjust(150);
+        assertEquals(2, tuner.getLimit());
+        tuner.adjust(100);
+        tuner.adjust(150);
+        assertEquals(4, tuner.getLimit());
+        assertEquals(2, startedLater.get());
+        tuner.adjust(200);
+        assertEquals(5, tuner.getLimit());
+        assertEquals(3, startedLater.get());
+        tuner.end();
+    }
+
+    /**
+     * Checks that the limit stays within its bounds and never exceeds the queued seasons
+     */
+    @Test
+    @DisplayName("stays within bounds")
+    void shouldStayWithinBounds() {
+        ConcurrencyTuner tuner = new ConcurrencyTuner(true, 2, 8, TimeUnit.HOURS.toMillis(1));
+        assertEquals(3, tuner.begin(3, 4));
+        assertEquals(3, tuner.getLimit());
+        for (int i = 1; i < 10; i++) {
+            tuner.adjust(i * 100);
+        }
+        assertEquals(3, tuner.getLimit());
+        for (int i = 10; i > 0; i--) {
+            tuner.adjust(i * 10);
+            assertTrue(tuner.getLimit() >= 2);
+        }
+        tuner.end();
+        assertEquals(4, new ConcurrencyTuner(false, 2, 8, 1000).begin(100, 4));
+    }
+
+    /**
+     * Checks that a worker above the limit waits until it is let in, and is released when the queue runs dry
+     */
+    @Test
+    @DisplayName("parks workers above the limit")
+    void shouldParkWorkersAboveLimit() throws InterruptedException {
+        ConcurrencyTuner tuner = new ConcurrencyTuner(true, 1, 4, TimeUnit.HOURS.toMillis(1));
+        tuner.begin(10, 1);
+        assertEquals(0, tuner.register());
+        int slot = tuner.register();
+        assertTrue(tuner.isActive(0));
+        assertFalse(tuner.isActive(slot));
+        tuner.adjust(50);
+        assertTrue(tuner.awaitTurn(slot));
+        Thread waiting = new Thread(() -> {
+            try {
+                assertFalse(tuner.awaitTurn(3));
+            } catch (InterruptedException ex) {
+                fail();
+            }
+        });
+        waiting.start();
+        tuner.drained();
+        waiting.join(5000);
+        assertFalse(waiting.isAlive());
+        tuner.end();
+    }
+
+    /**
+     * Checks the 95th percentile of recorded latencies
+     */
+    @Test
+    @DisplayName("reports p95 latency")
+    void shouldReportP95() {
+        ConcurrencyTuner tuner = new ConcurrencyTuner(true, 1, 4, 1000);
+        assertEquals(0, tuner.getP95Millis(ConcurrencyTuner.Stage.WRITE));
+        for (int i = 1; i <= 100; i++) {
+            tuner.recordLatency(ConcurrencyTuner.Stage.WRITE, TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertEquals(95, tuner.getP95Millis(ConcurrencyTuner.Stage.WRITE));
+        assertEquals(0, tuner.getP95Millis(ConcurrencyTuner.Stage.FETCH));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.Player;
+import com.example.ShotScraperV2.nbaobjects.ScrapeTask;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.PriorityBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PlayerOrdering")
+public class PlayerOrderingTests {
+    private final Player retiredVeteran = new Player("100", "Doe", "John", "0", "2000-01", "2015-16");
+    private final Player activeRookie = new Player("101", "Smith", "Jane", "1", "2020-21", "2020-21");
+    private final Player activeVeteran = new Player("102", "Jackson", "Steve", "1", "2008-09", "2020-21");
+    private final Player recentlyRetired = new Player("103", "Jones", "Bob", "0", "2018-19", "2019-20");
+
+    /**
+     * Polls every player from a queue using the given order
+     *
+     * @param order the order keys
+     * @return players in the order they were polled
+     */
+    private List<Player> pollAll(String order) {
+        PriorityBlockingQueue<Player> queue = new PriorityBlockingQueue<>(11, PlayerOrdering.parse(order, "2020-21"));
+        queue.addAll(List.of(retiredVeteran, activeRookie, activeVeteran, recentlyRetired));
+        List<Player> polled = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            polled.add(queue.poll());
+        }
+        return polled;
+    }
+
+    @Test
+    @DisplayName("puts current players first, then longest careers")
+    void shouldPutCurrentPlayersFirst() {
+        assertEquals(List.of(activeVeteran, activeRookie, recentlyRetired, retiredVeteran), pollAll("current,recent,volume,id"));
+    }
+
+    @Test
+    @DisplayName("orders by expected shot volume")
+    void shouldOrderByVolume() {
+        assertEquals(List.of(retiredVeteran, activeVeteran, recentlyRetired, activeRookie), pollAll("volume,id"));
+    }
+
+    @Test
+    @DisplayName("rejects unknown keys")
+    void shouldRejectUnknownKeys() {
+        assertThrows(NoSuchElementException.class, () -> PlayerOrdering.parse("current,alphabetical", "2020-21"));
+    }
+
+    @Test
+    @DisplayName("orders seasons of a player newest first")
+    void shouldOrderTasksNewestFirst() {
+        PriorityBlockingQueue<ScrapeTask> queue = new PriorityBlockingQueue<>(11, PlayerOrdering.forTasks(PlayerOrdering.parse("current", "2020-21")));
+        ScrapeTask oldSeason = new ScrapeTask(activeVeteran, "2008-09", "Regular Season", "Jackson_Steve_102_2008_09_RegularSeason");
+        ScrapeTask newSeason = new ScrapeTask(activeVeteran, "2020-21", "Regular Season", "Jackson_Steve_102_2020_21_RegularSeason");
+        ScrapeTask retiredSeason = new ScrapeTask(retiredVeteran, "2015-16", "Regular Season", "Doe_John_100_2015_16_RegularSeason");
+        queue.addAll(List.of(retiredSeason, oldSeason, newSeason));
+        assertEquals(newSeason, queue.poll());
+        assertEquals(oldSeason, queue.poll());
+        assertEquals(retiredSeason, queue.poll());
+    }
+}
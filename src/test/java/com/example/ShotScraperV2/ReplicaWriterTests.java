@@ -0,0 +1,200 @@
+package com.example.ShotScraperV2;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ReplicaWriter")
+public class ReplicaWriterTests {
+    @TempDir
+    Path directory;
+
+    /**
+     * Checks that writes not yet applied are loaded again, in order and with their parameters, by the next process
+     */
+    @Test
+    @DisplayName("keeps queued writes across restarts")
+    void shouldKeepQueuedWritesAcrossRestarts() {
+        Path file = directory.resolve("replica.log");
+        ReplicaWriter replicaWriter = new ReplicaWriter("playerremote", file, () -> {
+            throw new SQLException("unreachable");
+        });
+        replicaWriter.enqueue("CREATE TABLE IF NOT EXISTS t (id int)");
+        replicaWriter.enqueue("UPDATE t SET name = ? WHERE id = ?", null, 7);
+        assertEquals(2, replicaWriter.getPendingCount());
+
+        ReplicaWriter restarted = new ReplicaWriter("playerremote", file, () -> {
+            throw new SQLException("unreachable");
+        });
+        List<ReplicaWriter.Operation> pending = restarted.getPending();
+        assertEquals(2, pending.size());
+        assertEquals("CREATE TABLE IF NOT EXISTS t (id int)", pending.get(0).getSql());
+        assertTrue(pending.get(0).getRows().isEmpty());
+        assertEquals("UPDATE t SET name = ? WHERE id = ?", pending.get(1).getSql());
+        assertArrayEquals(new Object[]{null, 7}, pending.get(1).getRows().get(0));
+    }
+
+    /**
+     * Checks that writes are applied in the order they were queued and the file is removed once nothing is left
+     */
+    @Test
+    @DisplayName("applies writes in order")
+    void shouldApplyWritesInOrder() throws InterruptedException {
+        Path file = directory.resolve("replica.log");
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        ReplicaWriter replicaWriter = new ReplicaWriter("shotremote", file, () -> fakeConnection(executed, new AtomicInteger()));
+        replicaWriter.enqueue("CREATE TABLE IF NOT EXISTS t (id int)");
+        replicaWriter.enqueue("INSERT IGNORE INTO t VALUES (?)", List.of(new Object[]{1}, new Object[]{2}, new Object[]{3}));
+        replicaWriter.enqueue("INSERT IGNORE INTO t VALUES (?)", List.<Object[]>of(new Object[]{4}));
+        replicaWriter.enqueue("UPDATE t SET id = ? WHERE id = ?", 5, 4);
+        assertTrue(replicaWriter.awaitDrained(5000));
+        List<String> applied = new ArrayList<>(executed);
+        applied.removeIf(each -> each.equals("COMMIT"));
+        assertEquals(List.of("CREATE TABLE IF NOT EXISTS t (id int)", "INSERT IGNORE INTO t VALUES (?) [1]", "INSERT IGNORE INTO t VALUES (?) [2]",
+                "INSERT IGNORE INTO t VALUES (?) [3]", "INSERT IGNORE INTO t VALUES (?) [4]", "UPDATE t SET id = ? WHERE id = ? [5, 4]"), applied);
+        assertEquals(0, replicaWriter.getPendingCount());
+        assertEquals(0, replicaWriter.getLagMillis());
+        assertFalse(Files.exists(file));
+    }
+
+    /**
+     * Checks that writes past the rows kept in memory stay only in the file, across restarts, and are still applied in order
+     *
+     * @throws InterruptedException If interrupted while waiting for the writes
+     */
+    @Test
+    @DisplayName("keeps writes past its memory limit in the file")
+    void shouldSpillWritesPastMemoryLimit() throws InterruptedException {
+        Path file = directory.resolve("replica.log");
+        ReplicaWriter replicaWriter = new ReplicaWriter("shotremote", file, () -> {
+            throw new SQLException("unreachable");
+        }, 2);
+        for (int id = 1; id <= 5; id++) {
+            replicaWriter.enqueue("INSERT IGNORE INTO t VALUES (?)", List.<Object[]>of(new Object[]{id}));
+        }
+        assertEquals(5, replicaWriter.getPendingCount());
+        assertEquals(2, replicaWriter.getPending().size());
+
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch reachable = new CountDownLatch(1);
+        ReplicaWriter restarted = new ReplicaWriter("shotremote", file, () -> {
+            reachable.await();
+            return fakeConnection(executed, new AtomicInteger());
+        }, 2);
+        assertEquals(5, restarted.getPendingCount());
+        assertEquals(2, restarted.getPending().size());
+        reachable.countDown();
+        assertTrue(restarted.awaitDrained(10000));
+        List<String> applied = new ArrayList<>(executed);
+        applied.removeIf(each -> each.equals("COMMIT"));
+        assertEquals(List.of("INSERT IGNORE INTO t VALUES (?) [1]", "INSERT IGNORE INTO t VALUES (?) [2]", "INSERT IGNORE INTO t VALUES (?) [3]",
+                "INSERT IGNORE INTO t VALUES (?) [4]", "INSERT IGNORE INTO t VALUES (?) [5]"), applied);
+        assertFalse(Files.exists(file));
+    }
+
+    /**
+     * Checks that a batch the database rejects is rolled back and applied on a later attempt
+     */
+    @Test
+    @DisplayName("retries failed writes")
+    void shouldRetryFailedWrites() throws InterruptedException {
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger failures = new AtomicInteger(1);
+        ReplicaWriter replicaWriter = new ReplicaWriter("shotremote", directory.resolve("replica.log"), () -> fakeConnection(executed, failures));
+        replicaWriter.enqueue("INSERT IGNORE INTO t VALUES (?)", List.<Object[]>of(new Object[]{1}));
+        assertTrue(replicaWriter.awaitDrained(10000));
+        assertEquals(List.of("ROLLBACK", "INSERT IGNORE INTO t VALUES (?) [1]", "COMMIT"), executed);
+    }
+
+    /**
+     * Checks that outages and lock conflicts are retried without limit, and only errors in the writes themselves count toward dropping them
+     */
+    @Test
+    @DisplayName("tells outages from bad writes")
+    void shouldTellOutagesFromBadWrites() {
+        assertTrue(ReplicaWriter.isTransient(new SQLException("Communications link failure", "08S01")));
+        assertTrue(ReplicaWriter.isTransient(new SQLException("Connection reset", "08007")));
+        assertTrue(ReplicaWriter.isTransient(new SQLException("Deadlock found when trying to get lock", "40001", 1213)));
+        assertTrue(ReplicaWriter.isTransient(new SQLException("Lock wait timeout exceeded", "HY000", 1205)));
+        assertTrue(ReplicaWriter.isTransient(new SQLException("The MySQL server is running with the --read-only option", "HY000", 1290)));
+        assertTrue(ReplicaWriter.isTransient(new SQLTransientConnectionException("Connection is not available")));
+        assertTrue(ReplicaWriter.isTransient(new SQLException("Batch failed", new SQLRecoverableException("Lost connection"))));
+        assertFalse(ReplicaWriter.isTransient(new SQLException("Data too long for column 'playtype'", "22001", 1406)));
+        assertFalse(ReplicaWriter.isTransient(new SQLException("Table 't' doesn't exist", "42S02", 1146)));
+    }
+
+    /**
+     * Creates a connection that records each statement it runs, failing the first batches it is told to
+     *
+     * @param executed statements run and transactions ended
+     * @param failures number of batches still to fail
+     * @return the connection
+     */
+    private static Connection fakeConnection(List<String> executed, AtomicInteger failures) {
+        return (Connection) Proxy.newProxyInstance(ReplicaWriterTests.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return fakeStatement(PreparedStatement.class, (String) args[0], executed, failures);
+                case "createStatement":
+                    return fakeStatement(Statement.class, null, executed, failures);
+                case "commit":
+                    executed.add("COMMIT");
+                    return null;
+                case "rollback":
+                    executed.add("ROLLBACK");
+                    return null;
+                case "isValid":
+                    return true;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static Object fakeStatement(Class<?> type, String sql, List<String> executed, AtomicInteger failures) {
+        List<Object> params = new ArrayList<>();
+        List<String> batch = new ArrayList<>();
+        return Proxy.newProxyInstance(ReplicaWriterTests.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setObject":
+                    params.add(args[1]);
+                    return null;
+                case "addBatch":
+                    batch.add(sql + " " + Arrays.toString(params.toArray()));
+                    params.clear();
+                    return null;
+                case "executeBatch":
+                    if (failures.getAndDecrement() > 0) {
+                        throw new SQLException("Lost connection");
+                    }
+                    executed.addAll(batch);
+                    int[] updateCounts = new int[batch.size()];
+                    batch.clear();
+                    return updateCounts;
+                case "execute":
+                    executed.add((String) args[0]);
+                    return false;
+                default:
+                    return null;
+            }
+        });
+    }
+}
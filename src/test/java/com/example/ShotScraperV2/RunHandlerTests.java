@@ -1,6 +1,7 @@
 package com.example.ShotScraperV2;
 
 import com.example.ShotScraperV2.nbaobjects.Player;
+import com.example.ShotScraperV2.nbaobjects.ScrapeTask;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -10,6 +11,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -124,6 +126,35 @@ public class RunHandlerTests implements ScraperUtilsInterface {
         conn.close();
     }
 
+    /**
+     * Checks that each queued player is split into one task per active season type per year
+     *
+     * @throws SQLException If statement fails
+     */
+    @Test
+    void shouldPopulateTaskQueueWithEachActiveSeason() throws SQLException {
+        Connection conn = ScraperUtilsInterface.super.setNewConnection("playertest");
+        allTeamAndPlayerScraper.createGeneralTablesIfNecessary(conn, "playertest");
+        setupDatabaseWithPlayers(conn);
+        conn.prepareStatement("CREATE TABLE Jackson_Steve_103_individual_data (year varchar(10), reg int, preseason int, playoffs int)").execute();
+        conn.prepareStatement("INSERT INTO Jackson_Steve_103_individual_data VALUES ('2019-20', 1, 1, 0), ('2020-21', 1, 0, 1)").execute();
+        runHandler.populateThreadSafeQueueWithPlayers(conn, true, true, false, conn.getSchema());
+        ShotScraper shotScraper = new ShotScraper("playertest", "playertest", "playertest", "playertest", new IndividualPlayerScraper("playertest", "playertest"));
+        assertEquals(4, runHandler.populateThreadSafeQueueWithTasks(shotScraper, conn, conn, "playertest", false, ""));
+        HashSet<String> polledTables = new HashSet<>();
+        while (true) {
+            ScrapeTask polledTask = RunHandler.pollTaskQueue();
+            if (polledTask == null) {
+                break;
+            }
+            polledTables.add(polledTask.getShotTableName());
+        }
+        assertEquals(new HashSet<>(Set.of("Jackson_Steve_103_2019_20_RegularSeason", "Jackson_Steve_103_2019_20_Preseason",
+                "Jackson_Steve_103_2020_21_RegularSeason", "Jackson_Steve_103_2020_21_Playoffs")), polledTables);
+        assertNull(RunHandler.pollQueue());
+        conn.close();
+    }
+
     /**
      * Sets up database with known values
      *
@@ -0,0 +1,84 @@
+package com.example.ShotScraperV2;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RunStatistics")
+public class RunStatisticsTests {
+
+    /**
+     * Checks that counters added from many threads at once are all kept, for each season type
+     */
+    @Test
+    @DisplayName("counts from many threads")
+    void shouldCountFromManyThreads() throws InterruptedException {
+        RunStatistics statistics = new RunStatistics();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String seasonType = i % 2 == 0 ? "Regular Season" : "Playoffs";
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    statistics.add(RunStatistics.Counter.SHOTS_INSERTED, seasonType, 1);
+                    statistics.add(RunStatistics.Counter.REQUESTS, 1);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        RunStatistics.Snapshot snapshot = statistics.snapshot();
+        assertEquals(40000, snapshot.get(RunStatistics.Counter.SHOTS_INSERTED, "Regular Season"));
+        assertEquals(40000, snapshot.get(RunStatistics.Counter.SHOTS_INSERTED, "Playoffs"));
+        assertEquals(0, snapshot.get(RunStatistics.Counter.SHOTS_INSERTED, "Preseason"));
+        assertEquals(80000, snapshot.getTotal(RunStatistics.Counter.SHOTS_INSERTED));
+        assertEquals(80000, snapshot.get(RunStatistics.Counter.REQUESTS, RunStatistics.ANY_SEASON_TYPE));
+    }
+
+    /**
+     * Checks that latencies recorded on separate threads are merged into one histogram
+     */
+    @Test
+    @DisplayName("merges latency histograms")
+    void shouldMergeHistograms() throws InterruptedException {
+        RunStatistics statistics = new RunStatistics();
+        Thread other = new Thread(() -> {
+            for (int i = 51; i <= 100; i++) {
+                statistics.recordLatency(RunStatistics.Stage.WRITE, TimeUnit.MILLISECONDS.toNanos(i));
+            }
+        });
+        other.start();
+        for (int i = 1; i <= 50; i++) {
+            statistics.recordLatency(RunStatistics.Stage.WRITE, TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        other.join();
+        RunStatistics.Snapshot snapshot = statistics.snapshot();
+        assertEquals(100, snapshot.getCount(RunStatistics.Stage.WRITE));
+        assertEquals(0, snapshot.getCount(RunStatistics.Stage.FETCH));
+        assertEquals(50.5, snapshot.getMeanMillis(RunStatistics.Stage.WRITE), 0.01);
+        //Buckets are a quarter of a power of two wide
+        assertEquals(95, snapshot.getPercentileMillis(RunStatistics.Stage.WRITE, 95), 95 * 0.25);
+        assertTrue(snapshot.getPercentileMillis(RunStatistics.Stage.WRITE, 95) >= 95);
+        assertTrue(snapshot.toString().contains("WRITE: count=100"));
+    }
+
+    /**
+     * Checks that every latency falls into the bucket whose bounds hold it
+     */
+    @Test
+    @DisplayName("buckets latencies by their bounds")
+    void shouldBucketByBounds() {
+        for (long micros : new long[]{0, 1, 3, 4, 7, 8, 9, 1000, 65535, 1_000_000, 123_456_789}) {
+            int bucket = RunStatistics.bucketOf(micros);
+            assertTrue(RunStatistics.lowerBoundOf(bucket) <= micros);
+            assertTrue(RunStatistics.lowerBoundOf(bucket + 1) > micros);
+        }
+        assertEquals(RunStatistics.BUCKETS - 1, RunStatistics.bucketOf(Long.MAX_VALUE));
+    }
+}
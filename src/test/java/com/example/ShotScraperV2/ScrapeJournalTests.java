@@ -0,0 +1,90 @@
+package com.example.ShotScraperV2;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ScrapeJournal")
+public class ScrapeJournalTests {
+    @TempDir
+    Path directory;
+
+    /**
+     * Checks that a run left open is resumed with each season's state and row count
+     */
+    @Test
+    @DisplayName("resumes an open run after restart")
+    void shouldResumeOpenRun() {
+        Path file = directory.resolve("journal.log");
+        ScrapeJournal journal = new ScrapeJournal(file);
+        assertFalse(journal.begin("all"));
+        journal.recordQueued(List.of("Parker_Tony_2225_2018_19_Preseason", "Parker_Tony_2225_2017_18_Playoffs", "Parker_Tony_2225_2016_17_Playoffs"));
+        journal.recordFetched("Parker_Tony_2225_2018_19_Preseason", 45);
+        journal.recordPersisted("Parker_Tony_2225_2018_19_Preseason", 45);
+        journal.recordFetched("Parker_Tony_2225_2017_18_Playoffs", 12);
+
+        ScrapeJournal restarted = new ScrapeJournal(file);
+        assertTrue(restarted.begin("all"));
+        assertEquals(ScrapeJournal.TaskState.PERSISTED, restarted.getState("Parker_Tony_2225_2018_19_Preseason"));
+        assertEquals(45, restarted.getRows("Parker_Tony_2225_2018_19_Preseason"));
+        assertEquals(ScrapeJournal.TaskState.FETCHED, restarted.getState("Parker_Tony_2225_2017_18_Playoffs"));
+        assertEquals(List.of("Parker_Tony_2225_2017_18_Playoffs", "Parker_Tony_2225_2016_17_Playoffs"), restarted.getUnfinishedTables());
+        //Queuing again keeps the progress carried over
+        restarted.recordQueued(List.of("Parker_Tony_2225_2017_18_Playoffs"));
+        assertEquals(ScrapeJournal.TaskState.FETCHED, restarted.getState("Parker_Tony_2225_2017_18_Playoffs"));
+    }
+
+    /**
+     * Checks that ending a run forgets its seasons but keeps other open runs
+     */
+    @Test
+    @DisplayName("compacts finished runs")
+    void shouldCompactFinishedRuns() throws IOException {
+        Path file = directory.resolve("journal.log");
+        ScrapeJournal journal = new ScrapeJournal(file);
+        journal.begin("current_2020-21_reg");
+        journal.recordQueued(List.of("Jackson_Steve_103_2020_21_RegularSeason"));
+        journal.begin("all");
+        journal.recordQueued(List.of("Parker_Tony_2225_2018_19_Preseason"));
+        journal.recordPersisted("Parker_Tony_2225_2018_19_Preseason", 45);
+        journal.end();
+        assertNull(journal.getCurrentRun());
+        assertEquals(2, Files.readAllLines(file).size());
+
+        ScrapeJournal restarted = new ScrapeJournal(file);
+        assertFalse(restarted.begin("all"));
+        assertNull(restarted.getState("Parker_Tony_2225_2018_19_Preseason"));
+        assertTrue(restarted.begin("current_2020-21_reg"));
+        assertEquals(ScrapeJournal.TaskState.QUEUED, restarted.getState("Jackson_Steve_103_2020_21_RegularSeason"));
+    }
+
+    /**
+     * Checks that a line cut short by a crash is ignored
+     */
+    @Test
+    @DisplayName("ignores a torn last line")
+    void shouldIgnoreTornLine() throws IOException {
+        Path file = directory.resolve("journal.log");
+        ScrapeJournal journal = new ScrapeJournal(file);
+        journal.begin("all");
+        journal.recordQueued(List.of("Parker_Tony_2225_2018_19_Preseason"));
+        Files.write(file, "PERSISTED\tall\tParker_Tony_2225_20".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        ScrapeJournal restarted = new ScrapeJournal(file);
+        assertTrue(restarted.begin("all"));
+        assertEquals(ScrapeJournal.TaskState.QUEUED, restarted.getState("Parker_Tony_2225_2018_19_Preseason"));
+        //Lines written after the torn one are still read
+        restarted.recordPersisted("Parker_Tony_2225_2018_19_Preseason", 45);
+        ScrapeJournal reloaded = new ScrapeJournal(file);
+        reloaded.begin("all");
+        assertEquals(ScrapeJournal.TaskState.PERSISTED, reloaded.getState("Parker_Tony_2225_2018_19_Preseason"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.ShotBatch;
+import com.example.ShotScraperV2.nbaobjects.ShotRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransactionRollbackException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShotBulkLoader")
+public class ShotBulkLoaderTests {
+
+    /**
+     * Checks that each sample shot becomes one row with a field for every column, in the form the inserts bind it
+     *
+     * @throws IOException If reading the sample response fails
+     */
+    @Test
+    @DisplayName("writes one row per shot")
+    void shouldWriteRows() throws IOException {
+        ShotBatch shots;
+        try (InputStream response = Files.newInputStream(Path.of("src/main/resources/TonyParker2018-19PreseasonSampleShotData.txt"))) {
+            shots = ShotChartParser.parse(response);
+        }
+        ShotBulkLoader loader = new ShotBulkLoader(abbr -> abbr.equals("CHA") ? 1610612766 : 1);
+        String[] rows = new String(loader.writeRows("Tony", "Parker", "2018-19", "Preseason", shots), StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, rows.length);
+        String[] fields = rows[2].split("\t", -1);
+        assertEquals(29, fields.length);
+        assertEquals("2225-11800071-168", fields[0]);
+        assertEquals("Parker", fields[2]);
+        assertEquals("Tony", fields[3]);
+        assertEquals("Preseason", fields[5]);
+        assertEquals("2018-10-12", fields[8]);
+        assertEquals("00:11:37", fields[9]);
+        assertEquals("0", fields[15]);
+        assertEquals("Driving Floating Jump Shot", fields[18]);
+        assertEquals("1610612766", fields[21]);
+        assertEquals("DAL", fields[24]);
+        //Charlotte played away
+        assertEquals("0", fields[25]);
+    }
+
+    /**
+     * Checks that repeated shots are written once and separators inside text are escaped
+     *
+     * @throws IOException If reading the sample response fails
+     */
+    @Test
+    @DisplayName("skips repeats and escapes text")
+    void shouldSkipRepeatsAndEscape() throws IOException {
+        ShotBatch shots;
+        try (InputStream response = Files.newInputStream(Path.of("src/main/resources/TonyParker2018-19PreseasonSampleShotData.txt"))) {
+            shots = ShotChartParser.parse(response);
+        }
+        ShotRecord shot = new ShotRecord();
+        shots.readInto(0, shot);
+        shots.add(shot);
+        ShotBulkLoader loader = new ShotBulkLoader(abbr -> 1);
+        String[] rows = new String(loader.writeRows("To\tny", "Par\\ker", "2018-19", "Preseason", shots), StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, rows.length);
+        String[] fields = rows[0].split("\t", -1);
+        assertEquals(29, fields.length);
+        assertEquals("Par\\\\ker", fields[2]);
+        assertEquals("To\\tny", fields[3]);
+    }
+
+    /**
+     * Checks that only errors meaning local infile is turned off stop later bulk loads
+     */
+    @Test
+    @DisplayName("recognizes refused local infile")
+    void shouldRecognizeRefusedLocalInfile() {
+        assertTrue(ShotBulkLoader.isLocalInfileRefused(new SQLException("The used command is not allowed with this MySQL version", "42000", 1148)));
+        assertTrue(ShotBulkLoader.isLocalInfileRefused(new SQLException("Loading local data is disabled; this must be enabled on both the client and server sides", "42000", 3948)));
+        assertTrue(ShotBulkLoader.isLocalInfileRefused(new SQLException("Loading local data is disabled; this must be enabled on both the client and server sides")));
+        assertTrue(ShotBulkLoader.isLocalInfileRefused(new SQLFeatureNotSupportedException("LOAD DATA LOCAL INFILE needs MySQL Connector/J")));
+        assertFalse(ShotBulkLoader.isLocalInfileRefused(new SQLTransactionRollbackException("Deadlock found when trying to get lock", "40001", 1213)));
+        assertFalse(ShotBulkLoader.isLocalInfileRefused(new SQLException("Lock wait timeout exceeded", "HY000", 1205)));
+        assertFalse(ShotBulkLoader.isLocalInfileRefused(new SQLException("Communications link failure", "08S01")));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.ShotBatch;
+import com.example.ShotScraperV2.nbaobjects.ShotRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShotChartParser")
+public class ShotChartParserTests {
+
+    /**
+     * Checks that every column used by the shot tables is read from the sample response
+     *
+     * @throws IOException If reading the sample response fails
+     */
+    @Test
+    @DisplayName("reads every shot from sample response")
+    void shouldParseSampleResponse() throws IOException {
+        ShotBatch shots;
+        try (InputStream response = Files.newInputStream(Path.of("src/main/resources/TonyParker2018-19PreseasonSampleShotData.txt"))) {
+            shots = ShotChartParser.parse(response);
+        }
+        assertEquals(3, shots.size());
+        ShotRecord shot = new ShotRecord();
+        shots.readInto(2, shot);
+        assertEquals("2225-11800071-168", shot.getUniqueShotId());
+        assertEquals(1610612766, shot.getTeamId());
+        assertEquals("Charlotte Hornets", shot.getTeamName());
+        assertEquals(2, shot.getPeriod());
+        assertEquals(11, shot.getMinutes());
+        assertEquals(37, shot.getSeconds());
+        assertFalse(shot.isMade());
+        assertEquals("Driving Floating Jump Shot", shot.getPlayType());
+        assertEquals("2PT Field Goal", shot.getShotType());
+        assertEquals("Mid-Range", shot.getShotZoneBasic());
+        assertEquals("Left Side Center(LC)", shot.getShotZoneArea());
+        assertEquals("16-24 ft.", shot.getShotZoneRange());
+        assertEquals(21, shot.getDistance());
+        assertEquals(-149, shot.getX());
+        assertEquals(153, shot.getY());
+        assertEquals(20181012, shot.getGameDate());
+        assertEquals("DAL", shot.getHomeTeamAbbr());
+        assertEquals("CHA", shot.getAwayTeamAbbr());
+    }
+
+    /**
+     * Checks that rows are handed over one at a time and that made shots are recognized
+     *
+     * @throws IOException If parsing fails
+     */
+    @Test
+    @DisplayName("hands each row to consumer")
+    void shouldStreamRowsToConsumer() throws IOException {
+        String response = "{\"resource\":\"shotchartdetail\",\"parameters\":{\"Season\":null},\"resultSets\":[{\"name\":\"Shot_Chart_Detail\",\"headers\":[\"GRID_TYPE\"],"
+                + "\"rowSet\":[[\"Shot Chart Detail\",\"0021800001\",7,2225,\"Tony Parker\",1610612766,\"Charlotte Hornets\",1,11,2,\"Made Shot\",\"Layup Shot\",\"2PT Field Goal\","
+                + "\"Restricted Area\",\"Center(C)\",\"Less Than 8 ft.\",1,4,9,1,1,\"20181017\",\"CHA\",\"MIL\"]]},{\"name\":\"LeagueAverages\",\"rowSet\":[[\"League Averages\"]]}]}";
+        ArrayList<String> uniqueIds = new ArrayList<>();
+        ArrayList<Boolean> makes = new ArrayList<>();
+        int count = ShotChartParser.parse(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)), shot -> {
+            uniqueIds.add(shot.getUniqueShotId());
+            makes.add(shot.isMade());
+        });
+        assertEquals(1, count);
+        assertEquals("2225-21800001-7", uniqueIds.get(0));
+        assertTrue(makes.get(0));
+    }
+
+    /**
+     * Checks that a response without shot data is rejected
+     */
+    @Test
+    @DisplayName("rejects response without rowSet")
+    void shouldRejectResponseWithoutRowSet() {
+        String response = "{\"message\":\"An error has occurred.\"}";
+        assertThrows(IOException.class, () -> ShotChartParser.parse(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.ShotBatch;
+import com.example.ShotScraperV2.nbaobjects.ShotRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShotColumnBinder")
+public class ShotColumnBinderTests {
+
+    /**
+     * Checks that every parameter of each statement is set with its column's type and value
+     *
+     * @throws Exception If reading the sample response or binding fails
+     */
+    @Test
+    @DisplayName("binds every column of a shot")
+    void shouldBindEveryColumn() throws Exception {
+        ShotBatch shots;
+        try (InputStream response = Files.newInputStream(Path.of("src/main/resources/TonyParker2018-19PreseasonSampleShotData.txt"))) {
+            shots = ShotChartParser.parse(response);
+        }
+        ShotRecord shot = new ShotRecord();
+        shots.readInto(2, shot);
+        Map<Integer, Object> first = new HashMap<>();
+        Map<Integer, Object> second = new HashMap<>();
+        ShotColumnBinder binder = new ShotColumnBinder(abbr -> abbr.equals("CHA") ? 1610612766 : 1610612742, "Tony", "Parker", "2018-19", "Preseason");
+        binder.bind(shot, shot.getUniqueShotId(), List.of(recordingStatement(first), recordingStatement(second)));
+        assertEquals(29, first.size());
+        assertEquals(first, second);
+        assertEquals("2225-11800071-168", first.get(1));
+        assertEquals(2225, first.get(2));
+        assertEquals("Parker", first.get(3));
+        assertEquals("Tony", first.get(4));
+        assertEquals(LocalDate.of(2018, 10, 12), first.get(9));
+        assertEquals(LocalTime.of(0, 11, 37), first.get(10));
+        assertEquals(0, first.get(16));
+        assertEquals("Driving Floating Jump Shot", first.get(19));
+        assertEquals(1610612766, first.get(22));
+        assertEquals(1610612742, first.get(24));
+        assertEquals(0, first.get(26));
+        assertEquals("16-24 ft.", first.get(29));
+    }
+
+    /**
+     * Checks that a shot bound to a later row of a multi-row insert sets only that row's parameters
+     *
+     * @throws SQLException If binding fails
+     */
+    @Test
+    @DisplayName("binds a row of a multi-row insert")
+    void shouldBindRow() throws SQLException {
+        ShotRecord shot = createShot();
+        shot.setPlayType("Jump Shot");
+        Map<Integer, Object> parameters = new HashMap<>();
+        new ShotColumnBinder(abbr -> 1, "Tony", "Parker", "2018-19", "Preseason").bind(shot, "2225-11800071-168", List.of(recordingStatement(parameters)), 2);
+        int offset = 2 * ShotColumnBinder.getColumnCount();
+        assertEquals(ShotColumnBinder.getColumnCount(), parameters.size());
+        assertEquals("2225-11800071-168", parameters.get(offset + 1));
+        assertEquals("Jump Shot", parameters.get(offset + 19));
+        assertFalse(parameters.containsKey(offset));
+    }
+
+    /**
+     * Checks that clocks are shared for a period's minutes and seconds and still made for anything outside them
+     */
+    @Test
+    @DisplayName("reuses clock values")
+    void shouldReuseClocks() {
+        assertSame(ShotColumnBinder.toClock(11, 37), ShotColumnBinder.toClock(11, 37));
+        assertEquals(LocalTime.of(0, 0, 0), ShotColumnBinder.toClock(0, 0));
+        assertEquals(LocalTime.of(0, 12, 59), ShotColumnBinder.toClock(12, 59));
+        assertEquals(LocalTime.of(0, 25, 0), ShotColumnBinder.toClock(25, 0));
+        assertEquals(LocalDate.of(2016, 2, 29), ShotColumnBinder.toGameDate(20160229));
+    }
+
+    /**
+     * Checks that text columns are bound unchanged
+     *
+     * @param testValue text to bind
+     * @throws SQLException If binding fails
+     */
+    @ParameterizedTest
+    @DisplayName("binds strings")
+    @MethodSource("provideStrings")
+    void shouldBindString(String testValue) throws SQLException {
+        ShotRecord shot = createShot();
+        shot.setPlayType(testValue);
+        assertEquals(testValue, bindOne(shot).get(19));
+    }
+
+    /**
+     * Provides Strings for shouldBindString
+     *
+     * @return Stream of Strings
+     */
+    private static Stream<Arguments> provideStrings() {
+        return Stream.of(
+                Arguments.of("123456"),
+                Arguments.of("test-string"),
+                Arguments.of(""),
+                Arguments.of("James Johnson"));
+    }
+
+    /**
+     * Checks that number columns are bound as ints
+     *
+     * @param correctInteger integer to bind
+     * @throws SQLException If binding fails
+     */
+    @ParameterizedTest
+    @DisplayName("binds integers")
+    @MethodSource("provideIntegers")
+    void shouldBindInteger(int correctInteger) throws SQLException {
+        ShotRecord shot = createShot();
+        shot.setDistance(correctInteger);
+        assertEquals(correctInteger, bindOne(shot).get(15));
+    }
+
+    /**
+     * Provides integers for shouldBindInteger
+     *
+     * @return Stream of integers
+     */
+    private static Stream<Arguments> provideIntegers() {
+        return Stream.of(
+                Arguments.of(123456),
+                Arguments.of(0),
+                Arguments.of(Integer.MAX_VALUE));
+    }
+
+    /**
+     * Checks that game dates are bound as dates
+     *
+     * @param inputDate   date as String in the form of YYYYMMDD
+     * @param correctDate date as String as it should be stored in database YYYY-MM-DD
+     * @throws SQLException If binding fails
+     */
+    @ParameterizedTest
+    @DisplayName("binds dates")
+    @MethodSource("provideDates")
+    void shouldBindDate(String inputDate, String correctDate) throws SQLException {
+        ShotRecord shot = createShot();
+        shot.setGameDate(Integer.parseInt(inputDate));
+        assertEquals(LocalDate.parse(correctDate), bindOne(shot).get(9));
+    }
+
+    /**
+     * Provides dates for shouldBindDate
+     *
+     * @return Stream of dates
+     */
+    private static Stream<Arguments> provideDates() {
+        return Stream.of(
+                Arguments.of("20000101", "2000-01-01"),
+                Arguments.of("20160229", "2016-02-29"),
+                Arguments.of("19971229", "1997-12-29"),
+                Arguments.of("20210801", "2021-08-01"),
+                Arguments.of("20210802", "2021-08-02"),
+                Arguments.of("20210803", "2021-08-03"),
+                Arguments.of("20210804", "2021-08-04"),
+                Arguments.of("20210805", "2021-08-05"),
+                Arguments.of("20210806", "2021-08-06"),
+                Arguments.of("20210807", "2021-08-07"),
+                Arguments.of("20210808", "2021-08-08"),
+                Arguments.of("20210809", "2021-08-09"),
+                Arguments.of("20210810", "2021-08-10"),
+                Arguments.of("20210811", "2021-08-11"),
+                Arguments.of("20210812", "2021-08-12"),
+                Arguments.of("20210813", "2021-08-13"),
+                Arguments.of("20210814", "2021-08-14"),
+                Arguments.of("20210815", "2021-08-15"),
+                Arguments.of("20210816", "2021-08-16"),
+                Arguments.of("20210817", "2021-08-17"),
+                Arguments.of("20210818", "2021-08-18"),
+                Arguments.of("20210819", "2021-08-19"),
+                Arguments.of("20210820", "2021-08-20"),
+                Arguments.of("20210821", "2021-08-21"),
+                Arguments.of("20210822", "2021-08-22"),
+                Arguments.of("20210823", "2021-08-23"),
+                Arguments.of("20210824", "2021-08-24"),
+                Arguments.of("20210825", "2021-08-25"),
+                Arguments.of("20210826", "2021-08-26"),
+                Arguments.of("20210827", "2021-08-27"),
+                Arguments.of("20210828", "2021-08-28"),
+                Arguments.of("20210829", "2021-08-29"),
+                Arguments.of("20210830", "2021-08-30"),
+                Arguments.of("20210831", "2021-08-31")
+        );
+    }
+
+    /**
+     * Checks that the minutes and seconds remaining are bound as a time
+     *
+     * @param inputTime   time as String in the form of (M)M:SS
+     * @param correctTime time as String as it should be stored in database HH:MM:SS
+     * @throws SQLException If binding fails
+     */
+    @ParameterizedTest
+    @DisplayName("binds times")
+    @MethodSource("provideTimes")
+    void shouldBindTime(String inputTime, String correctTime) throws SQLException {
+        ShotRecord shot = createShot();
+        String[] clock = inputTime.split(":");
+        shot.setMinutes(Integer.parseInt(clock[0]));
+        shot.setSeconds(Integer.parseInt(clock[1]));
+        assertEquals(LocalTime.parse(correctTime), bindOne(shot).get(10));
+    }
+
+    /**
+     * Provides times for shouldBindTime
+     *
+     * @return Stream of times
+     */
+    private static Stream<Arguments> provideTimes() {
+        return Stream.of(
+                Arguments.of("0:00", "00:00:00"),
+                Arguments.of("0:09", "00:00:09"),
+                Arguments.of("1:10", "00:01:10"),
+                Arguments.of("11:45", "00:11:45"));
+    }
+
+    /**
+     * Creates a shot with a game date and both teams set
+     *
+     * @return the shot
+     */
+    private static ShotRecord createShot() {
+        ShotRecord shot = new ShotRecord();
+        shot.setGameDate(20181012);
+        shot.setHomeTeamAbbr("DAL");
+        shot.setAwayTeamAbbr("CHA");
+        return shot;
+    }
+
+    /**
+     * Binds a shot to one statement
+     *
+     * @param shot the shot
+     * @return map of parameter index and value
+     * @throws SQLException If binding fails
+     */
+    private static Map<Integer, Object> bindOne(ShotRecord shot) throws SQLException {
+        Map<Integer, Object> parameters = new HashMap<>();
+        new ShotColumnBinder(abbr -> 1, "Tony", "Parker", "2018-19", "Preseason").bind(shot, shot.getUniqueShotId(), List.of(recordingStatement(parameters)));
+        return parameters;
+    }
+
+    /**
+     * Creates a statement that records the value set for each parameter
+     *
+     * @param parameters map of parameter index and value
+     * @return the statement
+     */
+    private static PreparedStatement recordingStatement(Map<Integer, Object> parameters) {
+        return (PreparedStatement) Proxy.newProxyInstance(ShotColumnBinderTests.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+            if (method.getName().startsWith("set")) {
+                parameters.put((Integer) args[0], args[1]);
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.Player;
+import com.example.ShotScraperV2.nbaobjects.ScrapeTask;
+import com.example.ShotScraperV2.nbaobjects.ShotBatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShotWritePipeline")
+public class ShotWritePipelineTests {
+    private final Player player = new Player("2225", "Parker", "Tony", "0", "2001-02", "2018-19");
+
+    private ScrapeTask createTask(int year) {
+        return new ScrapeTask(player, String.format("%d-%02d", year, (year + 1) % 100), "Preseason", "Parker_Tony_2225_" + year + "_Preseason");
+    }
+
+    /**
+     * Checks that every queued season is written and each writer is closed once the fetchers finish
+     */
+    @Test
+    @DisplayName("writes every queued season")
+    void shouldWriteEveryQueuedSeason() throws InterruptedException {
+        Set<ScrapeTask> written = ConcurrentHashMap.newKeySet();
+        AtomicInteger closed = new AtomicInteger();
+        ShotWritePipeline pipeline = new ShotWritePipeline(3, 4, () -> new ShotWritePipeline.Writer() {
+            @Override
+            public void write(ScrapeTask task, ShotBatch shots, boolean onlyCurrentSeason) {
+                written.add(task);
+            }
+
+            @Override
+            public void close() {
+                closed.incrementAndGet();
+            }
+        });
+        pipeline.start();
+        for (int year = 2001; year < 2019; year++) {
+            pipeline.put(createTask(year), new ShotBatch(), false);
+        }
+        pipeline.finish();
+        assertEquals(18, written.size());
+        assertEquals(3, closed.get());
+    }
+
+    /**
+     * Checks that fetchers wait once the queue is full and resume when a writer takes a batch
+     */
+    @Test
+    @DisplayName("blocks fetchers while writers are behind")
+    void shouldApplyBackpressure() throws InterruptedException {
+        CountDownLatch writerRelease = new CountDownLatch(1);
+        ShotWritePipeline pipeline = new ShotWritePipeline(1, 2, () -> new ShotWritePipeline.Writer() {
+            @Override
+            public void write(ScrapeTask task, ShotBatch shots, boolean onlyCurrentSeason) throws InterruptedException {
+                writerRelease.await();
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        pipeline.start();
+        CountDownLatch allPut = new CountDownLatch(1);
+        Thread fetcher = new Thread(() -> {
+            try {
+                //One batch held by the writer, two in the queue, and the fourth must wait
+                for (int year = 2001; year < 2005; year++) {
+                    pipeline.put(createTask(year), new ShotBatch(), false);
+                }
+                allPut.countDown();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        fetcher.start();
+        assertFalse(allPut.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(2, pipeline.getQueuedCount());
+        writerRelease.countDown();
+        assertTrue(allPut.await(5, TimeUnit.SECONDS));
+        pipeline.finish();
+        assertEquals(0, pipeline.getQueuedCount());
+    }
+
+    /**
+     * Checks that fetchers and finish stop waiting once every writer has failed, and the seasons left are handed back
+     */
+    @Test
+    @DisplayName("fails fast when every writer has stopped")
+    void shouldFailFastWithoutWriters() {
+        CountDownLatch connectRelease = new CountDownLatch(1);
+        ShotWritePipeline pipeline = new ShotWritePipeline(2, 1, () -> {
+            try {
+                connectRelease.await();
+            } catch (InterruptedException ignored) {
+            }
+            throw new IllegalStateException("Could not connect");
+        });
+        pipeline.start();
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            //Fills the queue while the writers are still connecting
+            pipeline.put(createTask(2001), new ShotBatch(), false);
+            connectRelease.countDown();
+            assertThrows(IllegalStateException.class, () -> pipeline.put(createTask(2002), new ShotBatch(), false));
+            assertEquals(0, pipeline.getLiveWriterCount());
+            assertEquals(List.of(createTask(2001)), pipeline.finish());
+        });
+    }
+
+    /**
+     * Checks that a season being saved when its writer hits an error is handed back instead of lost
+     */
+    @Test
+    @DisplayName("hands back the season a dying writer held")
+    void shouldHandBackSeasonOfDeadWriter() {
+        ShotWritePipeline pipeline = new ShotWritePipeline(1, 2, () -> new ShotWritePipeline.Writer() {
+            @Override
+            public void write(ScrapeTask task, ShotBatch shots, boolean onlyCurrentSeason) {
+                throw new OutOfMemoryError("Java heap space");
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        pipeline.start();
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            pipeline.put(createTask(2001), new ShotBatch(), false);
+            assertEquals(List.of(createTask(2001)), pipeline.finish());
+        });
+    }
+}
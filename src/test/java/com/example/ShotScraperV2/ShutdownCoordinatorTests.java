@@ -0,0 +1,74 @@
+package com.example.ShotScraperV2;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShutdownCoordinator")
+public class ShutdownCoordinatorTests {
+
+    /**
+     * Checks that a requested stop keeps its first deadline
+     */
+    @Test
+    @DisplayName("keeps the first deadline")
+    void shouldKeepFirstDeadline() {
+        ShutdownCoordinator shutdown = new ShutdownCoordinator(60000);
+        assertFalse(shutdown.isStopRequested());
+        assertEquals(Long.MAX_VALUE, shutdown.getMillisUntilDeadline());
+        shutdown.requestStop("test");
+        shutdown.requestStop("test again", 0);
+        assertTrue(shutdown.isStopRequested());
+        assertFalse(shutdown.isPastDeadline());
+        assertTrue(shutdown.getMillisUntilDeadline() > 50000);
+    }
+
+    /**
+     * Checks that threads still running at the deadline are interrupted and joined
+     */
+    @Test
+    @DisplayName("interrupts threads at the deadline")
+    void shouldInterruptAtDeadline() throws InterruptedException {
+        ShutdownCoordinator shutdown = new ShutdownCoordinator(60000);
+        AtomicBoolean interrupted = new AtomicBoolean(false);
+        CountDownLatch started = new CountDownLatch(1);
+        Thread stuck = new Thread(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(60000);
+            } catch (InterruptedException ex) {
+                interrupted.set(true);
+            }
+        });
+        Thread quick = new Thread(() -> {
+        });
+        stuck.start();
+        quick.start();
+        started.await();
+        shutdown.requestStop("test", 200);
+        long start = System.nanoTime();
+        shutdown.joinAll(List.of(quick, stuck));
+        assertTrue(interrupted.get());
+        assertTrue(System.nanoTime() - start < 10_000_000_000L);
+        assertTrue(shutdown.isPastDeadline());
+    }
+
+    /**
+     * Checks that the shutdown hook's wait ends once the run reports it has finished
+     */
+    @Test
+    @DisplayName("waits for the run to finish")
+    void shouldWaitForRun() throws InterruptedException {
+        ShutdownCoordinator shutdown = new ShutdownCoordinator(60000);
+        assertTrue(shutdown.awaitRunFinished(0));
+        shutdown.runStarted();
+        assertFalse(shutdown.awaitRunFinished(10));
+        shutdown.runFinished();
+        assertTrue(shutdown.awaitRunFinished(0));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.nbaobjects.Player;
+import com.example.ShotScraperV2.nbaobjects.ScrapeTask;
+import org.junit.jupiter.api.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TaskLeaseTable")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class TaskLeaseTableTests implements ScraperUtilsInterface {
+    private final Player player = new Player("2225", "Parker", "Tony", "0", "2001-02", "2018-19");
+
+    private List<ScrapeTask> createTasks() {
+        List<ScrapeTask> tasks = new ArrayList<>();
+        for (int year = 2018; year > 2014; year--) {
+            String season = year + "-" + (year + 1 - 2000);
+            tasks.add(new ScrapeTask(player, season, "Regular Season", "Parker_Tony_2225_" + year + "_" + (year + 1 - 2000) + "_RegularSeason"));
+        }
+        return tasks;
+    }
+
+    /**
+     * Checks that two instances claim disjoint seasons in priority order
+     *
+     * @throws Exception If a statement fails
+     */
+    @Test
+    void shouldClaimDisjointTasks() throws Exception {
+        TaskLeaseTable first = new TaskLeaseTable(() -> ScraperUtilsInterface.super.setNewConnection("playertest"), "test", 60, 2);
+        TaskLeaseTable second = new TaskLeaseTable(() -> ScraperUtilsInterface.super.setNewConnection("playertest"), "test", 60, 2);
+        first.publish(createTasks());
+        second.publish(createTasks());
+        List<ScrapeTask> firstClaimed = first.tryClaim(2);
+        List<ScrapeTask> secondClaimed = second.tryClaim(5);
+        assertEquals(createTasks().subList(0, 2), firstClaimed);
+        assertEquals(createTasks().subList(2, 4), secondClaimed);
+        HashSet<ScrapeTask> all = new HashSet<>(firstClaimed);
+        all.addAll(secondClaimed);
+        assertEquals(4, all.size());
+        for (ScrapeTask task : firstClaimed) {
+            first.complete(task);
+        }
+        for (ScrapeTask task : secondClaimed) {
+            second.complete(task);
+        }
+        assertTrue(first.claim(2).isEmpty());
+        first.close(List.of());
+        second.close(List.of());
+    }
+
+    /**
+     * Checks that seasons held by an instance that stopped are claimed again once the lease runs out
+     *
+     * @throws Exception If a statement fails
+     */
+    @Test
+    void shouldReclaimExpiredLeases() throws Exception {
+        Connection conn = ScraperUtilsInterface.super.setNewConnection("playertest");
+        TaskLeaseTable crashed = new TaskLeaseTable(() -> ScraperUtilsInterface.super.setNewConnection("playertest"), "test", 60, 2);
+        crashed.publish(createTasks());
+        assertEquals(4, crashed.tryClaim(4).size());
+        conn.prepareStatement("UPDATE scrape_tasks SET leaseexpires = CURRENT_TIMESTAMP - INTERVAL 1 SECOND").execute();
+        TaskLeaseTable survivor = new TaskLeaseTable(() -> ScraperUtilsInterface.super.setNewConnection("playertest"), "test", 60, 2);
+        List<ScrapeTask> reclaimed = survivor.claim(4);
+        assertEquals(createTasks(), reclaimed);
+        assertTrue(reclaimed.get(0).isResumed());
+        survivor.close(List.of());
+        crashed.close(List.of());
+    }
+
+    /**
+     * Checks that the table opens its own connection from a schema alias and creates the task table there
+     *
+     * @throws Exception If a statement fails
+     */
+    @Test
+    void shouldConnectFromSchemaAlias() throws Exception {
+        TaskLeaseTable taskLeases = new TaskLeaseTable("playertest", "test");
+        assertEquals("test", taskLeases.getRun());
+        taskLeases.publish(createTasks());
+        assertEquals(createTasks().subList(0, 1), taskLeases.tryClaim(1));
+        Connection connPlayers = ScraperUtilsInterface.super.setNewConnection("playertest");
+        ResultSet rsTasks = connPlayers.prepareStatement("SELECT COUNT(*) FROM scrape_tasks WHERE run = 'test'").executeQuery();
+        rsTasks.next();
+        assertEquals(4, rsTasks.getInt(1));
+        rsTasks.close();
+        connPlayers.close();
+        taskLeases.close(List.of());
+    }
+
+    /**
+     * Drops all tables in the test database after each test
+     *
+     * @throws SQLException If statement fails
+     */
+    @AfterEach
+    void dropAllTablesAfter() throws SQLException {
+        Connection connPlayers = ScraperUtilsInterface.super.setNewConnection("playertest");
+        ResultSet rsTables = connPlayers.prepareStatement("SHOW TABLES").executeQuery();
+        while (rsTables.next()) {
+            connPlayers.prepareStatement("DROP TABLE " + rsTables.getString(1)).execute();
+        }
+        rsTables.close();
+        connPlayers.close();
+    }
+}
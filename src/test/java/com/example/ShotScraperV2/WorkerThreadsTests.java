@@ -0,0 +1,80 @@
+package com.example.ShotScraperV2;
+
+import com.example.ShotScraperV2.http.AsyncFetchPipeline;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("WorkerThreads")
+public class WorkerThreadsTests {
+
+    /**
+     * Checks that virtual mode starts one worker per queued item up to the limit
+     */
+    @Test
+    @DisplayName("sizes virtual workers by queue and limit")
+    void shouldSizeVirtualWorkers() {
+        WorkerThreads workerThreads = new WorkerThreads(true, 100);
+        assertEquals(30, workerThreads.getWorkerCount(30));
+        assertEquals(100, workerThreads.getWorkerCount(500));
+        assertEquals(1, workerThreads.getWorkerCount(0));
+        assertEquals(Runtime.getRuntime().availableProcessors(), new WorkerThreads(false, 100).getWorkerCount(500));
+    }
+
+    /**
+     * Checks that without a configured limit, virtual mode starts only as many workers as there can be requests outstanding
+     */
+    @Test
+    @DisplayName("bounds virtual workers by outstanding requests")
+    void shouldBoundVirtualWorkersByRequests() {
+        int requestBound = WorkerThreads.getRequestBound();
+        assertTrue(requestBound >= 1);
+        assertTrue(requestBound <= AsyncFetchPipeline.getSharedInstance().getMaxInFlight());
+        assertEquals(requestBound, new WorkerThreads(true, 0).getWorkerCount(100_000));
+        assertEquals(1, new WorkerThreads(true, 0).getWorkerCount(1));
+    }
+
+    /**
+     * Checks that every worker drains the shared queue and is joined before returning
+     */
+    @Test
+    @DisplayName("drains the queue with every worker")
+    void shouldDrainQueue() throws InterruptedException {
+        ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < 200; i++) {
+            queue.add(i);
+        }
+        AtomicInteger polled = new AtomicInteger();
+        AtomicInteger workers = new AtomicInteger();
+        new WorkerThreads(true, 50).runAndJoin(queue.size(), () -> {
+            workers.incrementAndGet();
+            while (queue.poll() != null) {
+                polled.incrementAndGet();
+            }
+        });
+        assertEquals(50, workers.get());
+        assertEquals(200, polled.get());
+    }
+
+    /**
+     * Checks that workers added while the run is joined are joined too, and none are added once it has ended
+     */
+    @Test
+    @DisplayName("joins workers added during the run")
+    void shouldJoinAddedWorkers() throws InterruptedException {
+        WorkerThreads workerThreads = new WorkerThreads(false, 0);
+        AtomicInteger workers = new AtomicInteger();
+        workerThreads.startAndJoin(1, 10, () -> {
+            if (workers.incrementAndGet() == 1) {
+                workerThreads.startMore(2);
+            }
+        });
+        assertEquals(3, workers.get());
+        workerThreads.startMore(2);
+        assertEquals(3, workers.get());
+    }
+}
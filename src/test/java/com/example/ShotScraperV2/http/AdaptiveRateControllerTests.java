@@ -0,0 +1,89 @@
+package com.example.ShotScraperV2.http;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AdaptiveRateController")
+public class AdaptiveRateControllerTests {
+    private AtomicLong clock;
+    private RequestGovernor governor;
+    private AdaptiveRateController controller;
+
+    /**
+     * Creates a controller over a governor at 2 requests per second with a fake clock
+     */
+    @BeforeEach
+    void createController() {
+        clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+        governor = new RequestGovernor(clock::get, 2, 1);
+        controller = new AdaptiveRateController(governor, clock::get);
+    }
+
+    /**
+     * Checks that fast successful responses raise the rate
+     */
+    @Test
+    @DisplayName("raises the rate while responses are fast")
+    void shouldIncreaseRateOnFastSuccess() {
+        for (int i = 0; i < 20; i++) {
+            controller.recordSuccess(TimeUnit.MILLISECONDS.toNanos(200));
+        }
+        assertTrue(governor.getPermitsPerSecond() > 2);
+    }
+
+    /**
+     * Checks that slow responses hold the rate steady
+     */
+    @Test
+    @DisplayName("holds the rate while responses are slow")
+    void shouldHoldRateOnSlowSuccess() {
+        controller.recordSuccess(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(2, governor.getPermitsPerSecond());
+    }
+
+    /**
+     * Checks that failures halve the rate once per cooldown window
+     */
+    @Test
+    @DisplayName("halves the rate once per cooldown on failures")
+    void shouldDecreaseRateOncePerCooldown() {
+        controller.recordFailure("HTTP 429");
+        controller.recordFailure("HTTP 429");
+        assertEquals(1, governor.getPermitsPerSecond());
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        controller.recordTimeout();
+        assertEquals(0.5, governor.getPermitsPerSecond());
+    }
+
+    /**
+     * Checks that the timeout follows observed latency and backs off after a timeout
+     */
+    @Test
+    @DisplayName("derives the timeout from observed latency")
+    void shouldAdaptTimeout() {
+        assertEquals(60, controller.getTimeout().getSeconds());
+        for (int i = 0; i < 50; i++) {
+            controller.recordSuccess(TimeUnit.SECONDS.toNanos(1));
+        }
+        assertEquals(10, controller.getTimeout().getSeconds());
+        controller.recordTimeout();
+        assertEquals(20, controller.getTimeout().getSeconds());
+    }
+
+    /**
+     * Checks that retry delays grow and are capped
+     */
+    @Test
+    @DisplayName("grows retry delays exponentially up to a cap")
+    void shouldGrowRetryDelay() {
+        assertTrue(controller.getRetryDelayMillis(1) <= 2000);
+        assertTrue(controller.getRetryDelayMillis(3) >= 4000);
+        assertTrue(controller.getRetryDelayMillis(20) <= 30000);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.ShotScraperV2.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AsyncFetchPipeline")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AsyncFetchPipelineTests {
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+    private final ScraperHttpClient uncachedClient = new ScraperHttpClient(ResponseCache.disabled());
+
+    /**
+     * Starts a local server with a healthy endpoint and one that fails on its first call
+     *
+     * @throws IOException If the server cannot start
+     */
+    @BeforeAll
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ok", exchange -> respond(exchange, 200, "{\"rowSet\":[[1,2]]}"));
+        server.createContext("/flaky", exchange -> {
+            if (flakyCalls.getAndIncrement() == 0) {
+                respond(exchange, 503, "busy");
+            } else {
+                respond(exchange, 200, "{\"rowSet\":[]}");
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Sends a response with the given status and body
+     *
+     * @param exchange the exchange to answer
+     * @param status   HTTP status code
+     * @param body     response body
+     * @throws IOException If writing the response fails
+     */
+    private void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @AfterAll
+    void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Checks that every submitted request completes with its parsed body while the in-flight limit is small
+     */
+    @Test
+    @DisplayName("completes more requests than the in-flight limit")
+    void shouldCompleteAllRequests() throws InterruptedException, ExecutionException, TimeoutException {
+        AsyncFetchPipeline pipeline = new AsyncFetchPipeline(uncachedClient, AdaptiveRateController.getSharedInstance(), 2);
+        ArrayList<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(pipeline.submit(baseUrl + "/ok", body -> body.readAllBytes().length));
+        }
+        for (CompletableFuture<Integer> result : results) {
+            assertEquals("{\"rowSet\":[[1,2]]}".length(), result.get(30, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Checks that a server error is retried rather than handed downstream
+     */
+    @Test
+    @DisplayName("retries after a server error")
+    void shouldRetryServerError() throws InterruptedException, ExecutionException, TimeoutException {
+        AsyncFetchPipeline pipeline = new AsyncFetchPipeline(uncachedClient, AdaptiveRateController.getSharedInstance(), 2);
+        assertEquals("{\"rowSet\":[]}", pipeline.submit(baseUrl + "/flaky", body -> new String(body.readAllBytes(), StandardCharsets.UTF_8)).get(30, TimeUnit.SECONDS));
+        assertEquals(2, flakyCalls.get());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.ShotScraperV2.http;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CircuitBreaker")
+public class CircuitBreakerTests {
+    private final AtomicLong clock = new AtomicLong(0);
+
+    /**
+     * Creates a breaker over 4 requests that opens at half failures and stays open for 1 second
+     *
+     * @return the breaker
+     */
+    private CircuitBreaker createBreaker() {
+        return new CircuitBreaker("shotchartdetail", clock::get, 4, 0.5, 4, 1000, 2);
+    }
+
+    /**
+     * Checks that the circuit stays closed until enough requests have been seen
+     */
+    @Test
+    @DisplayName("stays closed below the minimum calls")
+    void shouldStayClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    /**
+     * Checks that the circuit opens on the failure rate and rejects requests until the open period ends
+     */
+    @Test
+    @DisplayName("opens on failure rate")
+    void shouldOpenOnFailureRate() {
+        CircuitBreaker breaker = createBreaker();
+        breaker.recordSuccess();
+        breaker.recordSuccess();
+        breaker.recordFailure();
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(1000, breaker.getMillisUntilRetry());
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+        assertEquals(600, breaker.getMillisUntilRetry());
+    }
+
+    /**
+     * Checks that only the trial requests get through once half-open, and that their success closes the circuit
+     */
+    @Test
+    @DisplayName("closes after successful trials")
+    void shouldCloseAfterSuccessfulTrials() {
+        CircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.recordFailure();
+        }
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.recordSuccess();
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    /**
+     * Checks that a failed trial opens the circuit again for another full period
+     */
+    @Test
+    @DisplayName("reopens when a trial fails")
+    void shouldReopenWhenTrialFails() {
+        CircuitBreaker breaker = createBreaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.recordFailure();
+        }
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1000, breaker.getMillisUntilRetry());
+    }
+
+    /**
+     * Checks that a bulkhead permit tied to a body is released exactly once
+     */
+    @Test
+    @DisplayName("releases bulkhead permit once when body closes")
+    void shouldReleaseBulkheadOnce() throws IOException, InterruptedException {
+        Bulkhead bulkhead = new Bulkhead("playerprofilev2", 1);
+        bulkhead.acquire();
+        assertEquals(0, bulkhead.getAvailablePermits());
+        InputStream body = bulkhead.releaseOnClose(new ByteArrayInputStream(new byte[]{1}));
+        body.close();
+        body.close();
+        assertEquals(1, bulkhead.getAvailablePermits());
+    }
+}
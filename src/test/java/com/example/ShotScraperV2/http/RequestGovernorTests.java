@@ -0,0 +1,69 @@
+package com.example.ShotScraperV2.http;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RequestGovernor")
+public class RequestGovernorTests {
+
+    /**
+     * Checks that a full bucket lets a burst through without waiting
+     */
+    @Test
+    @DisplayName("lets a full burst through without waiting")
+    void shouldAllowBurstWithoutWaiting() {
+        AtomicLong clock = new AtomicLong(0);
+        RequestGovernor governor = new RequestGovernor(clock::get, 2, 3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, governor.reserve());
+        }
+    }
+
+    /**
+     * Checks that callers past the burst wait one refill interval each, in order
+     */
+    @Test
+    @DisplayName("spaces requests past the burst by the refill rate")
+    void shouldSpaceRequestsPastBurst() {
+        AtomicLong clock = new AtomicLong(0);
+        RequestGovernor governor = new RequestGovernor(clock::get, 2, 1);
+        assertEquals(0, governor.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), governor.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), governor.reserve());
+    }
+
+    /**
+     * Checks that idle time refills the bucket but never above the burst size
+     */
+    @Test
+    @DisplayName("refills while idle up to the burst size")
+    void shouldRefillUpToBurst() {
+        AtomicLong clock = new AtomicLong(0);
+        RequestGovernor governor = new RequestGovernor(clock::get, 1, 2);
+        governor.reserve();
+        governor.reserve();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertEquals(0, governor.reserve());
+        assertEquals(0, governor.reserve());
+        assertTrue(governor.reserve() > 0);
+    }
+
+    /**
+     * Checks that a rate change applies to the next reservation
+     */
+    @Test
+    @DisplayName("applies a new rate to later requests")
+    void shouldApplyNewRate() {
+        AtomicLong clock = new AtomicLong(0);
+        RequestGovernor governor = new RequestGovernor(clock::get, 1, 1);
+        governor.reserve();
+        governor.setPermitsPerSecond(4);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), governor.reserve());
+        assertThrows(IllegalArgumentException.class, () -> governor.setPermitsPerSecond(0));
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.ShotScraperV2.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ResponseCache")
+public class ResponseCacheTests {
+    private static final String PAST_SEASON_URL = "https://stats.nba.com/stats/shotchartdetail?CFID=33&CFPARAMS=2018-19&PlayerID=2225&SeasonType=Pre+Season";
+    private static final String CURRENT_SEASON_URL = "https://stats.nba.com/stats/shotchartdetail?CFID=33&CFPARAMS=2021-22&PlayerID=2225&SeasonType=Regular+Season";
+    private static final String BODY = "{\"resultSets\":[{\"rowSet\":[]}]}";
+    @TempDir
+    Path directory;
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private ResponseCache createCache() {
+        return new ResponseCache(directory, 60_000L, "2021-22", now::get);
+    }
+
+    /**
+     * Runs a body through the cache the way a fresh response would be
+     *
+     * @param cache the cache
+     * @param url   the URL that was fetched
+     * @param body  the response body
+     * @throws IOException If reading the body fails
+     */
+    private void storeBody(ResponseCache cache, String url, String body) throws IOException {
+        try (InputStream stream = cache.store(url, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "", "")) {
+            //Read only part of the body, as a parser that stops early would
+            assertTrue(stream.read(new byte[4]) > 0);
+        }
+    }
+
+    private String readBody(InputStream stream) throws IOException {
+        try (InputStream body = stream) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Checks that a stored body is returned in full even when the first reader stopped early
+     */
+    @Test
+    @DisplayName("returns stored body")
+    void shouldReturnStoredBody() throws IOException {
+        ResponseCache cache = createCache();
+        assertNull(cache.open(PAST_SEASON_URL));
+        storeBody(cache, PAST_SEASON_URL, BODY);
+        assertEquals(BODY, readBody(cache.open(PAST_SEASON_URL)));
+    }
+
+    /**
+     * Checks that a body served from the cache carries the SHA-256 of its content, and a fresh body does not
+     */
+    @Test
+    @DisplayName("labels cached bodies with their hash")
+    void shouldLabelCachedBodiesWithHash() throws IOException {
+        ResponseCache cache = createCache();
+        try (InputStream fresh = cache.store(PAST_SEASON_URL, new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8)), "", "")) {
+            assertNull(ResponseCache.contentHashOf(fresh));
+        }
+        try (InputStream cached = cache.open(PAST_SEASON_URL)) {
+            assertEquals("cad6dfe41d29c11efdbc6767f9b4b0305eaf4e3cf4851869ea85ecf918aca34b", ResponseCache.contentHashOf(cached));
+        }
+    }
+
+    /**
+     * Checks that parameter order and empty parameters do not change the key
+     */
+    @Test
+    @DisplayName("normalizes URLs")
+    void shouldNormalizeUrls() {
+        assertEquals(ResponseCache.normalize("https://stats.nba.com/stats/shotchartdetail?PlayerID=2225&AheadBehind=&CFPARAMS=2018-19"),
+                ResponseCache.normalize("https://stats.nba.com/stats/shotchartdetail?CFPARAMS=2018-19&PlayerID=2225"));
+        assertNotEquals(ResponseCache.normalize(PAST_SEASON_URL), ResponseCache.normalize(CURRENT_SEASON_URL));
+    }
+
+    /**
+     * Checks that only the current season and unseasoned responses expire
+     */
+    @Test
+    @DisplayName("expires only current season")
+    void shouldExpireOnlyCurrentSeason() throws IOException {
+        ResponseCache cache = createCache();
+        storeBody(cache, PAST_SEASON_URL, BODY);
+        storeBody(cache, CURRENT_SEASON_URL, BODY);
+        now.addAndGet(120_000L);
+        assertNotNull(cache.open(PAST_SEASON_URL));
+        assertNull(cache.open(CURRENT_SEASON_URL));
+    }
+
+    /**
+     * Checks that a body stored while its season was current keeps expiring after the season ends, until it is stored again
+     */
+    @Test
+    @DisplayName("decides immutability when storing")
+    void shouldDecideImmutabilityWhenStoring() throws IOException {
+        storeBody(createCache(), CURRENT_SEASON_URL, BODY);
+        ResponseCache nextSeason = new ResponseCache(directory, 60_000L, "2022-23", now::get);
+        now.addAndGet(120_000L);
+        assertNull(nextSeason.open(CURRENT_SEASON_URL));
+        storeBody(nextSeason, CURRENT_SEASON_URL, BODY);
+        now.addAndGet(120_000L);
+        assertNotNull(nextSeason.open(CURRENT_SEASON_URL));
+    }
+
+    /**
+     * Checks that identical bodies are stored once and evicting one key leaves the other
+     */
+    @Test
+    @DisplayName("stores identical bodies once")
+    void shouldStoreIdenticalBodiesOnce() throws IOException {
+        ResponseCache cache = createCache();
+        storeBody(cache, PAST_SEASON_URL, BODY);
+        storeBody(cache, PAST_SEASON_URL.replace("2225", "2544"), BODY);
+        try (Stream<Path> blobs = Files.walk(directory.resolve("blobs"))) {
+            assertEquals(1, blobs.filter(blob -> blob.toString().endsWith(".gz")).count());
+        }
+        cache.evict(PAST_SEASON_URL);
+        assertNull(cache.open(PAST_SEASON_URL));
+        assertEquals(BODY, readBody(cache.open(PAST_SEASON_URL.replace("2225", "2544"))));
+    }
+
+    /**
+     * Checks that evicting the only key for a garbled body also deletes the body, so nothing is left on disk
+     */
+    @Test
+    @DisplayName("deletes bodies no key points at")
+    void shouldDeleteUnreferencedBody() throws IOException {
+        ResponseCache cache = createCache();
+        storeBody(cache, PAST_SEASON_URL, BODY);
+        storeBody(cache, CURRENT_SEASON_URL, "{\"resultSets\":[{\"rowS");
+        cache.evict(CURRENT_SEASON_URL);
+        assertNull(cache.open(CURRENT_SEASON_URL));
+        try (Stream<Path> blobs = Files.walk(directory.resolve("blobs"))) {
+            assertEquals(1, blobs.filter(blob -> blob.toString().endsWith(".gz")).count());
+        }
+        assertEquals(BODY, readBody(cache.open(PAST_SEASON_URL)));
+    }
+
+    /**
+     * Checks that a body is deleted once the last key pointing at it is evicted or points elsewhere
+     */
+    @Test
+    @DisplayName("deletes bodies when their last key goes")
+    void shouldDeleteBodyWithLastKey() throws IOException {
+        ResponseCache cache = createCache();
+        String otherUrl = PAST_SEASON_URL.replace("2225", "2544");
+        storeBody(cache, PAST_SEASON_URL, BODY);
+        storeBody(cache, otherUrl, BODY);
+        //The first key now returns a different body, leaving the shared one to the other key
+        storeBody(cache, PAST_SEASON_URL, "{\"resultSets\":[]}");
+        assertEquals(BODY, readBody(cache.open(otherUrl)));
+        cache.evict(otherUrl);
+        try (Stream<Path> blobs = Files.walk(directory.resolve("blobs"))) {
+            assertEquals(1, blobs.filter(blob -> blob.toString().endsWith(".gz")).count());
+        }
+        cache.evict(PAST_SEASON_URL);
+        try (Stream<Path> blobs = Files.walk(directory.resolve("blobs"))) {
+            assertEquals(0, blobs.filter(blob -> blob.toString().endsWith(".gz")).count());
+        }
+    }
+
+    /**
+     * Checks that an expired entry is revalidated with its ETag and served from disk when the server answers 304
+     */
+    @Test
+    @DisplayName("revalidates expired entry with ETag")
+    void shouldRevalidateExpiredEntry() throws IOException, InterruptedException {
+        AtomicInteger fullResponses = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/stats/shotchartdetail", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            ScraperHttpClient client = new ScraperHttpClient(createCache());
+            String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/stats/shotchartdetail?CFPARAMS=2021-22&PlayerID=2225";
+            assertEquals(BODY, client.fetch(url));
+            now.addAndGet(120_000L);
+            assertEquals(BODY, client.fetch(url));
+            //Revalidated entry is fresh again, so this one never reaches the server
+            assertEquals(BODY, client.fetch(url));
+            assertEquals(1, fullResponses.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.ShotScraperV2.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ScraperHttpClient")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class ScraperHttpClientTests {
+    private static final String BODY = "{\"resultSets\":[{\"rowSet\":[]}]}";
+    private HttpServer server;
+    private String baseUrl;
+    /**
+     * Client that skips the on-disk cache so every test reaches the local server
+     */
+    private final ScraperHttpClient uncachedClient = new ScraperHttpClient(ResponseCache.disabled());
+
+    /**
+     * Starts a local server that answers with gzip, deflate, or uncompressed bodies
+     *
+     * @throws IOException If the server cannot start
+     */
+    @BeforeAll
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/gzip", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(compressed)) {
+                out.write(BODY.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, compressed.size());
+            exchange.getResponseBody().write(compressed.toByteArray());
+            exchange.close();
+        });
+        server.createContext("/deflate", exchange -> {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+            try (OutputStream out = new DeflaterOutputStream(compressed)) {
+                out.write(BODY.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", "deflate");
+            exchange.sendResponseHeaders(200, compressed.size());
+            exchange.getResponseBody().write(compressed.toByteArray());
+            exchange.close();
+        });
+        server.createContext("/plain", exchange -> {
+            byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            byte[] bytes = BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().flush();
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException ignored) {
+            }
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.createContext("/missing", exchange -> {
+            byte[] bytes = "{\"message\":\"Not found\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(404, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.createContext("/empty", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterAll
+    void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * Checks that every caller receives the same client so connections are shared
+     */
+    @Test
+    @DisplayName("returns one shared client for the whole process")
+    void shouldReturnSameClient() {
+        ScraperHttpClient first = ScraperHttpClient.getSharedInstance();
+        ScraperHttpClient second = ScraperHttpClient.getSharedInstance();
+        assertSame(first, second);
+        assertSame(first.getClient(), second.getClient());
+    }
+
+    /**
+     * Checks that the client prefers HTTP/2 unless configured otherwise
+     */
+    @Test
+    @DisplayName("prefers HTTP/2")
+    void shouldPreferHttp2() {
+        assertEquals(HttpClient.Version.HTTP_2, ScraperHttpClient.getSharedInstance().getClient().version());
+    }
+
+    /**
+     * Checks that requests carry the headers expected by the stats site and ask for compression
+     */
+    @Test
+    @DisplayName("builds requests with the stats site headers")
+    void shouldBuildRequestWithHeaders() {
+        HttpRequest request = ScraperHttpClient.getSharedInstance().buildRequest("https://stats.nba.com/stats/playerprofilev2?PlayerID=2225");
+        assertEquals("https://www.nba.com", request.headers().firstValue("Origin").orElse(""));
+        assertEquals("https://www.nba.com/", request.headers().firstValue("Referer").orElse(""));
+        assertEquals("gzip, deflate", request.headers().firstValue("Accept-Encoding").orElse(""));
+        assertTrue(request.timeout().isPresent());
+    }
+
+    /**
+     * Checks that compressed and uncompressed bodies all read back as the original text
+     *
+     * @param path endpoint on the local server
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"/gzip", "/deflate", "/plain"})
+    @DisplayName("decompresses gzip and deflate bodies")
+    void shouldDecompressBody(String path) throws IOException, InterruptedException {
+        assertEquals(BODY, uncachedClient.fetch(baseUrl + path));
+    }
+
+    /**
+     * Checks that the async stream is decompressed as it is read
+     */
+    @Test
+    @DisplayName("streams decompressed bodies asynchronously")
+    void shouldStreamDecompressedBodyAsync() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        try (InputStream body = uncachedClient.fetchAsync(baseUrl + "/gzip").get(30, TimeUnit.SECONDS)) {
+            assertEquals(BODY, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Checks that waiting for the first byte of an async body happens on this client's response threads, not the HTTP client's
+     */
+    @Test
+    @DisplayName("checks async responses on its own threads")
+    void shouldCheckAsyncResponseOffClientThreads() throws InterruptedException, ExecutionException, TimeoutException {
+        String checkedOn = uncachedClient.fetchAsync(baseUrl + "/slow")
+                .thenApply(body -> {
+                    try (body) {
+                        return Thread.currentThread().getName();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                })
+                .get(30, TimeUnit.SECONDS);
+        assertTrue(checkedOn.startsWith("http-response-"), checkedOn);
+    }
+
+    /**
+     * Checks that only 200 responses are written to the response cache
+     *
+     * @param cacheDirectory root of the cache
+     * @throws IOException          If a request fails
+     * @throws InterruptedException If a request is interrupted
+     */
+    @Test
+    @DisplayName("caches only 200 responses")
+    void shouldCacheOnlyOkResponses(@TempDir Path cacheDirectory) throws IOException, InterruptedException {
+        ResponseCache cache = new ResponseCache(cacheDirectory, 60_000L, "2021-22", System::currentTimeMillis);
+        ScraperHttpClient cachingClient = new ScraperHttpClient(cache);
+        assertEquals(BODY, cachingClient.fetch(baseUrl + "/plain"));
+        cachingClient.fetch(baseUrl + "/missing");
+        assertNotNull(cache.find(baseUrl + "/plain"));
+        assertNull(cache.find(baseUrl + "/missing"));
+    }
+
+    /**
+     * Checks that bodies from the server that cannot be parsed open the circuit, while bodies served from the cache are not counted
+     *
+     * @param cacheDirectory root of the cache
+     * @throws IOException If storing or opening the cached body fails
+     */
+    @Test
+    @DisplayName("reports parse outcomes to the circuit breaker")
+    void shouldReportParseOutcomes(@TempDir Path cacheDirectory) throws IOException {
+        for (int i = 0; i < 10; i++) {
+            uncachedClient.recordParsed(baseUrl + "/stats/garbled", InputStream.nullInputStream(), false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, CircuitBreaker.forEndpoint("garbled").getState());
+        ResponseCache cache = new ResponseCache(cacheDirectory, 60_000L, "2021-22", System::currentTimeMillis);
+        String cachedUrl = baseUrl + "/stats/garbledcached";
+        try (InputStream stored = cache.store(cachedUrl, new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8)), "", "")) {
+            stored.readAllBytes();
+        }
+        try (InputStream cached = cache.open(cachedUrl)) {
+            for (int i = 0; i < 10; i++) {
+                uncachedClient.recordParsed(cachedUrl, cached, false);
+            }
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, CircuitBreaker.forEndpoint("garbledcached").getState());
+    }
+
+    /**
+     * Checks that an empty body is rejected instead of handed to a parser
+     */
+    @Test
+    @DisplayName("rejects empty bodies")
+    void shouldRejectEmptyBody() {
+        assertThrows(IOException.class, () -> uncachedClient.fetch(baseUrl + "/empty"));
+    }
+}
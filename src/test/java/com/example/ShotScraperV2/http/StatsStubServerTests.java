@@ -0,0 +1,87 @@
+package com.example.ShotScraperV2.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("StatsStubServer")
+public class StatsStubServerTests {
+    private final ScraperHttpClient uncachedClient = new ScraperHttpClient(ResponseCache.disabled());
+    @TempDir
+    Path recordings;
+    private StatsStubServer stub;
+
+    @AfterEach
+    void stopStub() {
+        if (stub != null) {
+            stub.stop();
+        }
+    }
+
+    /**
+     * Checks that every endpoint the scrapers use is answered from the seeded sample responses
+     */
+    @Test
+    @DisplayName("replays seeded sample responses")
+    void shouldReplaySamples() throws IOException, InterruptedException {
+        stub = new StatsStubServer(recordings, null);
+        String baseUrl = stub.start(0);
+        assertTrue(uncachedClient.fetch(baseUrl + "/stats/shotchartdetail?CFPARAMS=2018-19&PlayerID=2225&SeasonType=Pre+Season").contains("Shot_Chart_Detail"));
+        assertTrue(uncachedClient.fetch(baseUrl + "/stats/playerprofilev2?LeagueID=00&PerMode=PerGame&PlayerID=2225").contains("SeasonTotalsRegularSeason"));
+        assertTrue(uncachedClient.fetch(baseUrl + "/stats/js/data/ptsd/stats_ptsd.js").contains("stats_ptsd"));
+        assertEquals(3, stub.getServedCount());
+    }
+
+    /**
+     * Checks that requests without a recording are fetched from upstream once and then replayed
+     */
+    @Test
+    @DisplayName("records from upstream")
+    void shouldRecordFromUpstream(@TempDir Path upstreamRecordings) throws IOException, InterruptedException {
+        StatsStubServer upstream = new StatsStubServer(upstreamRecordings, null);
+        try {
+            String upstreamUrl = upstream.start(0);
+            stub = new StatsStubServer(recordings, upstreamUrl);
+            String baseUrl = stub.start(0);
+            long seeded;
+            try (var files = Files.list(recordings)) {
+                seeded = files.count();
+            }
+            uncachedClient.fetch(baseUrl + "/stats/playerprofilev2?PlayerID=2544");
+            uncachedClient.fetch(baseUrl + "/stats/playerprofilev2?PlayerID=2544");
+            try (var files = Files.list(recordings)) {
+                assertEquals(seeded + 1, files.count());
+            }
+            assertEquals(1, upstream.getServedCount());
+        } finally {
+            upstream.stop();
+        }
+    }
+
+    /**
+     * Checks that simulated errors and throttling reach the client as failures
+     */
+    @Test
+    @DisplayName("simulates errors and throttling")
+    void shouldSimulateErrorsAndThrottling() throws IOException {
+        stub = new StatsStubServer(recordings, null);
+        String baseUrl = stub.start(0);
+        stub.setErrorRate(1);
+        assertThrows(IOException.class, () -> uncachedClient.fetch(baseUrl + "/stats/playerprofilev2?PlayerID=2225"));
+        stub.setErrorRate(0);
+        stub.setThrottleRequestsPerSecond(1);
+        assertThrows(IOException.class, () -> {
+            uncachedClient.fetch(baseUrl + "/stats/playerprofilev2?PlayerID=2225");
+            uncachedClient.fetch(baseUrl + "/stats/playerprofilev2?PlayerID=2225");
+        });
+        assertEquals(1, stub.getFailedCount());
+        assertTrue(stub.getThrottledCount() >= 1);
+    }
+}